@@ -15,6 +15,7 @@
  */
 package io.netty.buffer;
 
+import io.netty.util.CharsetUtil;
 import io.netty.util.IllegalReferenceCountException;
 import io.netty.util.ResourceLeakDetector;
 import io.netty.util.internal.PlatformDependent;
@@ -57,6 +58,16 @@ public abstract class AbstractByteBuf extends ByteBuf {
         throw new UnsupportedOperationException("not implemented");
     }
 
+    @Override
+    public ByteBuf pin() {
+        return this;
+    }
+
+    @Override
+    public ByteBuf unpin() {
+        return this;
+    }
+
     @Override
     public int maxCapacity() {
         return maxCapacity;
@@ -420,6 +431,78 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        return getInts(index, dst, dstIndex, length, order() == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    ByteBuf getInts(int index, int[] dst, int dstIndex, int length, boolean littleEndian) {
+        checkPrimitiveIndex(index, dstIndex, length, dst.length, 2);
+        if (!_getPrimitives(index, dst, ByteBufUtil.INT_ARRAY_BASE_OFFSET + ((long) dstIndex << 2),
+                            length << 2, 4, littleEndian)) {
+            boolean swap = swapPrimitives(littleEndian);
+            for (int i = 0; i < length; i ++) {
+                int v = _getInt(index + (i << 2));
+                dst[dstIndex + i] = swap ? Integer.reverseBytes(v) : v;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        return getLongs(index, dst, dstIndex, length, order() == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    ByteBuf getLongs(int index, long[] dst, int dstIndex, int length, boolean littleEndian) {
+        checkPrimitiveIndex(index, dstIndex, length, dst.length, 3);
+        if (!_getPrimitives(index, dst, ByteBufUtil.LONG_ARRAY_BASE_OFFSET + ((long) dstIndex << 3),
+                            length << 3, 8, littleEndian)) {
+            boolean swap = swapPrimitives(littleEndian);
+            for (int i = 0; i < length; i ++) {
+                long v = _getLong(index + (i << 3));
+                dst[dstIndex + i] = swap ? Long.reverseBytes(v) : v;
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        return getFloats(index, dst, dstIndex, length, order() == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    ByteBuf getFloats(int index, float[] dst, int dstIndex, int length, boolean littleEndian) {
+        checkPrimitiveIndex(index, dstIndex, length, dst.length, 2);
+        if (!_getPrimitives(index, dst, ByteBufUtil.FLOAT_ARRAY_BASE_OFFSET + ((long) dstIndex << 2),
+                            length << 2, 4, littleEndian)) {
+            boolean swap = swapPrimitives(littleEndian);
+            for (int i = 0; i < length; i ++) {
+                int v = _getInt(index + (i << 2));
+                dst[dstIndex + i] = Float.intBitsToFloat(swap ? Integer.reverseBytes(v) : v);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        return getDoubles(index, dst, dstIndex, length, order() == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length, boolean littleEndian) {
+        checkPrimitiveIndex(index, dstIndex, length, dst.length, 3);
+        if (!_getPrimitives(index, dst, ByteBufUtil.DOUBLE_ARRAY_BASE_OFFSET + ((long) dstIndex << 3),
+                            length << 3, 8, littleEndian)) {
+            boolean swap = swapPrimitives(littleEndian);
+            for (int i = 0; i < length; i ++) {
+                long v = _getLong(index + (i << 3));
+                dst[dstIndex + i] = Double.longBitsToDouble(swap ? Long.reverseBytes(v) : v);
+            }
+        }
+        return this;
+    }
+
     @Override
     public ByteBuf getBytes(int index, ByteBuf dst) {
         getBytes(index, dst, dst.writableBytes());
@@ -508,6 +591,78 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        return setInts(index, src, srcIndex, length, order() == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    ByteBuf setInts(int index, int[] src, int srcIndex, int length, boolean littleEndian) {
+        checkPrimitiveIndex(index, srcIndex, length, src.length, 2);
+        if (!_setPrimitives(index, src, ByteBufUtil.INT_ARRAY_BASE_OFFSET + ((long) srcIndex << 2),
+                            length << 2, 4, littleEndian)) {
+            boolean swap = swapPrimitives(littleEndian);
+            for (int i = 0; i < length; i ++) {
+                int v = src[srcIndex + i];
+                _setInt(index + (i << 2), swap ? Integer.reverseBytes(v) : v);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        return setLongs(index, src, srcIndex, length, order() == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    ByteBuf setLongs(int index, long[] src, int srcIndex, int length, boolean littleEndian) {
+        checkPrimitiveIndex(index, srcIndex, length, src.length, 3);
+        if (!_setPrimitives(index, src, ByteBufUtil.LONG_ARRAY_BASE_OFFSET + ((long) srcIndex << 3),
+                            length << 3, 8, littleEndian)) {
+            boolean swap = swapPrimitives(littleEndian);
+            for (int i = 0; i < length; i ++) {
+                long v = src[srcIndex + i];
+                _setLong(index + (i << 3), swap ? Long.reverseBytes(v) : v);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        return setFloats(index, src, srcIndex, length, order() == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    ByteBuf setFloats(int index, float[] src, int srcIndex, int length, boolean littleEndian) {
+        checkPrimitiveIndex(index, srcIndex, length, src.length, 2);
+        if (!_setPrimitives(index, src, ByteBufUtil.FLOAT_ARRAY_BASE_OFFSET + ((long) srcIndex << 2),
+                            length << 2, 4, littleEndian)) {
+            boolean swap = swapPrimitives(littleEndian);
+            for (int i = 0; i < length; i ++) {
+                int v = Float.floatToRawIntBits(src[srcIndex + i]);
+                _setInt(index + (i << 2), swap ? Integer.reverseBytes(v) : v);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        return setDoubles(index, src, srcIndex, length, order() == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    ByteBuf setDoubles(int index, double[] src, int srcIndex, int length, boolean littleEndian) {
+        checkPrimitiveIndex(index, srcIndex, length, src.length, 3);
+        if (!_setPrimitives(index, src, ByteBufUtil.DOUBLE_ARRAY_BASE_OFFSET + ((long) srcIndex << 3),
+                            length << 3, 8, littleEndian)) {
+            boolean swap = swapPrimitives(littleEndian);
+            for (int i = 0; i < length; i ++) {
+                long v = Double.doubleToRawLongBits(src[srcIndex + i]);
+                _setLong(index + (i << 3), swap ? Long.reverseBytes(v) : v);
+            }
+        }
+        return this;
+    }
+
     @Override
     public ByteBuf setBytes(int index, ByteBuf src) {
         setBytes(index, src, src.readableBytes());
@@ -646,6 +801,87 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return Double.longBitsToDouble(readLong());
     }
 
+    /**
+     * Gets an unsigned 32-bit integer encoded as a varint of 1 to 5 bytes (7 bits per byte, least significant
+     * group first, the high bit set on all but the last byte) at the current {@code readerIndex} and increases
+     * the {@code readerIndex} by its size.
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the varint does not end before {@code writerIndex}
+     * @throws IllegalStateException
+     *         if the varint is longer than 5 bytes
+     */
+    public int readVarInt32() {
+        return (int) readVarInt(5);
+    }
+
+    /**
+     * Gets a 64-bit integer encoded as a varint of 1 to 10 bytes at the current {@code readerIndex} and
+     * increases the {@code readerIndex} by its size.
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the varint does not end before {@code writerIndex}
+     * @throws IllegalStateException
+     *         if the varint is longer than 10 bytes
+     */
+    public long readVarInt64() {
+        return readVarInt(10);
+    }
+
+    /**
+     * Gets a signed 32-bit integer written by {@link #writeZigZag32(int)} at the current {@code readerIndex}
+     * and increases the {@code readerIndex} by its size.
+     */
+    public int readZigZag32() {
+        int v = readVarInt32();
+        return v >>> 1 ^ -(v & 1);
+    }
+
+    /**
+     * Gets a signed 64-bit integer written by {@link #writeZigZag64(long)} at the current {@code readerIndex}
+     * and increases the {@code readerIndex} by its size.
+     */
+    public long readZigZag64() {
+        long v = readVarInt64();
+        return v >>> 1 ^ -(v & 1);
+    }
+
+    private long readVarInt(int maxSize) {
+        checkReadableBytes(1);
+        final int index = readerIndex;
+        if (writerIndex - index >= 8) {
+            long word = _getLongLE(index);
+            if ((word & 0x80) == 0) {
+                readerIndex = index + 1;
+                return word & 0x7F;
+            }
+            int size = ByteBufUtil.varIntLength(word);
+            if (size <= maxSize && size <= 8) {
+                readerIndex = index + size;
+                return ByteBufUtil.decodeVarInt(word, size);
+            }
+        }
+        return readVarIntSlow(index, maxSize);
+    }
+
+    // near writerIndex, longer than 8 bytes or malformed
+    private long readVarIntSlow(int index, int maxSize) {
+        long value = 0;
+        for (int i = 0; i < maxSize; i ++) {
+            if (index + i == writerIndex) {
+                throw new IndexOutOfBoundsException(String.format(
+                        "readerIndex(%d) + varint exceeds writerIndex(%d): %s", index, writerIndex, this));
+            }
+            byte b = _getByte(index + i);
+            value |= (b & 0x7FL) << 7 * i;
+            if (b >= 0) {
+                readerIndex = index + i + 1;
+                return value;
+            }
+        }
+        throw new IllegalStateException("varint longer than " + maxSize + " bytes at " + index);
+    }
+
     @Override
     public ByteBuf readBytes(int length) {
         checkReadableBytes(length);
@@ -654,7 +890,7 @@ public abstract class AbstractByteBuf extends ByteBuf {
         }
 
         // Use an unpooled heap buffer because there's no way to mandate a user to free the returned buffer.
-        ByteBuf buf = Unpooled.buffer(length, maxCapacity);
+        ByteBuf buf = Unpooled.buffer(length, maxCapacity).order(order());
         buf.writeBytes(this, readerIndex, length);
         readerIndex += length;
         return buf;
@@ -667,6 +903,14 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return slice;
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        checkReadableBytes(length);
+        ByteBuf slice = retainedSlice(readerIndex, length);
+        readerIndex += length;
+        return slice;
+    }
+
     @Override
     public ByteBuf readBytes(byte[] dst, int dstIndex, int length) {
         checkReadableBytes(length);
@@ -809,6 +1053,68 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return this;
     }
 
+    /**
+     * Sets the specified unsigned 32-bit integer as a varint of 1 to 5 bytes (7 bits per byte, least
+     * significant group first, the high bit set on all but the last byte) at the current {@code writerIndex}
+     * and increases the {@code writerIndex} by its size. Unlike protobuf, a negative value takes 5 bytes
+     * rather than 10; see {@link #writeZigZag32(int)} for values which are often negative.
+     */
+    public ByteBuf writeVarInt32(int value) {
+        return writeVarInt(value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Sets the specified 64-bit integer as a varint of 1 to 10 bytes at the current {@code writerIndex} and
+     * increases the {@code writerIndex} by its size.
+     */
+    public ByteBuf writeVarInt64(long value) {
+        return writeVarInt(value);
+    }
+
+    /**
+     * Sets the specified signed 32-bit integer as the varint of its ZigZag encoding, so that values of a small
+     * magnitude take few bytes whatever their sign, at the current {@code writerIndex} and increases the
+     * {@code writerIndex} by its size.
+     */
+    public ByteBuf writeZigZag32(int value) {
+        return writeVarInt32(value << 1 ^ value >> 31);
+    }
+
+    /**
+     * Sets the specified signed 64-bit integer as the varint of its ZigZag encoding at the current
+     * {@code writerIndex} and increases the {@code writerIndex} by its size.
+     */
+    public ByteBuf writeZigZag64(long value) {
+        return writeVarInt64(value << 1 ^ value >> 63);
+    }
+
+    private ByteBuf writeVarInt(long value) {
+        final int size = ByteBufUtil.varIntSize(value);
+        ensureWritable(size);
+        final int index = writerIndex;
+        if (size == 1) {
+            _setByte(index, (int) value);
+        } else if (size <= 8) {
+            _setBytesLE(index, ByteBufUtil.encodeVarInt(value, size), size);
+        } else {
+            writeLongVarInt(index, value, size);
+        }
+        writerIndex = index + size;
+        return this;
+    }
+
+    private void writeLongVarInt(int index, long value, int size) {
+        // the 8 bits above the first 8 groups take 1 or 2 more bytes
+        _setBytesLE(index, ByteBufUtil.encodeVarInt(value, 8) | 0x80L << 56, 8);
+        int rest = (int) (value >>> 56);
+        if (size == 9) {
+            _setByte(index + 8, rest);
+        } else {
+            _setByte(index + 8, rest | 0x80);
+            _setByte(index + 9, rest >>> 7);
+        }
+    }
+
     @Override
     public ByteBuf writeBytes(byte[] src, int srcIndex, int length) {
         ensureWritable(length);
@@ -931,6 +1237,21 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return new SlicedByteBuf(this, index, length);
     }
 
+    @Override
+    public ByteBuf retainedSlice() {
+        return retainedSlice(readerIndex, readableBytes());
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        return slice(index, length).retain();
+    }
+
+    @Override
+    public ByteBuf retainedDuplicate() {
+        return duplicate().retain();
+    }
+
     @Override
     public ByteBuffer nioBuffer() {
         return nioBuffer(readerIndex, readableBytes());
@@ -952,6 +1273,16 @@ public abstract class AbstractByteBuf extends ByteBuf {
             return "";
         }
 
+        String decoded = null;
+        if (CharsetUtil.UTF_8.equals(charset)) {
+            decoded = ByteBufUtil.decodeUtf8(this, index, length);
+        } else if (CharsetUtil.US_ASCII.equals(charset)) {
+            decoded = ByteBufUtil.decodeAscii(this, index, length);
+        }
+        if (decoded != null) {
+            return decoded;
+        }
+
         ByteBuffer nioBuffer;
         if (nioBufferCount() == 1) {
             nioBuffer = nioBuffer(index, length);
@@ -1012,6 +1343,11 @@ public abstract class AbstractByteBuf extends ByteBuf {
         }
 
         final int endIndex = index + length;
+        final int searched = searchedByte(processor);
+        if (searched >= 0) {
+            return firstIndexOf0(index, endIndex, (byte) searched);
+        }
+
         int i = index;
         try {
             do {
@@ -1050,6 +1386,11 @@ public abstract class AbstractByteBuf extends ByteBuf {
             return -1;
         }
 
+        final int searched = searchedByte(processor);
+        if (searched >= 0) {
+            return lastIndexOf0(index, index + length, (byte) searched);
+        }
+
         int i = index + length - 1;
         try {
             do {
@@ -1066,6 +1407,133 @@ public abstract class AbstractByteBuf extends ByteBuf {
         return -1;
     }
 
+    /**
+     * Returns the only byte {@code processor} stops at if it is one of the {@link ByteBufProcessor} constants
+     * which are the same as a search for that byte, or {@code -1}.
+     */
+    private static int searchedByte(ByteBufProcessor processor) {
+        if (processor == ByteBufProcessor.FIND_NUL) {
+            return 0;
+        }
+        if (processor == ByteBufProcessor.FIND_CR) {
+            return '\r';
+        }
+        if (processor == ByteBufProcessor.FIND_LF) {
+            return '\n';
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the 8 bytes at {@code index} as a little-endian word, i.e. with the byte at {@code index} in the
+     * low-order bits. The range is checked by the caller. Buffers which can read their memory directly override
+     * this and {@link #_setBytesLE(int, long, int)} to spare the byte swaps on little-endian hosts.
+     */
+    long _getLongLE(int index) {
+        long word = _getLong(index);
+        return order() == ByteOrder.BIG_ENDIAN ? Long.reverseBytes(word) : word;
+    }
+
+    /**
+     * Sets the {@code length} (at most 8) low-order bytes of {@code word} starting at {@code index}, lowest
+     * first. The range is checked by the caller.
+     */
+    void _setBytesLE(int index, long word, int length) {
+        for (int i = 0; i < length; i ++) {
+            _setByte(index + i, (int) word);
+            word >>>= 8;
+        }
+    }
+
+    /**
+     * Copies the {@code length} bytes at {@code index} to the memory of a primitive array at {@code dstOffset}
+     * (see {@link PlatformDependent#arrayBaseOffset(Class)}), as elements of {@code elementSize} bytes stored
+     * big endian in this buffer, or little endian if {@code littleEndian}. The range is checked by the caller.
+     * Returns {@code false} if nothing was copied because this buffer cannot access its memory directly; the
+     * buffers which can override this and {@link #_setPrimitives(int, Object, long, int, int, boolean)}.
+     */
+    boolean _getPrimitives(int index, Object dst, long dstOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        return false;
+    }
+
+    /**
+     * The reverse of {@link #_getPrimitives(int, Object, long, int, int, boolean)}.
+     */
+    boolean _setPrimitives(int index, Object src, long srcOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the elements read by {@link #_getInt(int)} and {@link #_getLong(int)}, which are in
+     * the {@link #order()} of this buffer, must be reversed to be stored little endian if {@code littleEndian}.
+     */
+    private boolean swapPrimitives(boolean littleEndian) {
+        return littleEndian != (order() == ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Same as {@link #_getPrimitives(int, Object, long, int, int, boolean)} one element at a time, for a buffer
+     * that can only copy part of the range directly. Only valid if {@link ByteBufUtil#hasPrimitiveAccess()}.
+     */
+    final void getPrimitivesSlow(int index, Object dst, long dstOffset, int length, int elementSize,
+                                 boolean littleEndian) {
+        boolean swap = swapPrimitives(littleEndian);
+        for (int i = 0; i < length; i += elementSize) {
+            if (elementSize == 4) {
+                int v = _getInt(index + i);
+                PlatformDependent.putInt(dst, dstOffset + i, swap ? Integer.reverseBytes(v) : v);
+            } else {
+                long v = _getLong(index + i);
+                PlatformDependent.putLong(dst, dstOffset + i, swap ? Long.reverseBytes(v) : v);
+            }
+        }
+    }
+
+    /**
+     * The reverse of {@link #getPrimitivesSlow(int, Object, long, int, int, boolean)}.
+     */
+    final void setPrimitivesSlow(int index, Object src, long srcOffset, int length, int elementSize,
+                                 boolean littleEndian) {
+        boolean swap = swapPrimitives(littleEndian);
+        for (int i = 0; i < length; i += elementSize) {
+            if (elementSize == 4) {
+                int v = PlatformDependent.getInt(src, srcOffset + i);
+                _setInt(index + i, swap ? Integer.reverseBytes(v) : v);
+            } else {
+                long v = PlatformDependent.getLong(src, srcOffset + i);
+                _setLong(index + i, swap ? Long.reverseBytes(v) : v);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the first byte equal to {@code value} in {@code [fromIndex, toIndex)}, or {@code -1}.
+     * The range is checked by the caller. Buffers which can read their memory directly override this and
+     * {@link #lastIndexOf0(int, int, byte)} to look at more than one byte at a time.
+     */
+    int firstIndexOf0(int fromIndex, int toIndex, byte value) {
+        for (int i = fromIndex; i < toIndex; i ++) {
+            if (_getByte(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@link #firstIndexOf0(int, int, byte)}, but returns the index of the last matching byte.
+     */
+    int lastIndexOf0(int fromIndex, int toIndex, byte value) {
+        for (int i = toIndex - 1; i >= fromIndex; i --) {
+            if (_getByte(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     @Override
     public int hashCode() {
         return ByteBufUtil.hashCode(this);
@@ -1134,6 +1602,18 @@ public abstract class AbstractByteBuf extends ByteBuf {
         }
     }
 
+    /**
+     * Checks a range of {@code length} elements at {@code arrayIndex} of an array of {@code arrayLength} elements,
+     * and the range of {@code length << shift} bytes at {@code index} of this buffer.
+     */
+    private void checkPrimitiveIndex(int index, int arrayIndex, int length, int arrayLength, int shift) {
+        if (arrayIndex < 0 || length < 0 || arrayIndex > arrayLength - length) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "arrayIndex: %d, length: %d (expected: range(0, %d))", arrayIndex, length, arrayLength));
+        }
+        checkIndex(index, (int) Math.min((long) length << shift, Integer.MAX_VALUE));
+    }
+
     protected final void checkSrcIndex(int index, int length, int srcIndex, int srcCapacity) {
         checkIndex(index, length);
         if (srcIndex < 0 || srcIndex > srcCapacity - length) {
@@ -18,6 +18,8 @@ package io.netty.buffer;
 
 import io.netty.util.internal.PlatformDependent;
 
+import java.nio.ByteOrder;
+
 /**
  * Skeletal {@link ByteBufAllocator} implementation to extend.
  */
@@ -113,6 +115,23 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
         return newHeapBuffer(initialCapacity, maxCapacity);
     }
 
+    @Override
+    public ByteBuf heapBuffer(int initialCapacity, ByteOrder order) {
+        return heapBuffer(initialCapacity, Integer.MAX_VALUE, order);
+    }
+
+    @Override
+    public ByteBuf heapBuffer(int initialCapacity, int maxCapacity, ByteOrder order) {
+        if (order == null) {
+            throw new NullPointerException("order");
+        }
+        if (initialCapacity == 0 && maxCapacity == 0) {
+            return emptyBuf.order(order);
+        }
+        validate(initialCapacity, maxCapacity);
+        return newHeapBuffer(initialCapacity, maxCapacity, order);
+    }
+
     @Override
     public ByteBuf directBuffer() {
         return directBuffer(DEFAULT_INITIAL_CAPACITY, Integer.MAX_VALUE);
@@ -132,6 +151,23 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
         return newDirectBuffer(initialCapacity, maxCapacity);
     }
 
+    @Override
+    public ByteBuf directBuffer(int initialCapacity, ByteOrder order) {
+        return directBuffer(initialCapacity, Integer.MAX_VALUE, order);
+    }
+
+    @Override
+    public ByteBuf directBuffer(int initialCapacity, int maxCapacity, ByteOrder order) {
+        if (order == null) {
+            throw new NullPointerException("order");
+        }
+        if (initialCapacity == 0 && maxCapacity == 0) {
+            return emptyBuf.order(order);
+        }
+        validate(initialCapacity, maxCapacity);
+        return newDirectBuffer(initialCapacity, maxCapacity, order);
+    }
+
     @Override
     public CompositeByteBuf compositeBuffer() {
         if (directByDefault) {
@@ -188,4 +224,22 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
      * Create a direct {@link ByteBuf} with the given initialCapacity and maxCapacity.
      */
     protected abstract ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity);
+
+    /**
+     * Create a heap {@link ByteBuf} with the given initialCapacity, maxCapacity and byte order. The default
+     * implementation sets the order of a buffer created by {@link #newHeapBuffer(int, int)} with
+     * {@link ByteBuf#order(ByteOrder)}.
+     */
+    protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity, ByteOrder order) {
+        return newHeapBuffer(initialCapacity, maxCapacity).order(order);
+    }
+
+    /**
+     * Create a direct {@link ByteBuf} with the given initialCapacity, maxCapacity and byte order. The default
+     * implementation sets the order of a buffer created by {@link #newDirectBuffer(int, int)} with
+     * {@link ByteBuf#order(ByteOrder)}.
+     */
+    protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity, ByteOrder order) {
+        return newDirectBuffer(initialCapacity, maxCapacity).order(order);
+    }
 }
@@ -55,6 +55,18 @@ public abstract class AbstractDerivedByteBuf extends AbstractByteBuf {
         return unwrap().release(decrement);
     }
 
+    @Override
+    public final ByteBuf pin() {
+        unwrap().pin();
+        return this;
+    }
+
+    @Override
+    public final ByteBuf unpin() {
+        unwrap().unpin();
+        return this;
+    }
+
     @Override
     public ByteBuffer internalNioBuffer(int index, int length) {
         return nioBuffer(index, length);
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import io.netty.util.Recycler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+
+/**
+ * Base class of the buffers returned by {@link ByteBuf#retainedSlice(int, int)} and
+ * {@link ByteBuf#retainedDuplicate()} of a {@link PooledByteBuf}.
+ *
+ * Unlike an {@link AbstractDerivedByteBuf}, such a buffer counts its own references. It holds one reference to
+ * its parent, released with its own last reference, after which it is recycled.
+ */
+abstract class AbstractPooledDerivedByteBuf extends AbstractReferenceCountedByteBuf {
+
+    private final Recycler.Handle recyclerHandle;
+    // every access goes to the root, which is the parent unless this buffer was derived from a derived buffer
+    private AbstractByteBuf root;
+    private ByteBuf parent;
+    private int adjustment;
+
+    AbstractPooledDerivedByteBuf(Recycler.Handle recyclerHandle) {
+        super(0);
+        this.recyclerHandle = recyclerHandle;
+    }
+
+    /**
+     * Retains {@code parent} and makes this buffer a view of {@code root} from {@code adjustment}.
+     */
+    final void init(AbstractByteBuf root, ByteBuf parent, int adjustment,
+                    int readerIndex, int writerIndex, int maxCapacity) {
+        parent.retain();
+        this.root = root;
+        this.parent = parent;
+        this.adjustment = adjustment;
+        maxCapacity(maxCapacity);
+        setRefCnt(1);
+        setIndex(readerIndex, writerIndex);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected final void deallocate() {
+        // the parent is released last, as this buffer may be got again from the recycler as soon as it is recycled
+        ByteBuf parent = this.parent;
+        this.parent = null;
+        root = null;
+        ((Recycler<Object>) recycler()).recycle(this, recyclerHandle);
+        parent.release();
+    }
+
+    protected abstract Recycler<?> recycler();
+
+    final AbstractByteBuf root() {
+        return root;
+    }
+
+    final int idx(int index) {
+        return index + adjustment;
+    }
+
+    @Override
+    public final ByteBuf unwrap() {
+        return root;
+    }
+
+    @Override
+    public final ByteBufAllocator alloc() {
+        return root.alloc();
+    }
+
+    @Override
+    public final ByteOrder order() {
+        return root.order();
+    }
+
+    @Override
+    public final boolean isDirect() {
+        return root.isDirect();
+    }
+
+    @Override
+    public final ByteBuf pin() {
+        root.pin();
+        return this;
+    }
+
+    @Override
+    public final ByteBuf unpin() {
+        root.unpin();
+        return this;
+    }
+
+    @Override
+    public final boolean hasArray() {
+        return root.hasArray();
+    }
+
+    @Override
+    public final byte[] array() {
+        return root.array();
+    }
+
+    @Override
+    public final int arrayOffset() {
+        return root.arrayOffset() + adjustment;
+    }
+
+    @Override
+    public final boolean hasMemoryAddress() {
+        return root.hasMemoryAddress();
+    }
+
+    @Override
+    public final long memoryAddress() {
+        return root.memoryAddress() + adjustment;
+    }
+
+    @Override
+    public final ByteBuf retainedSlice(int index, int length) {
+        checkIndex(index, length);
+        return PooledSlicedByteBuf.newInstance(root, this, idx(index), length);
+    }
+
+    @Override
+    protected final byte _getByte(int index) {
+        return root._getByte(idx(index));
+    }
+
+    @Override
+    protected final short _getShort(int index) {
+        return root._getShort(idx(index));
+    }
+
+    @Override
+    protected final int _getUnsignedMedium(int index) {
+        return root._getUnsignedMedium(idx(index));
+    }
+
+    @Override
+    protected final int _getInt(int index) {
+        return root._getInt(idx(index));
+    }
+
+    @Override
+    protected final long _getLong(int index) {
+        return root._getLong(idx(index));
+    }
+
+    @Override
+    protected final void _setByte(int index, int value) {
+        root._setByte(idx(index), value);
+    }
+
+    @Override
+    protected final void _setShort(int index, int value) {
+        root._setShort(idx(index), value);
+    }
+
+    @Override
+    protected final void _setMedium(int index, int value) {
+        root._setMedium(idx(index), value);
+    }
+
+    @Override
+    protected final void _setInt(int index, int value) {
+        root._setInt(idx(index), value);
+    }
+
+    @Override
+    protected final void _setLong(int index, long value) {
+        root._setLong(idx(index), value);
+    }
+
+    @Override
+    final long _getLongLE(int index) {
+        return root._getLongLE(idx(index));
+    }
+
+    @Override
+    final void _setBytesLE(int index, long word, int length) {
+        root._setBytesLE(idx(index), word, length);
+    }
+
+    @Override
+    final int firstIndexOf0(int fromIndex, int toIndex, byte value) {
+        int index = root.firstIndexOf0(idx(fromIndex), idx(toIndex), value);
+        return index < 0 ? -1 : index - adjustment;
+    }
+
+    @Override
+    final int lastIndexOf0(int fromIndex, int toIndex, byte value) {
+        int index = root.lastIndexOf0(idx(fromIndex), idx(toIndex), value);
+        return index < 0 ? -1 : index - adjustment;
+    }
+
+    @Override
+    final boolean _getPrimitives(int index, Object dst, long dstOffset, int length, int elementSize,
+                                 boolean littleEndian) {
+        return root._getPrimitives(idx(index), dst, dstOffset, length, elementSize, littleEndian);
+    }
+
+    @Override
+    final boolean _setPrimitives(int index, Object src, long srcOffset, int length, int elementSize,
+                                 boolean littleEndian) {
+        return root._setPrimitives(idx(index), src, srcOffset, length, elementSize, littleEndian);
+    }
+
+    @Override
+    public final ByteBuf copy(int index, int length) {
+        checkIndex(index, length);
+        return root.copy(idx(index), length);
+    }
+
+    @Override
+    public final ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
+        checkIndex(index, length);
+        root.getBytes(idx(index), dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public final ByteBuf getBytes(int index, byte[] dst, int dstIndex, int length) {
+        checkIndex(index, length);
+        root.getBytes(idx(index), dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public final ByteBuf getBytes(int index, ByteBuffer dst) {
+        checkIndex(index, dst.remaining());
+        root.getBytes(idx(index), dst);
+        return this;
+    }
+
+    @Override
+    public final ByteBuf getBytes(int index, OutputStream out, int length) throws IOException {
+        checkIndex(index, length);
+        root.getBytes(idx(index), out, length);
+        return this;
+    }
+
+    @Override
+    public final int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
+        checkIndex(index, length);
+        return root.getBytes(idx(index), out, length);
+    }
+
+    @Override
+    public final ByteBuf setBytes(int index, ByteBuf src, int srcIndex, int length) {
+        checkIndex(index, length);
+        root.setBytes(idx(index), src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public final ByteBuf setBytes(int index, byte[] src, int srcIndex, int length) {
+        checkIndex(index, length);
+        root.setBytes(idx(index), src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public final ByteBuf setBytes(int index, ByteBuffer src) {
+        checkIndex(index, src.remaining());
+        root.setBytes(idx(index), src);
+        return this;
+    }
+
+    @Override
+    public final int setBytes(int index, InputStream in, int length) throws IOException {
+        checkIndex(index, length);
+        return root.setBytes(idx(index), in, length);
+    }
+
+    @Override
+    public final int setBytes(int index, ScatteringByteChannel in, int length) throws IOException {
+        checkIndex(index, length);
+        return root.setBytes(idx(index), in, length);
+    }
+
+    @Override
+    public final int nioBufferCount() {
+        return root.nioBufferCount();
+    }
+
+    @Override
+    public final ByteBuffer nioBuffer(int index, int length) {
+        checkIndex(index, length);
+        return root.nioBuffer(idx(index), length);
+    }
+
+    @Override
+    public final ByteBuffer[] nioBuffers(int index, int length) {
+        checkIndex(index, length);
+        return root.nioBuffers(idx(index), length);
+    }
+
+    @Override
+    public final ByteBuffer internalNioBuffer(int index, int length) {
+        return nioBuffer(index, length);
+    }
+}
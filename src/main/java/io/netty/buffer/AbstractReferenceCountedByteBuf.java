@@ -23,6 +23,10 @@ import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Abstract base class for {@link ByteBuf} implementations that count references.
+ *
+ * The reference count is updated atomically, unless the buffer was {@linkplain #confine() confined} to the thread
+ * which retains and releases it, which then updates it with plain writes until it {@linkplain #share() shares}
+ * the buffer again.
  */
 public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
 
@@ -48,6 +52,9 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
     @SuppressWarnings("FieldMayBeFinal")
     private volatile int refCnt = 1;
 
+    // the only thread which may update refCnt while it is set, which it does without atomic instructions
+    private Thread owner;
+
     protected AbstractReferenceCountedByteBuf(int maxCapacity) {
         super(maxCapacity);
     }
@@ -69,8 +76,74 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
         this.refCnt = refCnt;
     }
 
+    /**
+     * Lets only the current thread retain and release this buffer until it calls {@link #share()}, which makes
+     * {@link #retain()} and {@link #release()} update the reference count with plain rather than atomic writes.
+     * This suits a buffer that never leaves the thread which allocated it, or that is retained and released
+     * several times there before it is handed over. Another thread which retains or releases the buffer in the
+     * meantime gets an {@link IllegalStateException}, as long as it sees the confinement. Does nothing if
+     * {@code sun.misc.Unsafe} is unavailable.
+     */
+    public ByteBuf confine() {
+        ensureAccessible();
+        if (REFCNT_FIELD_OFFSET >= 0) {
+            Thread current = Thread.currentThread();
+            Thread owner = this.owner;
+            if (owner != null && owner != current) {
+                throw confinedTo(owner);
+            }
+            this.owner = current;
+        }
+        return this;
+    }
+
+    /**
+     * Ends the confinement started by {@link #confine()}, so that any thread may retain and release this buffer
+     * again. Must be called by the confining thread before it hands the buffer over.
+     */
+    public ByteBuf share() {
+        Thread owner = this.owner;
+        if (owner != null) {
+            if (owner != Thread.currentThread()) {
+                throw confinedTo(owner);
+            }
+            // the plain writes of the count are published with the buffer itself, like those of its content
+            this.owner = null;
+        }
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if this buffer is {@linkplain #confine() confined} to a thread.
+     */
+    public final boolean isConfined() {
+        return owner != null;
+    }
+
+    private void updateConfined(int refCnt) {
+        if (owner != Thread.currentThread()) {
+            throw confinedTo(owner);
+        }
+        PlatformDependent.putInt(this, REFCNT_FIELD_OFFSET, refCnt);
+    }
+
+    private static IllegalStateException confinedTo(Thread owner) {
+        return new IllegalStateException("reference count confined to " + owner + " (call share() first)");
+    }
+
     @Override
     public ByteBuf retain() {
+        if (owner != null) {
+            int refCnt = this.refCnt;
+            if (refCnt == 0) {
+                throw new IllegalReferenceCountException(0, 1);
+            }
+            if (refCnt == Integer.MAX_VALUE) {
+                throw new IllegalReferenceCountException(Integer.MAX_VALUE, 1);
+            }
+            updateConfined(refCnt + 1);
+            return this;
+        }
         for (;;) {
             int refCnt = this.refCnt;
             if (refCnt == 0) {
@@ -92,6 +165,17 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
             throw new IllegalArgumentException("increment: " + increment + " (expected: > 0)");
         }
 
+        if (owner != null) {
+            int refCnt = this.refCnt;
+            if (refCnt == 0) {
+                throw new IllegalReferenceCountException(0, increment);
+            }
+            if (refCnt > Integer.MAX_VALUE - increment) {
+                throw new IllegalReferenceCountException(refCnt, increment);
+            }
+            updateConfined(refCnt + increment);
+            return this;
+        }
         for (;;) {
             int refCnt = this.refCnt;
             if (refCnt == 0) {
@@ -109,6 +193,9 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
 
     @Override
     public final boolean release() {
+        if (owner != null) {
+            return releaseConfined(1);
+        }
         for (;;) {
             int refCnt = this.refCnt;
             if (refCnt == 0) {
@@ -131,6 +218,9 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
             throw new IllegalArgumentException("decrement: " + decrement + " (expected: > 0)");
         }
 
+        if (owner != null) {
+            return releaseConfined(decrement);
+        }
         for (;;) {
             int refCnt = this.refCnt;
             if (refCnt < decrement) {
@@ -147,6 +237,21 @@ public abstract class AbstractReferenceCountedByteBuf extends AbstractByteBuf {
         }
     }
 
+    private boolean releaseConfined(int decrement) {
+        int refCnt = this.refCnt;
+        if (refCnt < decrement) {
+            throw new IllegalReferenceCountException(refCnt, -decrement);
+        }
+        updateConfined(refCnt - decrement);
+        if (refCnt == decrement) {
+            // the buffer may be recycled, and must then start out shared
+            owner = null;
+            deallocate();
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Called once {@link #refCnt()} is equals 0.
      */
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a binary trace of what the pooled arenas are asked to do, so that it can be fed to
+ * {@link AllocationTraceReplayer} to try out other configurations offline.
+ *
+ * The trace starts with {@link #MAGIC} and {@link #VERSION} (one int each), followed by fixed size records:
+ * <pre>
+ * type (1) | timestamp in nanos (8) | thread id (8) | buffer id (8) | size (4) | duration in nanos (4)
+ * </pre>
+ */
+final class AllocationTraceRecorder {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AllocationTraceRecorder.class);
+
+    static final int MAGIC = 0x4e545243;    // "NTRC"
+    static final int VERSION = 1;
+
+    static final int RECORD_SIZE = 33;
+
+    // record types
+    static final byte ALLOCATE = 0;
+    static final byte REALLOCATE = 1;
+    static final byte FREE = 2;
+    static final byte SWAP_IN = 3;
+
+    /** Or-ed into the record type for direct buffers */
+    static final byte DIRECT = 0x10;
+    static final byte TYPE_MASK = 0x0f;
+
+    private final DataOutputStream out;
+    private boolean failed;
+
+    AllocationTraceRecorder(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 << 10));
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+    }
+
+    /**
+     * @param startNanos the {@link System#nanoTime()} taken before the operation started
+     */
+    void record(byte type, boolean direct, long bufId, int size, long startNanos) {
+        final long duration = System.nanoTime() - startNanos;
+        final long threadId = Thread.currentThread().getId();
+
+        synchronized (this) {
+            if (failed) {
+                return;
+            }
+
+            try {
+                out.writeByte(direct ? type | DIRECT : type);
+                out.writeLong(startNanos);
+                out.writeLong(threadId);
+                out.writeLong(bufId);
+                out.writeInt(size);
+                out.writeInt((int) Math.min(duration, Integer.MAX_VALUE));
+            } catch (IOException iox) {
+                // tracing must never break allocation, so give up on the trace instead
+                failed = true;
+                logger.warn("failed to write allocation trace, tracing disabled.", iox);
+            }
+        }
+    }
+
+    synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    synchronized void close() throws IOException {
+        failed = true;
+        out.close();
+    }
+}
@@ -0,0 +1,698 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays a trace written by {@link AllocationTraceRecorder} against a simulation of {@link PoolArena},
+ * {@link PoolChunkList} and {@link PoolChunk}, and reports how a given configuration would have behaved.
+ *
+ * The simulation does not touch any memory and does not share the allocator's global state, so any number of
+ * configurations can be compared in one JVM. It follows the allocator's placement and swapping rules, except that
+ * runs are always taken from the left of the buddy tree. Only accesses to buffers that were swapped out when the
+ * trace was recorded are in the trace, so simulated swap-ins are a lower bound for configurations which swap more.
+ * Lock wait is estimated by queueing each operation on its arena for as long as it took when recorded. Recorded
+ * durations already include any time the operation waited for its arena lock while tracing, and the trace does not
+ * tell that wait apart, so the estimate counts recorded contention twice: it is an upper bound, and is meant for
+ * comparing configurations replayed from the same trace rather than as an absolute figure.
+ *
+ * Usage: {@code AllocationTraceReplayer <trace> [pageSize [maxOrder [numHeapArenas [numDirectArenas [maxMemoryMB]]]]]}
+ */
+public final class AllocationTraceReplayer {
+
+    private static final int SWAP_UPPER_LIMIT = 4 << 20;    // as in PoolChunk
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: " + AllocationTraceReplayer.class.getSimpleName() +
+                " <trace> [pageSize [maxOrder [numHeapArenas [numDirectArenas [maxMemoryMB]]]]]");
+            System.exit(1);
+        }
+
+        final int processors = Runtime.getRuntime().availableProcessors();
+        int pageSize = args.length > 1 ? Integer.parseInt(args[1]) : 8192;
+        int maxOrder = args.length > 2 ? Integer.parseInt(args[2]) : 11;
+        int numHeapArenas = args.length > 3 ? Integer.parseInt(args[3]) : processors;
+        int numDirectArenas = args.length > 4 ? Integer.parseInt(args[4]) : processors;
+        int maxMemoryMB = args.length > 5 ? Integer.parseInt(args[5]) : 1024;
+
+        InputStream in = new FileInputStream(args[0]);
+        try {
+            System.out.println(replay(in, pageSize, maxOrder, numHeapArenas, numDirectArenas, maxMemoryMB));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Replays the trace read from {@code in} against the given configuration.
+     */
+    public static Report replay(InputStream in, int pageSize, int maxOrder,
+                                int numHeapArenas, int numDirectArenas, int maxMemoryMB) throws IOException {
+        if (pageSize < 4096 || (pageSize & pageSize - 1) != 0) {
+            throw new IllegalArgumentException("pageSize: " + pageSize + " (expected: power of 2, 4096+)");
+        }
+        if (maxOrder < 0 || maxOrder > 14 || (long) pageSize << maxOrder > 1 << 30) {
+            throw new IllegalArgumentException("maxOrder: " + maxOrder + " (expected: 0-14, chunkSize <= 1GB)");
+        }
+        if (numHeapArenas < 0 || numDirectArenas < 0) {
+            throw new IllegalArgumentException(
+                "numHeapArenas: " + numHeapArenas + ", numDirectArenas: " + numDirectArenas + " (expected: 0+)");
+        }
+
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 << 10));
+        if (data.readInt() != AllocationTraceRecorder.MAGIC) {
+            throw new IOException("not an allocation trace");
+        }
+        int version = data.readInt();
+        if (version != AllocationTraceRecorder.VERSION) {
+            throw new IOException("unsupported allocation trace version: " + version);
+        }
+
+        Simulation simulation = new Simulation(
+            pageSize, maxOrder, numHeapArenas, numDirectArenas, (long) maxMemoryMB << 20);
+        for (;;) {
+            byte type;
+            try {
+                type = data.readByte();
+            } catch (EOFException e) {
+                break;
+            }
+            long timestamp = data.readLong();
+            long threadId = data.readLong();
+            long bufId = data.readLong();
+            int size = data.readInt();
+            int duration = data.readInt();
+
+            simulation.apply(type, timestamp, threadId, bufId, size, duration);
+        }
+
+        return simulation.report();
+    }
+
+    private AllocationTraceReplayer() {
+        // only static methods
+    }
+
+    /**
+     * What a replayed configuration did.
+     */
+    public static final class Report {
+        private final long events;
+        private final long unknownEvents;
+        private final long chunksAllocated;
+        private final long peakRssBytes;
+        private final long liveBytesAtPeak;
+        private final long swapOutCount;
+        private final long swapOutBytes;
+        private final long swapInCount;
+        private final long swapInBytes;
+        private final long lockWaitNanos;
+
+        Report(long events, long unknownEvents, long chunksAllocated, long peakRssBytes, long liveBytesAtPeak,
+               long swapOutCount, long swapOutBytes, long swapInCount, long swapInBytes, long lockWaitNanos) {
+            this.events = events;
+            this.unknownEvents = unknownEvents;
+            this.chunksAllocated = chunksAllocated;
+            this.peakRssBytes = peakRssBytes;
+            this.liveBytesAtPeak = liveBytesAtPeak;
+            this.swapOutCount = swapOutCount;
+            this.swapOutBytes = swapOutBytes;
+            this.swapInCount = swapInCount;
+            this.swapInBytes = swapInBytes;
+            this.lockWaitNanos = lockWaitNanos;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        /** Events for buffers allocated before the trace started, which are ignored. */
+        public long getUnknownEvents() {
+            return unknownEvents;
+        }
+
+        public long getChunksAllocated() {
+            return chunksAllocated;
+        }
+
+        /** Max memory held by chunks and huge allocations at any time. */
+        public long getPeakRssBytes() {
+            return peakRssBytes;
+        }
+
+        /** Share of {@link #getPeakRssBytes()} that was not requested by live buffers. */
+        public double getFragmentationAtPeak() {
+            return peakRssBytes == 0 ? 0 : 1 - (double) liveBytesAtPeak / peakRssBytes;
+        }
+
+        public long getSwapOutCount() {
+            return swapOutCount;
+        }
+
+        public long getSwapOutBytes() {
+            return swapOutBytes;
+        }
+
+        public long getSwapInCount() {
+            return swapInCount;
+        }
+
+        public long getSwapInBytes() {
+            return swapInBytes;
+        }
+
+        /**
+         * Estimated time spent waiting for arena locks, summed over all threads. This is an upper bound, as the
+         * recorded durations it is modelled from include the lock wait at the time of tracing.
+         */
+        public long getLockWaitNanos() {
+            return lockWaitNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("\nReplay Report");
+            sb.append("\n  Events [" + events + "], unknown [" + unknownEvents + "]");
+            sb.append("\n  ChunksAllocated [" + chunksAllocated + "]");
+            sb.append("\n  PeakRss [" + (peakRssBytes >>> 20) + "MB]");
+            sb.append("\n  FragmentationAtPeak [" + String.format("%.2f%%", getFragmentationAtPeak() * 100) + "]");
+            sb.append("\n  SwapOut [" + swapOutCount + " runs, " + (swapOutBytes >>> 20) + "MB]");
+            sb.append("\n  SwapIn [" + swapInCount + " runs, " + (swapInBytes >>> 20) + "MB]");
+            sb.append("\n  LockWait [" + lockWaitNanos / 1000000 + "ms]");
+            return sb.toString();
+        }
+    }
+
+    private static final class Simulation {
+        private final int pageSize;
+        private final int maxOrder;
+        private final int chunkSize;
+        private final long maxMemory;
+
+        private final SimArena[] heapArenas;
+        private final SimArena[] directArenas;
+
+        // thread id -> index handed out the way PooledByteBufAllocator.threadCache does
+        private final Map<Long, Integer> threadIndexes = new HashMap<Long, Integer>();
+        private final Map<Long, SimBuf> bufs = new HashMap<Long, SimBuf>();
+
+        private long events;
+        private long unknownEvents;
+        private long chunksAllocated;
+        private long rssBytes;
+        private long liveBytes;
+        private long peakRssBytes;
+        private long liveBytesAtPeak;
+        private long swapOutCount;
+        private long swapOutBytes;
+        private long swapInCount;
+        private long swapInBytes;
+        private long lockWaitNanos;
+
+        Simulation(int pageSize, int maxOrder, int numHeapArenas, int numDirectArenas, long maxMemory) {
+            this.pageSize = pageSize;
+            this.maxOrder = maxOrder;
+            chunkSize = pageSize << maxOrder;
+            this.maxMemory = maxMemory;
+
+            heapArenas = new SimArena[numHeapArenas];
+            for (int i = 0; i < heapArenas.length; i ++) {
+                heapArenas[i] = new SimArena();
+            }
+            directArenas = new SimArena[numDirectArenas];
+            for (int i = 0; i < directArenas.length; i ++) {
+                directArenas[i] = new SimArena();
+            }
+        }
+
+        void apply(byte type, long timestamp, long threadId, long bufId, int size, int duration) {
+            events ++;
+            final boolean direct = (type & AllocationTraceRecorder.DIRECT) != 0;
+
+            switch (type & AllocationTraceRecorder.TYPE_MASK) {
+            case AllocationTraceRecorder.ALLOCATE: {
+                SimArena arena = arena(threadId, direct);
+                SimBuf buf = new SimBuf(arena);
+                lock(arena, timestamp, duration);
+                allocate(buf, size);
+                bufs.put(bufId, buf);
+                break;
+            }
+            case AllocationTraceRecorder.REALLOCATE: {
+                SimBuf buf = bufs.get(bufId);
+                if (buf == null) {
+                    unknownEvents ++;
+                    break;
+                }
+                lock(buf.arena, timestamp, duration);
+                swapInIfNeeded(buf);
+                SimBuf old = buf.copy();
+                if (old.chunk != null && old.subpage == null) {
+                    // the old run must not be picked for swapping while the buffer moves
+                    old.chunk.owners.remove(old.node);
+                }
+                allocate(buf, size);
+                free(old);
+                break;
+            }
+            case AllocationTraceRecorder.FREE: {
+                SimBuf buf = bufs.remove(bufId);
+                if (buf == null) {
+                    unknownEvents ++;
+                    break;
+                }
+                lock(buf.arena, timestamp, duration);
+                if (!buf.swapped) {
+                    free(buf);
+                }
+                break;
+            }
+            case AllocationTraceRecorder.SWAP_IN: {
+                SimBuf buf = bufs.get(bufId);
+                if (buf == null) {
+                    unknownEvents ++;
+                    break;
+                }
+                lock(buf.arena, timestamp, duration);
+                swapInIfNeeded(buf);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown record type: " + type);
+            }
+        }
+
+        private SimArena arena(long threadId, boolean direct) {
+            Integer idx = threadIndexes.get(threadId);
+            if (idx == null) {
+                idx = threadIndexes.size();
+                threadIndexes.put(threadId, idx);
+            }
+
+            SimArena[] arenas = direct ? directArenas : heapArenas;
+            return arenas.length == 0 ? null : arenas[idx % arenas.length];
+        }
+
+        private void lock(SimArena arena, long timestamp, int duration) {
+            if (arena == null) {
+                return;
+            }
+
+            long start = Math.max(timestamp, arena.busyUntil);
+            lockWaitNanos += start - timestamp;
+            arena.busyUntil = start + duration;
+        }
+
+        private void swapInIfNeeded(SimBuf buf) {
+            if (buf.swapped) {
+                buf.swapped = false;
+                swapInCount ++;
+                swapInBytes += buf.normCapacity;
+                allocate(buf, buf.reqCapacity);
+            }
+        }
+
+        // PoolArena.allocate()
+        private void allocate(SimBuf buf, int reqCapacity) {
+            SimArena arena = buf.arena;
+            buf.reqCapacity = reqCapacity;
+            buf.normCapacity = normalizeCapacity(reqCapacity);
+            buf.chunk = null;
+            buf.subpage = null;
+            liveBytes += reqCapacity;
+
+            if (arena == null || buf.normCapacity > chunkSize) {
+                // unpooled or huge
+                rssBytes += reqCapacity;
+                updatePeak();
+                return;
+            }
+
+            if (buf.normCapacity < pageSize) {
+                List<SimSubpage> pool = arena.subpagePool(buf.normCapacity);
+                if (!pool.isEmpty()) {
+                    SimSubpage s = pool.get(0);
+                    allocateElement(s, buf);
+                    return;
+                }
+            }
+
+            allocateNormal(buf);
+        }
+
+        private void allocateElement(SimSubpage s, SimBuf buf) {
+            buf.chunk = s.chunk;
+            buf.node = s.node;
+            buf.subpage = s;
+            if (-- s.numAvail == 0) {
+                buf.arena.subpagePool(s.elemSize).remove(s);
+            }
+        }
+
+        // PoolArena.allocateNormal()
+        private void allocateNormal(SimBuf buf) {
+            if (allocateFromChunkLists(buf)) {
+                return;
+            }
+
+            if (rssBytes >= maxMemory && swapOut(buf)) {
+                return;
+            }
+
+            SimChunk c = new SimChunk(maxOrder, chunkSize);
+            chunksAllocated ++;
+            rssBytes += chunkSize;
+            allocateInChunk(c, buf);
+            buf.arena.add(SimArena.QINIT, c);
+            updatePeak();
+        }
+
+        private boolean allocateFromChunkLists(SimBuf buf) {
+            for (int q: SimArena.ALLOCATE_ORDER) {
+                List<SimChunk> list = buf.arena.lists[q];
+                for (int i = 0; i < list.size(); i ++) {
+                    SimChunk c = list.get(i);
+                    if (allocateInChunk(c, buf)) {
+                        if (c.usage() >= SimArena.MAX_USAGE[q]) {
+                            list.remove(i);
+                            buf.arena.add(SimArena.NEXT[q], c);
+                        }
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean allocateInChunk(SimChunk c, SimBuf buf) {
+            if (buf.normCapacity >= pageSize) {
+                int node = c.allocate(buf.normCapacity);
+                if (node < 0) {
+                    return false;
+                }
+                c.owners.put(node, buf);
+                buf.chunk = c;
+                buf.node = node;
+                return true;
+            }
+
+            int node = c.allocate(pageSize);
+            if (node < 0) {
+                return false;
+            }
+            SimSubpage s = new SimSubpage(c, node, buf.normCapacity, pageSize / buf.normCapacity);
+            buf.arena.subpagePool(buf.normCapacity).add(0, s);
+            allocateElement(s, buf);
+            return true;
+        }
+
+        // PoolArena.swapOut(), without priorities as they are not in the trace
+        private boolean swapOut(SimBuf buf) {
+            final int lowerLimit = Math.max(buf.normCapacity, pageSize << 1);
+            final int upperLimit = Math.min(chunkSize, SWAP_UPPER_LIMIT);
+            if (lowerLimit > upperLimit) {
+                return false;
+            }
+
+            for (int q: SimArena.SWAP_ORDER) {
+                for (SimChunk c: buf.arena.lists[q]) {
+                    SimBuf victim = c.findSwappable(lowerLimit, upperLimit);
+                    if (victim != null) {
+                        free(victim);
+                        victim.swapped = true;
+                        swapOutCount ++;
+                        swapOutBytes += victim.normCapacity;
+                        return allocateFromChunkLists(buf);
+                    }
+                }
+            }
+            return false;
+        }
+
+        // PoolArena.free() and PoolChunkList.free()
+        private void free(SimBuf buf) {
+            liveBytes -= buf.reqCapacity;
+
+            SimChunk c = buf.chunk;
+            if (c == null) {
+                rssBytes -= buf.reqCapacity;
+                return;
+            }
+
+            SimSubpage s = buf.subpage;
+            if (s != null) {
+                List<SimSubpage> pool = buf.arena.subpagePool(s.elemSize);
+                if (s.numAvail ++ == 0) {
+                    pool.add(0, s);
+                }
+                // as PoolSubpage.free(), keep the page if it is the only one of its size
+                if (s.numAvail != s.maxNumElems || pool.size() == 1) {
+                    return;
+                }
+                pool.remove(s);
+            } else {
+                c.owners.remove(buf.node);
+            }
+
+            c.free(buf.node);
+            int q = c.list;
+            if (c.usage() < SimArena.MIN_USAGE[q]) {
+                buf.arena.lists[q].remove(c);
+                if (SimArena.PREV[q] < 0) {
+                    rssBytes -= chunkSize;
+                } else {
+                    buf.arena.add(SimArena.PREV[q], c);
+                }
+            }
+        }
+
+        // PoolArena.normalizeCapacity()
+        private int normalizeCapacity(int reqCapacity) {
+            if (reqCapacity >= chunkSize) {
+                return reqCapacity;
+            }
+
+            if ((reqCapacity & 0xFFFFFE00) != 0) { // >= 512
+                int normalizedCapacity = Integer.highestOneBit(reqCapacity);
+                if (normalizedCapacity != reqCapacity) {
+                    normalizedCapacity <<= 1;
+                }
+                return normalizedCapacity;
+            }
+
+            if ((reqCapacity & 15) == 0) {
+                return reqCapacity;
+            }
+            return (reqCapacity & ~15) + 16;
+        }
+
+        private void updatePeak() {
+            if (rssBytes > peakRssBytes) {
+                peakRssBytes = rssBytes;
+                liveBytesAtPeak = liveBytes;
+            }
+        }
+
+        Report report() {
+            return new Report(events, unknownEvents, chunksAllocated, peakRssBytes, liveBytesAtPeak,
+                swapOutCount, swapOutBytes, swapInCount, swapInBytes, lockWaitNanos);
+        }
+    }
+
+    private static final class SimArena {
+        static final int QINIT = 0;
+        static final int Q000 = 1;
+        static final int Q025 = 2;
+        static final int Q050 = 3;
+        static final int Q075 = 4;
+        static final int Q100 = 5;
+
+        static final int[] MIN_USAGE = { Integer.MIN_VALUE, 1, 25, 50, 75, 100 };
+        static final int[] MAX_USAGE = { 25, 50, 75, 100, 100, Integer.MAX_VALUE };
+        static final int[] NEXT = { Q000, Q025, Q050, Q075, Q100, -1 };
+        static final int[] PREV = { QINIT, -1, Q000, Q025, Q050, Q075 };
+
+        static final int[] ALLOCATE_ORDER = { Q050, Q025, Q000, QINIT, Q075, Q100 };
+        static final int[] SWAP_ORDER = { Q100, Q075, Q050, Q025, Q000 };
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        final List<SimChunk>[] lists = new List[6];
+        private final Map<Integer, List<SimSubpage>> subpagePools = new HashMap<Integer, List<SimSubpage>>();
+        long busyUntil = Long.MIN_VALUE;
+
+        SimArena() {
+            for (int i = 0; i < lists.length; i ++) {
+                lists[i] = new ArrayList<SimChunk>();
+            }
+        }
+
+        // PoolChunkList.add()
+        void add(int q, SimChunk c) {
+            while (c.usage() >= MAX_USAGE[q]) {
+                q = NEXT[q];
+            }
+            c.list = q;
+            lists[q].add(0, c);
+        }
+
+        List<SimSubpage> subpagePool(int elemSize) {
+            List<SimSubpage> pool = subpagePools.get(elemSize);
+            if (pool == null) {
+                pool = new ArrayList<SimSubpage>();
+                subpagePools.put(elemSize, pool);
+            }
+            return pool;
+        }
+    }
+
+    private static final class SimChunk {
+        private final int chunkSize;
+        // longest free run below each node of the buddy tree, as PoolChunk.memoryMap
+        private final int[] longest;
+        private int freeBytes;
+        // index of the chunk list this chunk is in
+        int list;
+        // memoryMap index -> buffer, for runs (not subpages)
+        final Map<Integer, SimBuf> owners = new HashMap<Integer, SimBuf>();
+
+        SimChunk(int maxOrder, int chunkSize) {
+            this.chunkSize = chunkSize;
+            longest = new int[2 << maxOrder];
+            for (int i = 1; i < longest.length; i ++) {
+                longest[i] = runLength(i);
+            }
+            freeBytes = chunkSize;
+        }
+
+        private int runLength(int node) {
+            return chunkSize >>> 31 - Integer.numberOfLeadingZeros(node);
+        }
+
+        int allocate(int normCapacity) {
+            if (longest[1] < normCapacity) {
+                return -1;
+            }
+
+            int node = 1;
+            while (runLength(node) != normCapacity) {
+                node <<= 1;
+                if (longest[node] < normCapacity) {
+                    node ++;
+                }
+            }
+
+            longest[node] = 0;
+            freeBytes -= normCapacity;
+            update(node);
+            return node;
+        }
+
+        void free(int node) {
+            longest[node] = runLength(node);
+            freeBytes += longest[node];
+            update(node);
+        }
+
+        private void update(int node) {
+            while (node > 1) {
+                node >>>= 1;
+                int left = longest[node << 1];
+                int right = longest[(node << 1) + 1];
+                int half = runLength(node) >>> 1;
+                longest[node] = left == half && right == half ? half << 1 : Math.max(left, right);
+            }
+        }
+
+        // PoolChunk.findSwappable(): scan runs in memoryMap order
+        SimBuf findSwappable(int lowerLimit, int upperLimit) {
+            SimBuf found = null;
+            int foundNode = Integer.MAX_VALUE;
+            for (Map.Entry<Integer, SimBuf> e: owners.entrySet()) {
+                int length = runLength(e.getKey());
+                if (length >= lowerLimit && length <= upperLimit && e.getKey() < foundNode) {
+                    found = e.getValue();
+                    foundNode = e.getKey();
+                }
+            }
+            return found;
+        }
+
+        // PoolChunk.usage()
+        int usage() {
+            if (freeBytes == 0) {
+                return 100;
+            }
+
+            int freePercentage = (int) (freeBytes * 100L / chunkSize);
+            if (freePercentage == 0) {
+                return 99;
+            }
+            return 100 - freePercentage;
+        }
+    }
+
+    private static final class SimSubpage {
+        final SimChunk chunk;
+        final int node;
+        final int elemSize;
+        final int maxNumElems;
+        int numAvail;
+
+        SimSubpage(SimChunk chunk, int node, int elemSize, int maxNumElems) {
+            this.chunk = chunk;
+            this.node = node;
+            this.elemSize = elemSize;
+            this.maxNumElems = numAvail = maxNumElems;
+        }
+    }
+
+    private static final class SimBuf {
+        final SimArena arena;
+        SimChunk chunk;
+        SimSubpage subpage;
+        int node;
+        int reqCapacity;
+        int normCapacity;
+        boolean swapped;
+
+        SimBuf(SimArena arena) {
+            this.arena = arena;
+        }
+
+        SimBuf copy() {
+            SimBuf copy = new SimBuf(arena);
+            copy.chunk = chunk;
+            copy.subpage = subpage;
+            copy.node = node;
+            copy.reqCapacity = reqCapacity;
+            copy.normCapacity = normCapacity;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+/**
+ * Learns the sizes the buffers allocated at one place grow to, so that the next one can be allocated with enough
+ * capacity up front instead of growing by {@link ByteBuf#ensureWritable(int)}, where every step may reallocate and
+ * copy the whole buffer.
+ * <p>
+ * The sizes are kept in an exponentially weighted histogram of the capacities {@link ByteBuf#ensureWritable(int)}
+ * would grow to, from 64 bytes to 4 MiB, in which the weight of a size halves every {@value #HALF_LIFE} samples.
+ * {@link #nextCapacity()} is the smallest of these capacities that would have held {@value #COVERAGE_PERCENT}% of
+ * the weighted samples, so that a rare large buffer does not make every buffer large.
+ * <p>
+ * Use one predictor per call site, or obtain a shared one by {@link PooledByteBufAllocator#sizePredictor(Object)}.
+ * A predictor may be used by several threads at once. Recording a sample locks the predictor, as the histogram is
+ * rescaled in place from time to time; {@link #nextCapacity()} does not lock.
+ */
+public final class BufferSizePredictor {
+
+    static final int HALF_LIFE = 16;
+    static final int COVERAGE_PERCENT = 90;
+
+    private static final int MIN_CAPACITY_SHIFT = 6; // 64 bytes
+    private static final int MAX_CAPACITY_SHIFT = 22; // 4 MiB, where ensureWritable() stops doubling
+    private static final int BUCKETS = MAX_CAPACITY_SHIFT - MIN_CAPACITY_SHIFT + 1;
+
+    private static final double GROWTH = Math.pow(2, 1.0 / HALF_LIFE);
+    // the weights are scaled down before they lose precision
+    private static final double MAX_WEIGHT = 1e100;
+
+    private final int initialCapacity;
+    // instead of decaying all weights, every sample weighs GROWTH times more than the one before
+    private final double[] weights = new double[BUCKETS];
+    private double totalWeight;
+    private double sampleWeight = 1;
+    private volatile int nextCapacity;
+
+    /**
+     * Creates a predictor which predicts 256 bytes until it has seen a buffer.
+     */
+    public BufferSizePredictor() {
+        this(256);
+    }
+
+    /**
+     * Creates a predictor which predicts {@code initialCapacity} until it has seen a buffer.
+     */
+    public BufferSizePredictor(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity: " + initialCapacity + " (expected: >= 0)");
+        }
+        this.initialCapacity = initialCapacity;
+        nextCapacity = initialCapacity;
+    }
+
+    /**
+     * Returns the capacity to allocate the next buffer with.
+     */
+    public int nextCapacity() {
+        return nextCapacity;
+    }
+
+    /**
+     * Records the final size of a buffer, usually its {@link ByteBuf#writerIndex()} when it is released.
+     */
+    public synchronized void record(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size: " + size + " (expected: >= 0)");
+        }
+
+        double[] weights = this.weights;
+        double sampleWeight = this.sampleWeight * GROWTH;
+        double totalWeight = this.totalWeight + sampleWeight;
+        weights[bucket(size)] += sampleWeight;
+
+        if (sampleWeight > MAX_WEIGHT) {
+            for (int i = 0; i < BUCKETS; i ++) {
+                weights[i] /= sampleWeight;
+            }
+            totalWeight /= sampleWeight;
+            sampleWeight = 1;
+        }
+        this.sampleWeight = sampleWeight;
+        this.totalWeight = totalWeight;
+
+        double covered = totalWeight * COVERAGE_PERCENT / 100;
+        double sum = 0;
+        int i = 0;
+        while (i < BUCKETS - 1) {
+            sum += weights[i];
+            if (sum >= covered) {
+                break;
+            }
+            i ++;
+        }
+        nextCapacity = 1 << i + MIN_CAPACITY_SHIFT;
+    }
+
+    /**
+     * Forgets all recorded sizes.
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < BUCKETS; i ++) {
+            weights[i] = 0;
+        }
+        totalWeight = 0;
+        sampleWeight = 1;
+        nextCapacity = initialCapacity;
+    }
+
+    private static int bucket(int size) {
+        if (size <= 1 << MIN_CAPACITY_SHIFT) {
+            return 0;
+        }
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return Math.min(shift, MAX_CAPACITY_SHIFT) - MIN_CAPACITY_SHIFT;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(nextCapacity: " + nextCapacity + ')';
+    }
+}
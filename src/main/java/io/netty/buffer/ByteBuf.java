@@ -746,6 +746,86 @@ public abstract class ByteBuf implements ReferenceCounted, Comparable<ByteBuf> {
      */
     public abstract ByteBuf getBytes(int index, byte[] dst, int dstIndex, int length);
 
+    /**
+     * Transfers {@code length} int values of this buffer, 4 bytes each in the
+     * {@linkplain #order() byte order} of this buffer, to the specified destination starting at the
+     * specified absolute {@code index}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex}
+     * of this buffer.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of values to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code index + length * 4} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code dstIndex + length} is greater than
+     *            {@code dst.length}
+     */
+    public abstract ByteBuf getInts(int index, int[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} long values of this buffer, 8 bytes each in the
+     * {@linkplain #order() byte order} of this buffer, to the specified destination starting at the
+     * specified absolute {@code index}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex}
+     * of this buffer.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of values to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code index + length * 8} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code dstIndex + length} is greater than
+     *            {@code dst.length}
+     */
+    public abstract ByteBuf getLongs(int index, long[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} float values of this buffer, 4 bytes each in the
+     * {@linkplain #order() byte order} of this buffer, to the specified destination starting at the
+     * specified absolute {@code index}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex}
+     * of this buffer.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of values to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code index + length * 4} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code dstIndex + length} is greater than
+     *            {@code dst.length}
+     */
+    public abstract ByteBuf getFloats(int index, float[] dst, int dstIndex, int length);
+
+    /**
+     * Transfers {@code length} double values of this buffer, 8 bytes each in the
+     * {@linkplain #order() byte order} of this buffer, to the specified destination starting at the
+     * specified absolute {@code index}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex}
+     * of this buffer.
+     *
+     * @param dstIndex the first index of the destination
+     * @param length   the number of values to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code dstIndex} is less than {@code 0},
+     *         if {@code index + length * 8} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code dstIndex + length} is greater than
+     *            {@code dst.length}
+     */
+    public abstract ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length);
+
     /**
      * Transfers this buffer's data to the specified destination starting at
      * the specified absolute {@code index} until the destination's position
@@ -992,6 +1072,78 @@ public abstract class ByteBuf implements ReferenceCounted, Comparable<ByteBuf> {
      */
     public abstract ByteBuf setBytes(int index, byte[] src, int srcIndex, int length);
 
+    /**
+     * Transfers {@code length} int values of the specified source array to this buffer, 4 bytes each in
+     * the {@linkplain #order() byte order} of this buffer, starting at the specified absolute {@code index}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of values to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code index + length * 4} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf setInts(int index, int[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} long values of the specified source array to this buffer, 8 bytes each in
+     * the {@linkplain #order() byte order} of this buffer, starting at the specified absolute {@code index}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of values to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code index + length * 8} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf setLongs(int index, long[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} float values of the specified source array to this buffer, 4 bytes each in
+     * the {@linkplain #order() byte order} of this buffer, starting at the specified absolute {@code index}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of values to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code index + length * 4} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf setFloats(int index, float[] src, int srcIndex, int length);
+
+    /**
+     * Transfers {@code length} double values of the specified source array to this buffer, 8 bytes each in
+     * the {@linkplain #order() byte order} of this buffer, starting at the specified absolute {@code index}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     *
+     * @param srcIndex the first index of the source
+     * @param length   the number of values to transfer
+     *
+     * @throws IndexOutOfBoundsException
+     *         if the specified {@code index} is less than {@code 0},
+     *         if the specified {@code srcIndex} is less than {@code 0},
+     *         if {@code index + length * 8} is greater than
+     *            {@code this.capacity}, or
+     *         if {@code srcIndex + length} is greater than {@code src.length}
+     */
+    public abstract ByteBuf setDoubles(int index, double[] src, int srcIndex, int length);
+
     /**
      * Transfers the specified source buffer's data to this buffer starting at
      * the specified absolute {@code index} until the source buffer's position
@@ -1205,6 +1357,21 @@ public abstract class ByteBuf implements ReferenceCounted, Comparable<ByteBuf> {
      */
     public abstract ByteBuf readSlice(int length);
 
+    /**
+     * Returns a new retained slice of this buffer's sub-region starting at the current {@code readerIndex} and
+     * increases the {@code readerIndex} by the size of the new slice (= {@code length}). This method is
+     * identical to {@code readSlice(length).retain()}, but the slice of a pooled buffer is recycled when it is
+     * released, so that it costs no allocation.
+     *
+     * @param length the size of the new slice
+     *
+     * @return the newly created slice, which must be released
+     *
+     * @throws IndexOutOfBoundsException
+     *         if {@code length} is greater than {@code this.readableBytes}
+     */
+    public abstract ByteBuf readRetainedSlice(int length);
+
     /**
      * Transfers this buffer's data to the specified destination starting at
      * the current {@code readerIndex} until the destination becomes
@@ -1677,6 +1844,24 @@ public abstract class ByteBuf implements ReferenceCounted, Comparable<ByteBuf> {
      */
     public abstract ByteBuf slice(int index, int length);
 
+    /**
+     * Returns a retained slice of this buffer's readable bytes. This method is identical to
+     * {@code buf.retainedSlice(buf.readerIndex(), buf.readableBytes())}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     */
+    public abstract ByteBuf retainedSlice();
+
+    /**
+     * Returns a retained slice of this buffer's sub-region. This method is identical to
+     * {@code slice(index, length).retain()}, except that the returned buffer counts its own references: it holds
+     * one reference to this buffer, which is released when the slice is released. The slice of a pooled buffer
+     * is then recycled, so that slicing it costs no allocation, and must not be used any more.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     */
+    public abstract ByteBuf retainedSlice(int index, int length);
+
     /**
      * Returns a buffer which shares the whole region of this buffer.
      * Modifying the content of the returned buffer or this buffer affects
@@ -1687,6 +1872,14 @@ public abstract class ByteBuf implements ReferenceCounted, Comparable<ByteBuf> {
      */
     public abstract ByteBuf duplicate();
 
+    /**
+     * Returns a retained buffer which shares the whole region of this buffer. This method is identical to
+     * {@code duplicate().retain()}, with the differences described in {@link #retainedSlice(int, int)}.
+     * This method does not modify {@code readerIndex} or {@code writerIndex} of
+     * this buffer.
+     */
+    public abstract ByteBuf retainedDuplicate();
+
     /**
      * Returns the maximum number of NIO {@link ByteBuffer}s that consist this buffer.  Note that {@link #nioBuffers()}
      * or {@link #nioBuffers(int, int)} might return a less number of {@link ByteBuffer}s.
@@ -1882,4 +2075,19 @@ public abstract class ByteBuf implements ReferenceCounted, Comparable<ByteBuf> {
 
     @Override
     public abstract ByteBuf retain();
+
+    /**
+     * Keeps the content of this buffer in memory until {@link #unpin()} has been called as many times as
+     * this method.  A pinned buffer is never chosen to be swapped out, and a buffer that has already been
+     * swapped out is swapped in before this method returns.  Buffers that are never swapped out ignore this
+     * call.
+     */
+    public abstract ByteBuf pin();
+
+    /**
+     * Undoes one call of {@link #pin()}.
+     *
+     * @throws IllegalStateException if this buffer is not pinned
+     */
+    public abstract ByteBuf unpin();
 }
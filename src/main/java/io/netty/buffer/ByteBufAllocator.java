@@ -15,6 +15,8 @@
  */
 package io.netty.buffer;
 
+import java.nio.ByteOrder;
+
 /**
  * Implementations are responsible to allocate buffers. Implementations of this interface are expected to be
  * thread-safe.
@@ -71,6 +73,18 @@ public interface ByteBufAllocator {
      */
     ByteBuf heapBuffer(int initialCapacity, int maxCapacity);
 
+    /**
+     * Allocate a heap {@link ByteBuf} with the given initial capacity and byte order. Unlike
+     * {@link ByteBuf#order(ByteOrder)} on a new buffer, the implementation may return a buffer which accesses its
+     * memory in the given order without a wrapper.
+     */
+    ByteBuf heapBuffer(int initialCapacity, ByteOrder order);
+
+    /**
+     * Allocate a heap {@link ByteBuf} with the given initial capacity, maximal capacity and byte order.
+     */
+    ByteBuf heapBuffer(int initialCapacity, int maxCapacity, ByteOrder order);
+
     /**
      * Allocate a direct {@link ByteBuf}.
      */
@@ -87,6 +101,18 @@ public interface ByteBufAllocator {
      */
     ByteBuf directBuffer(int initialCapacity, int maxCapacity);
 
+    /**
+     * Allocate a direct {@link ByteBuf} with the given initial capacity and byte order. Unlike
+     * {@link ByteBuf#order(ByteOrder)} on a new buffer, the implementation may return a buffer which accesses its
+     * memory in the given order without a wrapper.
+     */
+    ByteBuf directBuffer(int initialCapacity, ByteOrder order);
+
+    /**
+     * Allocate a direct {@link ByteBuf} with the given initial capacity, maximal capacity and byte order.
+     */
+    ByteBuf directBuffer(int initialCapacity, int maxCapacity, ByteOrder order);
+
     /**
      * Allocate a {@link CompositeByteBuf}.
      * If it is a direct or heap buffer depends on the actual implementation.
@@ -181,34 +181,40 @@ public class ByteBufInputStream extends InputStream implements DataInput {
         return buffer.readInt();
     }
 
-    private final StringBuilder lineBuf = new StringBuilder();
-
     @Override
     public String readLine() throws IOException {
-        lineBuf.setLength(0);
-
-        loop: while (true) {
-            if (!buffer.isReadable()) {
-                return (lineBuf.length() > 0) ? lineBuf.toString() : null;
-            }
-
-            int c = buffer.readUnsignedByte();
-            switch (c) {
-                case '\n':
-                    break loop;
+        if (!buffer.isReadable()) {
+            return null;
+        }
 
-                case '\r':
-                    if (buffer.isReadable() && buffer.getUnsignedByte(buffer.readerIndex()) == '\n') {
-                        buffer.skipBytes(1);
-                    }
-                    break loop;
+        // like read(), reads up to the writerIndex; the line ends at the first CR or LF, found in a single pass
+        int readerIndex = buffer.readerIndex();
+        int writerIndex = buffer.writerIndex();
+        int eol = buffer.forEachByte(readerIndex, writerIndex - readerIndex, ByteBufProcessor.FIND_CRLF);
 
-                default:
-                    lineBuf.append((char) c);
+        int lineLength = (eol >= 0 ? eol : writerIndex) - readerIndex;
+        String line = null;
+        if (buffer instanceof AbstractByteBuf) {
+            line = ByteBufUtil.decodeLatin1((AbstractByteBuf) buffer, readerIndex, lineLength);
+        }
+        if (line == null) {
+            byte[] bytes = new byte[lineLength];
+            buffer.getBytes(readerIndex, bytes);
+            char[] chars = new char[lineLength];
+            for (int i = 0; i < lineLength; i ++) {
+                chars[i] = (char) (bytes[i] & 0xFF);
             }
+            line = new String(chars);
         }
 
-        return lineBuf.toString();
+        if (eol < 0) {
+            buffer.readerIndex(writerIndex);
+        } else if (eol + 1 < writerIndex && buffer.getByte(eol) == '\r' && buffer.getByte(eol + 1) == '\n') {
+            buffer.readerIndex(eol + 2);
+        } else {
+            buffer.readerIndex(eol + 1);
+        }
+        return line;
     }
 
     @Override
@@ -225,6 +231,18 @@ public class ByteBufInputStream extends InputStream implements DataInput {
 
     @Override
     public String readUTF() throws IOException {
+        if (buffer instanceof AbstractByteBuf) {
+            checkAvailable(2);
+            int readerIndex = buffer.readerIndex();
+            int utfLength = buffer.getUnsignedShort(readerIndex);
+            checkAvailable(2 + utfLength);
+
+            String s = ByteBufUtil.decodeModifiedUtf8((AbstractByteBuf) buffer, readerIndex + 2, utfLength);
+            if (s != null) {
+                buffer.skipBytes(2 + utfLength);
+                return s;
+            }
+        }
         return DataInputStream.readUTF(this);
     }
 
@@ -16,7 +16,9 @@
 package io.netty.buffer;
 
 import io.netty.util.CharsetUtil;
+import io.netty.util.internal.PlatformDependent;
 
+import java.io.UTFDataFormatException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.CharBuffer;
@@ -33,6 +35,15 @@ public final class ByteBufUtil {
 
     private static final char[] HEXDUMP_TABLE = new char[256 * 4];
 
+    // whether a word can be loaded at any index, so that searches may look at 8 bytes at once
+    private static final boolean WORD_ACCESS = PlatformDependent.isUnaligned();
+    private static final boolean BIG_ENDIAN_NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+    private static final long BYTE_ARRAY_BASE_OFFSET = PlatformDependent.byteArrayBaseOffset();
+    static final long INT_ARRAY_BASE_OFFSET = PlatformDependent.arrayBaseOffset(int[].class);
+    static final long LONG_ARRAY_BASE_OFFSET = PlatformDependent.arrayBaseOffset(long[].class);
+    static final long FLOAT_ARRAY_BASE_OFFSET = PlatformDependent.arrayBaseOffset(float[].class);
+    static final long DOUBLE_ARRAY_BASE_OFFSET = PlatformDependent.arrayBaseOffset(double[].class);
+
     static {
         final char[] DIGITS = "0123456789abcdef".toCharArray();
         for (int i = 0; i < 256; i ++) {
@@ -81,6 +92,11 @@ public final class ByteBufUtil {
      */
     public static int hashCode(ByteBuf buffer) {
         final int aLen = buffer.readableBytes();
+        if (aLen >= 8 && hasRawAccess(buffer)) {
+            Object base = rawBase(buffer);
+            return hashCode(base, rawOffset(buffer, base, buffer.readerIndex()), aLen);
+        }
+
         final int intCount = aLen >>> 2;
         final int byteCount = aLen & 3;
 
@@ -120,6 +136,13 @@ public final class ByteBufUtil {
             return false;
         }
 
+        if (aLen >= 8 && hasRawAccess(bufferA) && hasRawAccess(bufferB)) {
+            Object aBase = rawBase(bufferA);
+            Object bBase = rawBase(bufferB);
+            return equals(aBase, rawOffset(bufferA, aBase, bufferA.readerIndex()),
+                          bBase, rawOffset(bufferB, bBase, bufferB.readerIndex()), aLen);
+        }
+
         final int longCount = aLen >>> 3;
         final int byteCount = aLen & 7;
 
@@ -163,6 +186,16 @@ public final class ByteBufUtil {
         final int aLen = bufferA.readableBytes();
         final int bLen = bufferB.readableBytes();
         final int minLength = Math.min(aLen, bLen);
+        // only big endian buffers compare in the order of their bytes, see below
+        if (minLength >= 8 && bufferA.order() == ByteOrder.BIG_ENDIAN && bufferB.order() == ByteOrder.BIG_ENDIAN &&
+            hasRawAccess(bufferA) && hasRawAccess(bufferB)) {
+            Object aBase = rawBase(bufferA);
+            Object bBase = rawBase(bufferB);
+            int res = compare(aBase, rawOffset(bufferA, aBase, bufferA.readerIndex()),
+                              bBase, rawOffset(bufferB, bBase, bufferB.readerIndex()), minLength);
+            return res != 0 ? res : aLen - bLen;
+        }
+
         final int uintCount = minLength >>> 2;
         final int byteCount = minLength & 3;
 
@@ -213,6 +246,412 @@ public final class ByteBufUtil {
         return aLen - bLen;
     }
 
+    /**
+     * Encodes {@code seq} in UTF-8 and writes it at the {@code writerIndex} of {@code buf}, increasing the
+     * {@code writerIndex} by the number of bytes written. Heap and direct buffers are written in place, without
+     * a {@link CharsetEncoder}. Like {@link String#getBytes(Charset)}, a lone surrogate is written as {@code '?'}.
+     *
+     * @return the number of bytes written
+     */
+    public static int writeUtf8(ByteBuf buf, CharSequence seq) {
+        final int length = seq.length();
+        // the exact size is only computed if the buffer may be too small for the worst case
+        if ((long) length * 3 > buf.writableBytes()) {
+            buf.ensureWritable(utf8Length(seq, length));
+        }
+
+        if (!hasRawAccess(buf)) {
+            ByteBuffer encoded = encodeString(CharBuffer.wrap(seq), CharsetUtil.UTF_8);
+            int written = encoded.remaining();
+            buf.writeBytes(encoded);
+            return written;
+        }
+
+        final int writerIndex = buf.writerIndex();
+        final Object base = rawBase(buf);
+        final long offset = rawOffset(buf, base, writerIndex);
+        long p = offset;
+        int i = 0;
+        // most strings are ASCII only
+        for (; i < length; i ++) {
+            char c = seq.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            PlatformDependent.putByte(base, p ++, (byte) c);
+        }
+        for (; i < length; i ++) {
+            char c = seq.charAt(i);
+            if (c < 0x80) {
+                PlatformDependent.putByte(base, p ++, (byte) c);
+            } else if (c < 0x800) {
+                PlatformDependent.putByte(base, p ++, (byte) (0xC0 | c >> 6));
+                PlatformDependent.putByte(base, p ++, (byte) (0x80 | c & 0x3F));
+            } else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+                PlatformDependent.putByte(base, p ++, (byte) (0xE0 | c >> 12));
+                PlatformDependent.putByte(base, p ++, (byte) (0x80 | c >> 6 & 0x3F));
+                PlatformDependent.putByte(base, p ++, (byte) (0x80 | c & 0x3F));
+            } else if (c <= Character.MAX_HIGH_SURROGATE && i + 1 < length &&
+                       Character.isLowSurrogate(seq.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, seq.charAt(++ i));
+                PlatformDependent.putByte(base, p ++, (byte) (0xF0 | codePoint >> 18));
+                PlatformDependent.putByte(base, p ++, (byte) (0x80 | codePoint >> 12 & 0x3F));
+                PlatformDependent.putByte(base, p ++, (byte) (0x80 | codePoint >> 6 & 0x3F));
+                PlatformDependent.putByte(base, p ++, (byte) (0x80 | codePoint & 0x3F));
+            } else {
+                PlatformDependent.putByte(base, p ++, (byte) '?');
+            }
+        }
+
+        final int written = (int) (p - offset);
+        buf.writerIndex(writerIndex + written);
+        return written;
+    }
+
+    // the number of bytes writeUtf8() writes for seq
+    private static int utf8Length(CharSequence seq, int length) {
+        int bytes = length;
+        for (int i = 0; i < length; i ++) {
+            char c = seq.charAt(i);
+            if (c >= 0x800) {
+                if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+                    bytes += 2;
+                } else if (c <= Character.MAX_HIGH_SURROGATE && i + 1 < length &&
+                           Character.isLowSurrogate(seq.charAt(i + 1))) {
+                    // 4 bytes for 2 chars
+                    bytes += 2;
+                    i ++;
+                }
+            } else if (c >= 0x80) {
+                bytes ++;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes {@code seq} as US-ASCII at the {@code writerIndex} of {@code buf}, increasing the {@code writerIndex}
+     * by {@code seq.length()}. A char which is not ASCII is written as {@code '?'}.
+     *
+     * @return the number of bytes written
+     */
+    public static int writeAscii(ByteBuf buf, CharSequence seq) {
+        final int length = seq.length();
+        buf.ensureWritable(length);
+
+        final int writerIndex = buf.writerIndex();
+        if (hasRawAccess(buf)) {
+            final Object base = rawBase(buf);
+            final long offset = rawOffset(buf, base, writerIndex);
+            for (int i = 0; i < length; i ++) {
+                char c = seq.charAt(i);
+                PlatformDependent.putByte(base, offset + i, c < 0x80 ? (byte) c : (byte) '?');
+            }
+        } else {
+            for (int i = 0; i < length; i ++) {
+                char c = seq.charAt(i);
+                buf.setByte(writerIndex + i, c < 0x80 ? c : '?');
+            }
+        }
+
+        buf.writerIndex(writerIndex + length);
+        return length;
+    }
+
+    /**
+     * Decodes {@code length} bytes from the {@code readerIndex} of {@code buf} as UTF-8 and increases the
+     * {@code readerIndex} by {@code length}. The same as {@code toString(readerIndex, length, UTF_8)}, which
+     * decodes heap and direct buffers without a {@link CharsetDecoder}.
+     */
+    public static String readUtf8(ByteBuf buf, int length) {
+        String s = buf.toString(buf.readerIndex(), length, CharsetUtil.UTF_8);
+        buf.skipBytes(length);
+        return s;
+    }
+
+    /**
+     * Same as {@link #readUtf8(ByteBuf, int)} for US-ASCII. A byte which is not ASCII is decoded as
+     * U+FFFD.
+     */
+    public static String readAscii(ByteBuf buf, int length) {
+        String s = buf.toString(buf.readerIndex(), length, CharsetUtil.US_ASCII);
+        buf.skipBytes(length);
+        return s;
+    }
+
+    /**
+     * Decodes {@code length} bytes at {@code index} of {@code buf} as UTF-8 straight from its memory.
+     *
+     * @return {@code null} if the memory of {@code buf} can not be accessed directly or the bytes are not
+     *         well-formed UTF-8, leaving the replacement of malformed input to the {@link CharsetDecoder}
+     */
+    static String decodeUtf8(AbstractByteBuf buf, int index, int length) {
+        if (!hasRawAccess(buf)) {
+            return null;
+        }
+        buf.checkIndex(index, length);
+
+        final Object base = rawBase(buf);
+        final long offset = rawOffset(buf, base, index);
+        final long end = offset + length;
+        // never more chars than bytes
+        final char[] chars = new char[length];
+        int n = 0;
+        long p = offset;
+        for (; p < end; p ++) {
+            byte b = PlatformDependent.getByte(base, p);
+            if (b < 0) {
+                break;
+            }
+            chars[n ++] = (char) b;
+        }
+        while (p < end) {
+            int b0 = PlatformDependent.getByte(base, p);
+            if (b0 >= 0) {
+                chars[n ++] = (char) b0;
+                p ++;
+            } else if ((b0 & 0xE0) == 0xC0) {
+                if (end - p < 2) {
+                    return null;
+                }
+                int b1 = PlatformDependent.getByte(base, p + 1);
+                int c = (b0 & 0x1F) << 6 | b1 & 0x3F;
+                if ((b1 & 0xC0) != 0x80 || c < 0x80) {
+                    return null;
+                }
+                chars[n ++] = (char) c;
+                p += 2;
+            } else if ((b0 & 0xF0) == 0xE0) {
+                if (end - p < 3) {
+                    return null;
+                }
+                int b1 = PlatformDependent.getByte(base, p + 1);
+                int b2 = PlatformDependent.getByte(base, p + 2);
+                int c = (b0 & 0x0F) << 12 | (b1 & 0x3F) << 6 | b2 & 0x3F;
+                if ((b1 & 0xC0) != 0x80 || (b2 & 0xC0) != 0x80 || c < 0x800 ||
+                    c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                    return null;
+                }
+                chars[n ++] = (char) c;
+                p += 3;
+            } else if ((b0 & 0xF8) == 0xF0) {
+                if (end - p < 4) {
+                    return null;
+                }
+                int b1 = PlatformDependent.getByte(base, p + 1);
+                int b2 = PlatformDependent.getByte(base, p + 2);
+                int b3 = PlatformDependent.getByte(base, p + 3);
+                int codePoint = (b0 & 0x07) << 18 | (b1 & 0x3F) << 12 | (b2 & 0x3F) << 6 | b3 & 0x3F;
+                if ((b1 & 0xC0) != 0x80 || (b2 & 0xC0) != 0x80 || (b3 & 0xC0) != 0x80 ||
+                    codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT || codePoint > Character.MAX_CODE_POINT) {
+                    return null;
+                }
+                n += Character.toChars(codePoint, chars, n);
+                p += 4;
+            } else {
+                return null;
+            }
+        }
+
+        return new String(chars, 0, n);
+    }
+
+    /**
+     * Same as {@link #decodeUtf8(AbstractByteBuf, int, int)} for US-ASCII, which is never malformed.
+     */
+    static String decodeAscii(AbstractByteBuf buf, int index, int length) {
+        if (!hasRawAccess(buf)) {
+            return null;
+        }
+        buf.checkIndex(index, length);
+
+        final Object base = rawBase(buf);
+        final long offset = rawOffset(buf, base, index);
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i ++) {
+            byte b = PlatformDependent.getByte(base, offset + i);
+            chars[i] = b >= 0 ? (char) b : '\uFFFD';
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Same as {@link #decodeAscii(AbstractByteBuf, int, int)} for ISO-8859-1, in which every byte is the char of the
+     * same value.
+     */
+    static String decodeLatin1(AbstractByteBuf buf, int index, int length) {
+        if (!hasRawAccess(buf)) {
+            return null;
+        }
+        buf.checkIndex(index, length);
+
+        final Object base = rawBase(buf);
+        final long offset = rawOffset(buf, base, index);
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i ++) {
+            chars[i] = (char) (PlatformDependent.getByte(base, offset + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Decodes {@code length} bytes at {@code index} of {@code buf} as the modified UTF-8 of
+     * {@link java.io.DataInput#readUTF()} straight from its memory. Unlike UTF-8, it encodes the char {@code 0} in two
+     * bytes and a supplementary character as two surrogates of three bytes each.
+     *
+     * @return {@code null} if the memory of {@code buf} can not be accessed directly
+     * @throws UTFDataFormatException if the bytes are not valid modified UTF-8, with the same message as
+     *         {@link java.io.DataInputStream#readUTF(java.io.DataInput)}
+     */
+    static String decodeModifiedUtf8(AbstractByteBuf buf, int index, int length) throws UTFDataFormatException {
+        if (!hasRawAccess(buf)) {
+            return null;
+        }
+        buf.checkIndex(index, length);
+
+        final Object base = rawBase(buf);
+        final long offset = rawOffset(buf, base, index);
+        final char[] chars = new char[length];
+        int n = 0;
+        int i = 0;
+        for (; i < length; i ++) {
+            byte b = PlatformDependent.getByte(base, offset + i);
+            if (b < 0) {
+                break;
+            }
+            chars[n ++] = (char) b;
+        }
+        while (i < length) {
+            int b0 = PlatformDependent.getByte(base, offset + i) & 0xFF;
+            switch (b0 >> 4) {
+                case 0: case 1: case 2: case 3: case 4: case 5: case 6: case 7:
+                    chars[n ++] = (char) b0;
+                    i ++;
+                    break;
+                case 12: case 13: {
+                    if (length - i < 2) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+                    int b1 = PlatformDependent.getByte(base, offset + i + 1);
+                    if ((b1 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + (i + 2));
+                    }
+                    chars[n ++] = (char) ((b0 & 0x1F) << 6 | b1 & 0x3F);
+                    i += 2;
+                    break;
+                }
+                case 14: {
+                    if (length - i < 3) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+                    int b1 = PlatformDependent.getByte(base, offset + i + 1);
+                    int b2 = PlatformDependent.getByte(base, offset + i + 2);
+                    if ((b1 & 0xC0) != 0x80 || (b2 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + (i + 2));
+                    }
+                    chars[n ++] = (char) ((b0 & 0x0F) << 12 | (b1 & 0x3F) << 6 | b2 & 0x3F);
+                    i += 3;
+                    break;
+                }
+                default:
+                    throw new UTFDataFormatException("malformed input around byte " + i);
+            }
+        }
+        return new String(chars, 0, n);
+    }
+
+    /**
+     * Returns {@code true} if the memory of {@code buffer} can be accessed with
+     * {@link PlatformDependent#getLong(Object, long)} and the like. A pooled buffer is swapped in by the following
+     * {@link #rawBase(ByteBuf)} and {@link #rawOffset(ByteBuf, Object, int)}, so that it is not checked for every
+     * word.
+     */
+    private static boolean hasRawAccess(ByteBuf buffer) {
+        if (!WORD_ACCESS || !(buffer instanceof AbstractByteBuf) || !(buffer.hasArray() || buffer.hasMemoryAddress())) {
+            return false;
+        }
+        // released memory must not be read
+        ((AbstractByteBuf) buffer).ensureAccessible();
+        return true;
+    }
+
+    private static Object rawBase(ByteBuf buffer) {
+        return buffer.hasArray() ? buffer.array() : null;
+    }
+
+    private static long rawOffset(ByteBuf buffer, Object base, int index) {
+        if (base != null) {
+            return BYTE_ARRAY_BASE_OFFSET + buffer.arrayOffset() + index;
+        }
+        return buffer.memoryAddress() + index;
+    }
+
+    private static int hashCode(Object base, long offset, int length) {
+        final long end = offset + (length & ~7);
+        int hashCode = 1;
+        for (; offset < end; offset += 8) {
+            long v = PlatformDependent.getLong(base, offset);
+            if (!BIG_ENDIAN_NATIVE_ORDER) {
+                v = Long.reverseBytes(v);
+            }
+            // the same as two steps over the big endian ints of the word
+            hashCode = 31 * 31 * hashCode + 31 * (int) (v >>> 32) + (int) v;
+        }
+        if ((length & 4) != 0) {
+            int v = PlatformDependent.getInt(base, offset);
+            hashCode = 31 * hashCode + (BIG_ENDIAN_NATIVE_ORDER ? v : Integer.reverseBytes(v));
+            offset += 4;
+        }
+        for (int i = length & 3; i > 0; i --) {
+            hashCode = 31 * hashCode + PlatformDependent.getByte(base, offset ++);
+        }
+
+        if (hashCode == 0) {
+            hashCode = 1;
+        }
+        return hashCode;
+    }
+
+    private static boolean equals(Object aBase, long aOffset, Object bBase, long bOffset, int length) {
+        final long aEnd = aOffset + (length & ~7);
+        for (; aOffset < aEnd; aOffset += 8, bOffset += 8) {
+            if (PlatformDependent.getLong(aBase, aOffset) != PlatformDependent.getLong(bBase, bOffset)) {
+                return false;
+            }
+        }
+        for (int i = length & 7; i > 0; i --) {
+            if (PlatformDependent.getByte(aBase, aOffset ++) != PlatformDependent.getByte(bBase, bOffset ++)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // compares the first length bytes as unsigned values, returning 1, -1 or 0
+    private static int compare(Object aBase, long aOffset, Object bBase, long bOffset, int length) {
+        final long aEnd = aOffset + (length & ~7);
+        for (; aOffset < aEnd; aOffset += 8, bOffset += 8) {
+            long va = PlatformDependent.getLong(aBase, aOffset);
+            long vb = PlatformDependent.getLong(bBase, bOffset);
+            if (va != vb) {
+                if (!BIG_ENDIAN_NATIVE_ORDER) {
+                    // the first byte in memory must be the most significant one
+                    va = Long.reverseBytes(va);
+                    vb = Long.reverseBytes(vb);
+                }
+                return (va ^ Long.MIN_VALUE) < (vb ^ Long.MIN_VALUE) ? -1 : 1;
+            }
+        }
+        for (int i = length & 7; i > 0; i --) {
+            int va = PlatformDependent.getByte(aBase, aOffset ++) & 0xFF;
+            int vb = PlatformDependent.getByte(bBase, bOffset ++) & 0xFF;
+            if (va != vb) {
+                return va < vb ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
     /**
      * The default implementation of {@link ByteBuf#indexOf(int, int, byte)}.
      * This method is useful when implementing a new buffer type.
@@ -263,6 +702,12 @@ public final class ByteBufUtil {
             return -1;
         }
 
+        if (buffer instanceof AbstractByteBuf && toIndex <= buffer.capacity()) {
+            AbstractByteBuf buf = (AbstractByteBuf) buffer;
+            buf.checkIndex(fromIndex, toIndex - fromIndex);
+            return buf.firstIndexOf0(fromIndex, toIndex, value);
+        }
+
         for (int i = fromIndex; i < toIndex; i ++) {
             if (buffer.getByte(i) == value) {
                 return i;
@@ -278,6 +723,15 @@ public final class ByteBufUtil {
             return -1;
         }
 
+        if (buffer instanceof AbstractByteBuf && toIndex >= 0) {
+            if (toIndex >= fromIndex) {
+                return -1;
+            }
+            AbstractByteBuf buf = (AbstractByteBuf) buffer;
+            buf.checkIndex(toIndex, fromIndex - toIndex);
+            return buf.lastIndexOf0(toIndex, fromIndex, value);
+        }
+
         for (int i = fromIndex - 1; i >= toIndex; i --) {
             if (buffer.getByte(i) == value) {
                 return i;
@@ -287,6 +741,266 @@ public final class ByteBufUtil {
         return -1;
     }
 
+    /**
+     * Returns the index of the first byte equal to {@code value} in {@code [fromIndex, toIndex)} of the memory
+     * at {@code address}, or {@code -1}. When possible 8 bytes are compared at once, by looking for a zero byte
+     * in the word XORed with {@code value} in every byte.
+     */
+    static int firstIndexOf(long address, int fromIndex, int toIndex, byte value) {
+        int i = fromIndex;
+        if (WORD_ACCESS) {
+            final long pattern = compilePattern(value);
+            for (final int wordEnd = toIndex - 7; i < wordEnd; i += 8) {
+                long matches = zeroBytes(PlatformDependent.getLong(address + i) ^ pattern);
+                if (matches != 0) {
+                    return i + firstByte(matches);
+                }
+            }
+        }
+        for (; i < toIndex; i ++) {
+            if (PlatformDependent.getByte(address + i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@link #firstIndexOf(long, int, int, byte)}, but returns the index of the last matching byte.
+     */
+    static int lastIndexOf(long address, int fromIndex, int toIndex, byte value) {
+        int i = toIndex;
+        if (WORD_ACCESS) {
+            final long pattern = compilePattern(value);
+            for (final int wordStart = fromIndex + 8; i >= wordStart; i -= 8) {
+                long matches = zeroBytes(PlatformDependent.getLong(address + i - 8) ^ pattern);
+                if (matches != 0) {
+                    return i - 8 + lastByte(matches);
+                }
+            }
+        }
+        for (i --; i >= fromIndex; i --) {
+            if (PlatformDependent.getByte(address + i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@link #firstIndexOf(long, int, int, byte)} for {@code array}.
+     */
+    static int firstIndexOf(byte[] array, int fromIndex, int toIndex, byte value) {
+        int i = fromIndex;
+        if (WORD_ACCESS) {
+            final long pattern = compilePattern(value);
+            for (final int wordEnd = toIndex - 7; i < wordEnd; i += 8) {
+                long matches = zeroBytes(PlatformDependent.getLong(array, i) ^ pattern);
+                if (matches != 0) {
+                    return i + firstByte(matches);
+                }
+            }
+        }
+        for (; i < toIndex; i ++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@link #lastIndexOf(long, int, int, byte)} for {@code array}.
+     */
+    static int lastIndexOf(byte[] array, int fromIndex, int toIndex, byte value) {
+        int i = toIndex;
+        if (WORD_ACCESS) {
+            final long pattern = compilePattern(value);
+            for (final int wordStart = fromIndex + 8; i >= wordStart; i -= 8) {
+                long matches = zeroBytes(PlatformDependent.getLong(array, i - 8) ^ pattern);
+                if (matches != 0) {
+                    return i - 8 + lastByte(matches);
+                }
+            }
+        }
+        for (i --; i >= fromIndex; i --) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long compilePattern(byte value) {
+        return (value & 0xFFL) * 0x0101010101010101L;
+    }
+
+    /**
+     * Returns {@code word} with the high bit set in every byte which is zero, and all other bits cleared.
+     * Unlike the shorter {@code (word - 0x01..01) & ~word & 0x80..80}, which may also flag a byte of 0x01 above a
+     * zero byte, only zero bytes are flagged, so that the last one can be found as well.
+     */
+    private static long zeroBytes(long word) {
+        long tmp = (word & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
+        return ~(tmp | word | 0x7F7F7F7F7F7F7F7FL);
+    }
+
+    // index in memory of the first flagged byte of a word returned by zeroBytes()
+    private static int firstByte(long matches) {
+        return (BIG_ENDIAN_NATIVE_ORDER ? Long.numberOfLeadingZeros(matches)
+                                        : Long.numberOfTrailingZeros(matches)) >>> 3;
+    }
+
+    // index in memory of the last flagged byte of a word returned by zeroBytes()
+    private static int lastByte(long matches) {
+        return 7 - ((BIG_ENDIAN_NATIVE_ORDER ? Long.numberOfTrailingZeros(matches)
+                                             : Long.numberOfLeadingZeros(matches)) >>> 3);
+    }
+
+    /**
+     * Returns the number of bytes of the varint of {@code value}, from 1 to 10.
+     */
+    static int varIntSize(long value) {
+        // ceil(bits / 7), without a division
+        return (64 - Long.numberOfLeadingZeros(value | 1)) * 9 + 64 >>> 6;
+    }
+
+    /**
+     * Returns the first {@code size} bytes (at most 8) of the varint of {@code value} as a little-endian word, i.e.
+     * with the first byte in the low-order bits. The bits of {@code value} above {@code 7 * size} are ignored.
+     */
+    static long encodeVarInt(long value, int size) {
+        long word = value & 0x7FL |
+                value << 1 & 0x7FL << 8 |
+                value << 2 & 0x7FL << 16 |
+                value << 3 & 0x7FL << 24 |
+                value << 4 & 0x7FL << 32 |
+                value << 5 & 0x7FL << 40 |
+                value << 6 & 0x7FL << 48 |
+                value << 7 & 0x7FL << 56;
+        // the continuation bit of all but the last byte
+        return word | 0x8080808080808080L & (1L << (size - 1 << 3)) - 1;
+    }
+
+    /**
+     * Returns the number of bytes of the varint that starts the little-endian {@code word}, or 9 if it is longer
+     * than 8 bytes.
+     */
+    static int varIntLength(long word) {
+        return (Long.numberOfTrailingZeros(~word & 0x8080808080808080L) >>> 3) + 1;
+    }
+
+    /**
+     * Returns the value of the varint of {@code size} bytes (at most 8) that starts the little-endian {@code word}.
+     */
+    static long decodeVarInt(long word, int size) {
+        word &= 0x7F7F7F7F7F7F7F7FL & -1L >>> (8 - size << 3);
+        return word & 0x7FL |
+                word >>> 1 & 0x7FL << 7 |
+                word >>> 2 & 0x7FL << 14 |
+                word >>> 3 & 0x7FL << 21 |
+                word >>> 4 & 0x7FL << 28 |
+                word >>> 5 & 0x7FL << 35 |
+                word >>> 6 & 0x7FL << 42 |
+                word >>> 7 & 0x7FL << 49;
+    }
+
+    /**
+     * Same as {@link #getLongLE(long)} for {@code array}.
+     */
+    static long getLongLE(byte[] array, int index) {
+        if (WORD_ACCESS) {
+            long word = PlatformDependent.getLong(array, index);
+            return BIG_ENDIAN_NATIVE_ORDER ? Long.reverseBytes(word) : word;
+        }
+        return array[index] & 0xFFL |
+                (array[index + 1] & 0xFFL) << 8 |
+                (array[index + 2] & 0xFFL) << 16 |
+                (array[index + 3] & 0xFFL) << 24 |
+                (array[index + 4] & 0xFFL) << 32 |
+                (array[index + 5] & 0xFFL) << 40 |
+                (array[index + 6] & 0xFFL) << 48 |
+                (long) array[index + 7] << 56;
+    }
+
+    /**
+     * Returns the 8 bytes at {@code address} as a little-endian word.
+     */
+    static long getLongLE(long address) {
+        long word = PlatformDependent.getLong(address);
+        return BIG_ENDIAN_NATIVE_ORDER ? Long.reverseBytes(word) : word;
+    }
+
+    /**
+     * Same as {@link #setBytesLE(long, long, int)} for {@code array}.
+     */
+    static void setBytesLE(byte[] array, int index, long word, int length) {
+        for (int i = 0; i < length; i ++) {
+            array[index + i] = (byte) word;
+            word >>>= 8;
+        }
+    }
+
+    /**
+     * Stores the {@code length} (at most 8) low-order bytes of {@code word} at {@code address}, lowest first.
+     */
+    static void setBytesLE(long address, long word, int length) {
+        if (length == 8) {
+            PlatformDependent.putLong(address, BIG_ENDIAN_NATIVE_ORDER ? Long.reverseBytes(word) : word);
+            return;
+        }
+        if ((length & 4) != 0) {
+            int v = (int) word;
+            PlatformDependent.putInt(address, BIG_ENDIAN_NATIVE_ORDER ? Integer.reverseBytes(v) : v);
+            address += 4;
+            word >>>= 32;
+        }
+        if ((length & 2) != 0) {
+            short v = (short) word;
+            PlatformDependent.putShort(address, BIG_ENDIAN_NATIVE_ORDER ? Short.reverseBytes(v) : v);
+            address += 2;
+            word >>>= 16;
+        }
+        if ((length & 1) != 0) {
+            PlatformDependent.putByte(address, (byte) word);
+        }
+    }
+
+    /**
+     * Returns {@code true} if {@link #copyPrimitives(Object, long, Object, long, int, int, boolean)} can be used.
+     */
+    static boolean hasPrimitiveAccess() {
+        return WORD_ACCESS;
+    }
+
+    /**
+     * Copies {@code length} bytes between the memory of a buffer and of a primitive array, where a {@code null}
+     * base makes the offset an address, and the elements of {@code elementSize} (4 or 8) bytes are stored in the
+     * buffer big endian, or little endian if {@code littleEndian}. This is a single copy when that is the native
+     * order, and a loop that reverses the bytes of each element otherwise. Returns {@code false} without copying
+     * anything if {@link #hasPrimitiveAccess()} is {@code false}.
+     */
+    static boolean copyPrimitives(Object srcBase, long srcOffset, Object dstBase, long dstOffset, int length,
+                                  int elementSize, boolean littleEndian) {
+        if (!WORD_ACCESS) {
+            return false;
+        }
+        if (littleEndian != BIG_ENDIAN_NATIVE_ORDER) {
+            PlatformDependent.copyMemory(srcBase, srcOffset, dstBase, dstOffset, length);
+        } else if (elementSize == 4) {
+            for (int i = 0; i < length; i += 4) {
+                PlatformDependent.putInt(dstBase, dstOffset + i,
+                                         Integer.reverseBytes(PlatformDependent.getInt(srcBase, srcOffset + i)));
+            }
+        } else {
+            for (int i = 0; i < length; i += 8) {
+                PlatformDependent.putLong(dstBase, dstOffset + i,
+                                          Long.reverseBytes(PlatformDependent.getLong(srcBase, srcOffset + i)));
+            }
+        }
+        return true;
+    }
+
     static ByteBuffer encodeString(CharBuffer src, Charset charset) {
         final CharsetEncoder encoder = CharsetUtil.getEncoder(charset);
         final ByteBuffer dst = ByteBuffer.allocate(
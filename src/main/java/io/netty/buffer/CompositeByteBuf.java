@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.util.ArrayList;
@@ -47,6 +48,9 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     private static final ByteBuffer FULL_BYTEBUFFER = (ByteBuffer) ByteBuffer.allocate(1).position(1);
 
     private boolean freed;
+    private int pinCount;
+    // only a hint, as the offsets of the component at this index are checked on every lookup
+    private int lastComponentIndex;
 
     public CompositeByteBuf(ByteBufAllocator alloc, boolean direct, int maxNumComponents) {
         super(Integer.MAX_VALUE);
@@ -284,22 +288,19 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         // operation.
         final int numComponents = components.size();
         if (numComponents > maxNumComponents) {
-            final int capacity = components.get(numComponents - 1).endOffset;
-
-            ByteBuf consolidated = allocBuffer(capacity);
-
-            // We're not using foreach to avoid creating an iterator.
-            // noinspection ForLoopReplaceableByForEach
-            for (int i = 0; i < numComponents; i ++) {
-                Component c = components.get(i);
-                ByteBuf b = c.buf;
-                consolidated.writeBytes(b);
-                c.freeIfNecessary();
+            // Merge only as many adjacent components as needed, picking the run with the fewest bytes, so that
+            // large components, such as the body of a response, are not copied while there are smaller ones.
+            final int runLength = Math.min(numComponents, numComponents - Math.max(maxNumComponents, 1) + 1);
+            int cIndex = 0;
+            int minBytes = components.get(runLength - 1).endOffset;
+            for (int i = 1; i + runLength <= numComponents; i ++) {
+                int bytes = components.get(i + runLength - 1).endOffset - components.get(i).offset;
+                if (bytes < minBytes) {
+                    minBytes = bytes;
+                    cIndex = i;
+                }
             }
-            Component c = new Component(consolidated);
-            c.endOffset = c.length;
-            components.clear();
-            components.add(c);
+            consolidate(cIndex, runLength);
         }
     }
 
@@ -566,7 +567,22 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         assert !freed;
         checkIndex(offset);
 
-        for (int low = 0, high = components.size(); low <= high;) {
+        // the component of the last lookup, or the one after it, serves sequential access without a search
+        int cIndex = lastComponentIndex;
+        int size = components.size();
+        if (cIndex < size) {
+            Component c = components.get(cIndex);
+            if (offset >= c.offset) {
+                if (offset < c.endOffset) {
+                    return cIndex;
+                }
+                if (++ cIndex < size && offset < components.get(cIndex).endOffset) {
+                    return lastComponentIndex = cIndex;
+                }
+            }
+        }
+
+        for (int low = 0, high = size; low <= high;) {
             int mid = low + high >>> 1;
             Component c = components.get(mid);
             if (offset >= c.endOffset) {
@@ -574,7 +590,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             } else if (offset < c.offset) {
                 high = mid - 1;
             } else {
-                return mid;
+                return lastComponentIndex = mid;
             }
         }
 
@@ -645,6 +661,61 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         }
     }
 
+    @Override
+    boolean _getPrimitives(int index, Object dst, long dstOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        if (!ByteBufUtil.hasPrimitiveAccess()) {
+            return false;
+        }
+
+        while (length > 0) {
+            Component c = components.get(toComponentIndex(index));
+            // the elements which lie in this component, then the one split with the next, if any
+            int localLength = Math.min(length, c.endOffset - index);
+            int whole = localLength - localLength % elementSize;
+            if (whole > 0 && !(c.buf instanceof AbstractByteBuf &&
+                               ((AbstractByteBuf) c.buf)._getPrimitives(
+                                       index - c.offset, dst, dstOffset, whole, elementSize, littleEndian))) {
+                getPrimitivesSlow(index, dst, dstOffset, whole, elementSize, littleEndian);
+            }
+            if (whole < localLength) {
+                getPrimitivesSlow(index + whole, dst, dstOffset + whole, elementSize, elementSize, littleEndian);
+                whole += elementSize;
+            }
+            index += whole;
+            dstOffset += whole;
+            length -= whole;
+        }
+        return true;
+    }
+
+    @Override
+    boolean _setPrimitives(int index, Object src, long srcOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        if (!ByteBufUtil.hasPrimitiveAccess()) {
+            return false;
+        }
+
+        while (length > 0) {
+            Component c = components.get(toComponentIndex(index));
+            int localLength = Math.min(length, c.endOffset - index);
+            int whole = localLength - localLength % elementSize;
+            if (whole > 0 && !(c.buf instanceof AbstractByteBuf &&
+                               ((AbstractByteBuf) c.buf)._setPrimitives(
+                                       index - c.offset, src, srcOffset, whole, elementSize, littleEndian))) {
+                setPrimitivesSlow(index, src, srcOffset, whole, elementSize, littleEndian);
+            }
+            if (whole < localLength) {
+                setPrimitivesSlow(index + whole, src, srcOffset + whole, elementSize, elementSize, littleEndian);
+                whole += elementSize;
+            }
+            index += whole;
+            srcOffset += whole;
+            length -= whole;
+        }
+        return true;
+    }
+
     @Override
     public CompositeByteBuf getBytes(int index, byte[] dst, int dstIndex, int length) {
         checkDstIndex(index, length, dstIndex, dst.length);
@@ -721,11 +792,17 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     @Override
     public int getBytes(int index, GatheringByteChannel out, int length)
             throws IOException {
-        long writtenBytes = out.write(nioBuffers(index, length));
-        if (writtenBytes > Integer.MAX_VALUE) {
-            return Integer.MAX_VALUE;
-        } else {
-            return (int) writtenBytes;
+        // a single gathering write of the components where they are, which must not be swapped out meanwhile
+        pin();
+        try {
+            long writtenBytes = out.write(nioBuffers(index, length));
+            if (writtenBytes > Integer.MAX_VALUE) {
+                return Integer.MAX_VALUE;
+            } else {
+                return (int) writtenBytes;
+            }
+        } finally {
+            unpin();
         }
     }
 
@@ -957,40 +1034,15 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
             return in.read(FULL_BYTEBUFFER);
         }
 
-        int i = toComponentIndex(index);
-        int readBytes = 0;
-        do {
-            Component c = components.get(i);
-            ByteBuf s = c.buf;
-            int adjustment = c.offset;
-            int localLength = Math.min(length, s.capacity() - (index - adjustment));
-            int localReadBytes = s.setBytes(index - adjustment, in, localLength);
-
-            if (localReadBytes == 0) {
-                break;
-            }
-
-            if (localReadBytes < 0) {
-                if (readBytes == 0) {
-                    return -1;
-                } else {
-                    break;
-                }
-            }
-
-            if (localReadBytes == localLength) {
-                index += localLength;
-                length -= localLength;
-                readBytes += localLength;
-                i ++;
-            } else {
-                index += localReadBytes;
-                length -= localReadBytes;
-                readBytes += localReadBytes;
-            }
-        } while (length > 0);
-
-        return readBytes;
+        // a single scattering read into the components, which must not be swapped out meanwhile
+        pin();
+        try {
+            return (int) in.read(nioBuffers(index, length));
+        } catch (ClosedChannelException e) {
+            return -1;
+        } finally {
+            unpin();
+        }
     }
 
     @Override
@@ -1064,25 +1116,67 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
     }
 
     private Component findComponent(int offset) {
-        assert !freed;
-        checkIndex(offset);
+        return components.get(toComponentIndex(offset));
+    }
 
-        assert !freed;
-        checkIndex(offset);
+    @Override
+    public int forEachByte(ByteBufProcessor processor) {
+        return forEachByte(readerIndex(), readableBytes(), processor);
+    }
 
-        for (int low = 0, high = components.size(); low <= high;) {
-            int mid = low + high >>> 1;
-            Component c = components.get(mid);
-            if (offset >= c.endOffset) {
-                low = mid + 1;
-            } else if (offset < c.offset) {
-                high = mid - 1;
-            } else {
-                return c;
+    /**
+     * Iterates over the bytes of each component in turn by its own {@link ByteBuf#forEachByte(int, int,
+     * ByteBufProcessor)}, rather than looking up the component of every byte.
+     */
+    @Override
+    public int forEachByte(int index, int length, ByteBufProcessor processor) {
+        checkIndex(index, length);
+        if (processor == null) {
+            throw new NullPointerException("processor");
+        }
+        if (length == 0) {
+            return -1;
+        }
+
+        for (int i = toComponentIndex(index); length > 0; i ++) {
+            Component c = components.get(i);
+            int localLength = Math.min(length, c.endOffset - index);
+            int ret = c.buf.forEachByte(index - c.offset, localLength, processor);
+            if (ret >= 0) {
+                return c.offset + ret;
             }
+            index += localLength;
+            length -= localLength;
         }
+        return -1;
+    }
 
-        throw new Error("should not reach here");
+    @Override
+    public int forEachByteDesc(ByteBufProcessor processor) {
+        return forEachByteDesc(readerIndex(), readableBytes(), processor);
+    }
+
+    @Override
+    public int forEachByteDesc(int index, int length, ByteBufProcessor processor) {
+        checkIndex(index, length);
+        if (processor == null) {
+            throw new NullPointerException("processor");
+        }
+        if (length == 0) {
+            return -1;
+        }
+
+        int endIndex = index + length;
+        for (int i = toComponentIndex(endIndex - 1); endIndex > index; i --) {
+            Component c = components.get(i);
+            int localIndex = Math.max(index, c.offset);
+            int ret = c.buf.forEachByteDesc(localIndex - c.offset, endIndex - localIndex, processor);
+            if (ret >= 0) {
+                return c.offset + ret;
+            }
+            endIndex = localIndex;
+        }
+        return -1;
     }
 
     @Override
@@ -1122,7 +1216,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
 
         //noinspection ForLoopReplaceableByForEach
         for (int i = 0; i < buffers.length; i++) {
-            merged.put(buffers[0]);
+            merged.put(buffers[i]);
         }
 
         merged.flip();
@@ -1285,6 +1379,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         // Remove or replace the first readable component with a new slice.
         Component c = components.get(0);
         int adjustment = readerIndex - c.offset;
+        c.unpinIfNecessary();
         if (adjustment == c.length) {
             // new slice would be empty, so remove instead
             components.remove(0);
@@ -1323,9 +1418,19 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         Component(ByteBuf buf) {
             this.buf = buf;
             length = buf.readableBytes();
+            if (pinCount != 0) {
+                buf.pin();
+            }
+        }
+
+        void unpinIfNecessary() {
+            if (pinCount != 0) {
+                buf.unpin();
+            }
         }
 
         void freeIfNecessary() {
+            unpinIfNecessary();
             // Unwrap so that we can free slices, too.
             buf.release(); // We should not get a NPE here. If so, it must be a bug.
         }
@@ -1391,6 +1496,26 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         return (CompositeByteBuf) super.getBytes(index, dst);
     }
 
+    @Override
+    public CompositeByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.getInts(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.getLongs(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.getFloats(index, dst, dstIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        return (CompositeByteBuf) super.getDoubles(index, dst, dstIndex, length);
+    }
+
     @Override
     public CompositeByteBuf setBoolean(int index, boolean value) {
         return (CompositeByteBuf) super.setBoolean(index, value);
@@ -1426,6 +1551,26 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         return (CompositeByteBuf) super.setBytes(index, src);
     }
 
+    @Override
+    public CompositeByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.setInts(index, src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.setLongs(index, src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.setFloats(index, src, srcIndex, length);
+    }
+
+    @Override
+    public CompositeByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        return (CompositeByteBuf) super.setDoubles(index, src, srcIndex, length);
+    }
+
     @Override
     public CompositeByteBuf setZero(int index, int length) {
         return (CompositeByteBuf) super.setZero(index, length);
@@ -1561,6 +1706,42 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf {
         return (CompositeByteBuf) super.retain();
     }
 
+    @Override
+    public CompositeByteBuf confine() {
+        return (CompositeByteBuf) super.confine();
+    }
+
+    @Override
+    public CompositeByteBuf share() {
+        return (CompositeByteBuf) super.share();
+    }
+
+    /**
+     * Pins all components of this buffer. Components added while this buffer is pinned are pinned, too.
+     */
+    @Override
+    public CompositeByteBuf pin() {
+        if (pinCount ++ == 0) {
+            for (Component c: components) {
+                c.buf.pin();
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public CompositeByteBuf unpin() {
+        if (pinCount == 0) {
+            throw new IllegalStateException("not pinned");
+        }
+        if (-- pinCount == 0) {
+            for (Component c: components) {
+                c.buf.unpin();
+            }
+        }
+        return this;
+    }
+
     @Override
     public ByteBuffer[] nioBuffers() {
         return nioBuffers(readerIndex(), readableBytes());
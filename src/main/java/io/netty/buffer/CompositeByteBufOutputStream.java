@@ -0,0 +1,226 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} which writes data to a {@link CompositeByteBuf} of fixed size segments, allocated by a
+ * {@link ByteBufAllocator} as the stream needs them.
+ * <p>
+ * Unlike a {@link ByteBufOutputStream}, which makes its buffer grow by {@link ByteBuf#ensureWritable(int)}, this
+ * stream never copies what it has written, and never needs a contiguous block of memory bigger than one segment,
+ * which a pooled allocator can place, and swap out, like any other buffer.
+ * <p>
+ * This stream implements {@link DataOutput} for your convenience, in big endian byte order.
+ *
+ * @see ByteBufOutputStream
+ */
+public class CompositeByteBufOutputStream extends OutputStream implements DataOutput {
+
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+
+    private final ByteBufAllocator alloc;
+    private final int segmentSize;
+    private final CompositeByteBuf buffer;
+    private final DataOutputStream utf8out = new DataOutputStream(this);
+
+    // the last component of buffer, whose bytes from segmentIndex on are not written yet
+    private ByteBuf segment;
+    private int segmentIndex;
+    private int segmentLength;
+
+    /**
+     * Creates a new stream which writes data to segments of 64 KiB allocated by the specified {@code alloc}.
+     */
+    public CompositeByteBufOutputStream(ByteBufAllocator alloc) {
+        this(alloc, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new stream which writes data to segments of {@code segmentSize} bytes allocated by the specified
+     * {@code alloc}.
+     */
+    public CompositeByteBufOutputStream(ByteBufAllocator alloc, int segmentSize) {
+        if (alloc == null) {
+            throw new NullPointerException("alloc");
+        }
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize: " + segmentSize + " (expected: > 0)");
+        }
+        this.alloc = alloc;
+        this.segmentSize = segmentSize;
+        // never consolidated, as that would copy everything written so far
+        buffer = alloc.compositeBuffer(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of written bytes by this stream so far.
+     */
+    public int writtenBytes() {
+        return buffer.capacity() - segmentLength + segmentIndex;
+    }
+
+    private void nextSegment() {
+        int size = Math.min(segmentSize, buffer.maxCapacity() - buffer.capacity());
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("writtenBytes: " + writtenBytes() + " (expected: < maxCapacity)");
+        }
+
+        ByteBuf segment;
+        if (size > 512 && alloc instanceof PooledByteBufAllocator) {
+            // the pool doubles a capacity which is a power of two already, but grows a buffer in place up to the
+            // size it was rounded up to, so a segment of one byte less takes a run of exactly segmentSize
+            segment = alloc.buffer(size - 1, size).capacity(size);
+        } else {
+            segment = alloc.buffer(size, size);
+        }
+        try {
+            // added with its full length, so that it is written where it is
+            buffer.addComponent(segment.writerIndex(size));
+        } catch (RuntimeException e) {
+            segment.release();
+            throw e;
+        }
+        this.segment = segment;
+        segmentIndex = 0;
+        segmentLength = size;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException(
+                    "off: " + off + ", len: " + len + " (expected: range(0, " + b.length + "))");
+        }
+
+        while (len > 0) {
+            if (segmentIndex == segmentLength) {
+                nextSegment();
+            }
+            int n = Math.min(len, segmentLength - segmentIndex);
+            segment.setBytes(segmentIndex, b, off, n);
+            segmentIndex += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (segmentIndex == segmentLength) {
+            nextSegment();
+        }
+        segment.setByte(segmentIndex ++, b);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+        write(v? (byte) 1 : (byte) 0);
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+        write(v);
+    }
+
+    @Override
+    public void writeBytes(String s) throws IOException {
+        int len = s.length();
+        for (int i = 0; i < len; i ++) {
+            write((byte) s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        writeShort((short) v);
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        int len = s.length();
+        for (int i = 0 ; i < len ; i ++) {
+            writeChar(s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    // the values which do not fit into the current segment are split between it and the next one
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        if (segmentLength - segmentIndex >= 4) {
+            segment.setInt(segmentIndex, v);
+            segmentIndex += 4;
+        } else {
+            writeShort(v >>> 16);
+            writeShort(v);
+        }
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        if (segmentLength - segmentIndex >= 8) {
+            segment.setLong(segmentIndex, v);
+            segmentIndex += 8;
+        } else {
+            writeInt((int) (v >>> 32));
+            writeInt((int) v);
+        }
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        if (segmentLength - segmentIndex >= 2) {
+            segment.setShort(segmentIndex, v);
+            segmentIndex += 2;
+        } else {
+            write(v >>> 8);
+            write(v);
+        }
+    }
+
+    @Override
+    public void writeUTF(String s) throws IOException {
+        utf8out.writeUTF(s);
+    }
+
+    /**
+     * Returns the buffer where this stream is writing data, whose {@code writerIndex} is set to the number of
+     * bytes written so far. Its capacity may exceed that by the unwritten part of the last segment.
+     */
+    public CompositeByteBuf buffer() {
+        return buffer.writerIndex(writtenBytes());
+    }
+}
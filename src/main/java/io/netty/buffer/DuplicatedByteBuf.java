@@ -111,6 +111,30 @@ public class DuplicatedByteBuf extends AbstractDerivedByteBuf {
         return buffer.getByte(index);
     }
 
+    @Override
+    int firstIndexOf0(int fromIndex, int toIndex, byte value) {
+        return buffer.indexOf(fromIndex, toIndex, value);
+    }
+
+    @Override
+    int lastIndexOf0(int fromIndex, int toIndex, byte value) {
+        return buffer.indexOf(toIndex, fromIndex, value);
+    }
+
+    @Override
+    boolean _getPrimitives(int index, Object dst, long dstOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        return buffer instanceof AbstractByteBuf && ((AbstractByteBuf) buffer)._getPrimitives(
+                index, dst, dstOffset, length, elementSize, littleEndian);
+    }
+
+    @Override
+    boolean _setPrimitives(int index, Object src, long srcOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        return buffer instanceof AbstractByteBuf && ((AbstractByteBuf) buffer)._setPrimitives(
+                index, src, srcOffset, length, elementSize, littleEndian);
+    }
+
     @Override
     public short getShort(int index) {
         return _getShort(index);
@@ -161,6 +185,11 @@ public class DuplicatedByteBuf extends AbstractDerivedByteBuf {
         return buffer.slice(index, length);
     }
 
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        return buffer.retainedSlice(index, length);
+    }
+
     @Override
     public ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
         buffer.getBytes(index, dst, dstIndex, length);
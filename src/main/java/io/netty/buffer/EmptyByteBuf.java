@@ -72,6 +72,16 @@ public final class EmptyByteBuf extends ByteBuf {
         throw new UnsupportedOperationException("not implemented");
     }
 
+    @Override
+    public ByteBuf pin() {
+        return this;
+    }
+
+    @Override
+    public ByteBuf unpin() {
+        return this;
+    }
+
     @Override
     public int capacity() {
         return 0;
@@ -326,6 +336,26 @@ public final class EmptyByteBuf extends ByteBuf {
         return checkIndex(index, length);
     }
 
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        return checkIndex(index, length);
+    }
+
     @Override
     public ByteBuf getBytes(int index, ByteBuffer dst) {
         return checkIndex(index, dst.remaining());
@@ -412,6 +442,26 @@ public final class EmptyByteBuf extends ByteBuf {
         return checkIndex(index, length);
     }
 
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        return checkIndex(index, length);
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        return checkIndex(index, length);
+    }
+
     @Override
     public ByteBuf setBytes(int index, ByteBuffer src) {
         return checkIndex(index, src.remaining());
@@ -509,6 +559,11 @@ public final class EmptyByteBuf extends ByteBuf {
         return checkLength(length);
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        return checkLength(length);
+    }
+
     @Override
     public ByteBuf readBytes(ByteBuf dst) {
         return checkLength(dst.writableBytes());
@@ -713,11 +768,26 @@ public final class EmptyByteBuf extends ByteBuf {
         return checkIndex(index, length);
     }
 
+    @Override
+    public ByteBuf retainedSlice() {
+        return this;
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        return checkIndex(index, length);
+    }
+
     @Override
     public ByteBuf duplicate() {
         return this;
     }
 
+    @Override
+    public ByteBuf retainedDuplicate() {
+        return this;
+    }
+
     @Override
     public int nioBufferCount() {
         return 1;
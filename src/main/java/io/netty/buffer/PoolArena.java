@@ -17,17 +17,25 @@
 package io.netty.buffer;
 
 import io.netty.disk.BlockDisk;
+import io.netty.disk.CompressedSwap;
 import io.netty.util.Pair;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 import io.netty.util.internal.chmv8.ConcurrentHashMapV8;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 abstract class PoolArena<T> {
 
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(PoolArena.class);
+
     final PooledByteBufAllocator parent;
 
     private final int pageSize;
@@ -38,6 +46,13 @@ abstract class PoolArena<T> {
 
     private static final AtomicInteger memoryOccupationInMB = new AtomicInteger(0);
 
+    // number of runs swapped out and in since startup, over all arenas
+    private static final AtomicLong swapOutCount = new AtomicLong(0);
+    private static final AtomicLong swapInCount = new AtomicLong(0);
+    private static final AtomicLong growInPlaceCount = new AtomicLong(0);
+
+    private static final SwapPriority[] SWAPPABLE_PRIORITIES = { SwapPriority.EVICT_FIRST, SwapPriority.NORMAL };
+
     private final PoolSubpage<T>[] tinySubpagePools;
     private final PoolSubpage<T>[] smallSubpagePools;
 
@@ -48,6 +63,10 @@ abstract class PoolArena<T> {
     private final PoolChunkList<T> q075;
     private final PoolChunkList<T> q100;
 
+    // buffers released by threads that do not allocate from this arena, linked through nextDeferredFree
+    private final AtomicReference<PooledByteBuf<T>> deferredFrees = new AtomicReference<PooledByteBuf<T>>();
+    private final AtomicInteger deferredFreeCount = new AtomicInteger();
+
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
 
@@ -96,9 +115,25 @@ abstract class PoolArena<T> {
         return new PoolSubpage[size];
     }
 
-    PooledByteBuf<T> allocate(PoolThreadCache cache, int reqCapacity, int maxCapacity) {
-        PooledByteBuf<T> buf = newByteBuf(maxCapacity);
+    /**
+     * Allocates a buffer of the given {@code order} if this arena has buffers of that order, or else a big-endian
+     * one, which the caller has to wrap.
+     */
+    PooledByteBuf<T> allocate(PoolThreadCache cache, int reqCapacity, int maxCapacity, ByteOrder order) {
+        AllocationTraceRecorder recorder = PooledByteBufAllocator.getTraceRecorder();
+        long startNanos = recorder != null ? System.nanoTime() : 0;
+
+        if (deferredFrees.get() != null) {
+            freeDeferred();
+        }
+
+        PooledByteBuf<T> buf = newByteBuf(maxCapacity, order);
         allocate(cache, buf, reqCapacity);
+        buf.allocatingThread = Thread.currentThread();
+
+        if (recorder != null) {
+            recorder.record(AllocationTraceRecorder.ALLOCATE, buf.isDirect(), buf.id, reqCapacity, startNanos);
+        }
         return buf;
     }
 
@@ -153,6 +188,13 @@ abstract class PoolArena<T> {
             return;
         }
 
+        // runs of released buffers should not be swapped out, nor make room for a new chunk
+        if (freeDeferred()) {
+            if (allocateFromChunkList(buf, reqCapacity, normCapacity)) {
+                return;
+            }
+        }
+
         System.out.println("current memory occupation: " + getMemoryOccupationInMB());
         if (getMemoryOccupationInMB() >= PooledByteBufAllocator.getDefaultMaxMemoryMB()) {
             try {
@@ -176,43 +218,23 @@ abstract class PoolArena<T> {
     synchronized boolean swapOut(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) throws IOException {
         System.out.println("finding swappable run...");
 
-        Pair<PoolChunk<T>, Long> found = q100.findSwappable(buf, reqCapacity, normCapacity);
-        if (found != null) {
-            if (doSwapOut(buf, reqCapacity, normCapacity, found)) {
-                return true;
-            } else {
-                System.out.println("should not go here!");
-            }
-        }
-
-        found = q075.findSwappable(buf, reqCapacity, normCapacity);
-        if (found != null) {
-            if (doSwapOut(buf, reqCapacity, normCapacity, found)) {
+        // EVICT_FIRST runs are tried before NORMAL ones; NEVER_EVICT runs are never swapped out
+        for (SwapPriority priority: SWAPPABLE_PRIORITIES) {
+            if (swapOut(q100, buf, reqCapacity, normCapacity, priority)
+                || swapOut(q075, buf, reqCapacity, normCapacity, priority)
+                || swapOut(q050, buf, reqCapacity, normCapacity, priority)
+                || swapOut(q025, buf, reqCapacity, normCapacity, priority)
+                || swapOut(q000, buf, reqCapacity, normCapacity, priority)) {
                 return true;
-            } else {
-                System.out.println("should not go here!");
             }
         }
 
-        found = q050.findSwappable(buf, reqCapacity, normCapacity);
-        if (found != null) {
-            if (doSwapOut(buf, reqCapacity, normCapacity, found)) {
-                return true;
-            } else {
-                System.out.println("should not go here!");
-            }
-        }
-
-        found = q025.findSwappable(buf, reqCapacity, normCapacity);
-        if (found != null) {
-            if (doSwapOut(buf, reqCapacity, normCapacity, found)) {
-                return true;
-            } else {
-                System.out.println("should not go here!");
-            }
-        }
+        return false;
+    }
 
-        found = q000.findSwappable(buf, reqCapacity, normCapacity);
+    private boolean swapOut(PoolChunkList<T> list, PooledByteBuf<T> buf, int reqCapacity, int normCapacity,
+                            SwapPriority priority) throws IOException {
+        Pair<PoolChunk<T>, Long> found = list.findSwappable(buf, reqCapacity, normCapacity, priority);
         if (found != null) {
             if (doSwapOut(buf, reqCapacity, normCapacity, found)) {
                 return true;
@@ -220,7 +242,6 @@ abstract class PoolArena<T> {
                 System.out.println("should not go here!");
             }
         }
-
         return false;
     }
 
@@ -230,28 +251,41 @@ abstract class PoolArena<T> {
         final long handle = found.second;
 
         int val = chunk.getMemoryMap()[(int)handle];
-        T data = newMemory(chunk.runLength(val));
-
-        System.out.println("copy to temp memory...");
-
-        memoryCopy(chunk.memory, chunk.runOffset(val), data, 0, chunk.runLength(val));
-
-        System.out.println("write " + chunk.runLength(val) + " bytes to disk...");
-
-        int[] blocks = getBlockDisk().write(data);
-
-        freeMemory(data);
 
         ConcurrentHashMapV8<Pair<Long, Long>, Long> inMemoryMap = PooledByteBuf.getInMemoryMap();
         ConcurrentHashMapV8<Long, int[]> onDiskMap = PooledByteBuf.getOnDiskMap();
+        ConcurrentHashMapV8<Long, ByteBuffer> compressedMap = PooledByteBuf.getCompressedMap();
 
         Pair<Long, Long> swapOutByteBufInMemoryKey = new Pair<Long, Long>(chunk.getId(), handle);
 
         assert inMemoryMap.containsKey(swapOutByteBufInMemoryKey);
         assert !onDiskMap.containsKey(inMemoryMap.get(swapOutByteBufInMemoryKey));
+        assert !compressedMap.containsKey(inMemoryMap.get(swapOutByteBufInMemoryKey));
         assert inMemoryMap.get(swapOutByteBufInMemoryKey) != buf.id;
 
-        onDiskMap.put(inMemoryMap.get(swapOutByteBufInMemoryKey), blocks);
+        // try the compressed in-memory tier first, and go to disk only if it refuses the run
+        ByteBuffer compressed = getCompressedSwap().write(chunk.memory, chunk.runOffset(val), chunk.runLength(val));
+        if (compressed != null) {
+            logger.debug("compressed {} bytes to {}", chunk.runLength(val), compressed.remaining());
+
+            compressedMap.put(inMemoryMap.get(swapOutByteBufInMemoryKey), compressed);
+        } else {
+            T data = newMemory(chunk.runLength(val));
+
+            System.out.println("copy to temp memory...");
+
+            memoryCopy(chunk.memory, chunk.runOffset(val), data, 0, chunk.runLength(val));
+
+            System.out.println("write " + chunk.runLength(val) + " bytes to disk...");
+
+            int[] blocks = getBlockDisk().write(data);
+
+            freeMemory(data);
+
+            onDiskMap.put(inMemoryMap.get(swapOutByteBufInMemoryKey), blocks);
+        }
+
+        swapOutCount.incrementAndGet();
 
         // free to memory pool
         free(chunk, handle);
@@ -264,6 +298,16 @@ abstract class PoolArena<T> {
         assert normCapacity >= pageSize;
 
         allocate(parent.threadCache.get(), buf, reqCapacity);
+        swapInCount.incrementAndGet();
+
+        ConcurrentHashMapV8<Long, ByteBuffer> compressedMap = PooledByteBuf.getCompressedMap();
+        ByteBuffer compressed = compressedMap.get(buf.id);
+        if (compressed != null) {
+            getCompressedSwap().read(compressed, buf.memory, buf.offset, buf.length);
+            getCompressedSwap().free(compressed);
+            compressedMap.remove(buf.id);
+            return;
+        }
 
         ConcurrentHashMapV8<Long, int[]> onDiskMap = PooledByteBuf.getOnDiskMap();
         int[] blocks = onDiskMap.get(buf.id);
@@ -298,10 +342,17 @@ abstract class PoolArena<T> {
     synchronized void freeAll(PoolChunk<T> chunk, long handle, long bufId) {
         ConcurrentHashMapV8<Pair<Long, Long>, Long> inMemoryMap = PooledByteBuf.getInMemoryMap();
         ConcurrentHashMapV8<Long, int[]> onDiskMap = PooledByteBuf.getOnDiskMap();
+        ConcurrentHashMapV8<Long, ByteBuffer> compressedMap = PooledByteBuf.getCompressedMap();
 
         Pair<Long, Long> inMemoryKey = new Pair<Long, Long>(chunk.getId(), handle);
-        // PooledByteBuf要么in-memory，要么on-disk
-        if (onDiskMap.containsKey(bufId)) {
+        // PooledByteBuf要么in-memory，要么compressed，要么on-disk
+        if (compressedMap.containsKey(bufId)) {
+            if (inMemoryMap.containsKey(inMemoryKey)) {
+                assert inMemoryMap.get(inMemoryKey) != bufId;
+            }
+            // free compressed data
+            getCompressedSwap().free(compressedMap.remove(bufId));
+        } else if (onDiskMap.containsKey(bufId)) {
             if (inMemoryMap.containsKey(inMemoryKey)) {
                 assert inMemoryMap.get(inMemoryKey) != bufId;
             }
@@ -316,6 +367,69 @@ abstract class PoolArena<T> {
         }
     }
 
+    /**
+     * Frees the memory of a released buffer like {@link #freeAll(PoolChunk, long, long)} when called by the thread
+     * which allocated it. Any other thread only queues the buffer, so that threads releasing buffers allocated
+     * elsewhere do not contend on the lock of this arena; the queue is freed with one acquisition of the lock by the
+     * next allocation, or by the release which fills a batch.
+     *
+     * @return {@code false} if the buffer was queued, in which case it is recycled once freed and must not be
+     *         touched by the caller any more
+     */
+    boolean freeOrDefer(PooledByteBuf<T> buf, long handle) {
+        final int batch = PooledByteBufAllocator.getDefaultDeferredFreeBatch();
+        // compared rather than looking up the thread cache, which would give the releasing thread one of its own
+        final Thread allocatingThread = buf.allocatingThread;
+        buf.allocatingThread = null;
+        if (batch == 0 || allocatingThread == Thread.currentThread()) {
+            freeAll(buf.chunk, handle, buf.id);
+            return true;
+        }
+
+        buf.deferredFreeHandle = handle;
+        for (;;) {
+            PooledByteBuf<T> head = deferredFrees.get();
+            buf.nextDeferredFree = head;
+            if (deferredFrees.compareAndSet(head, buf)) {
+                break;
+            }
+        }
+
+        if (deferredFreeCount.incrementAndGet() >= batch) {
+            freeDeferred();
+        }
+        return false;
+    }
+
+    /**
+     * Frees the buffers queued by {@link #freeOrDefer(PooledByteBuf, long)}.
+     *
+     * @return {@code true} if any buffer was freed
+     */
+    boolean freeDeferred() {
+        PooledByteBuf<T> head = deferredFrees.getAndSet(null);
+        if (head == null) {
+            return false;
+        }
+
+        int count = 0;
+        synchronized (this) {
+            for (PooledByteBuf<T> buf = head; buf != null; buf = buf.nextDeferredFree) {
+                freeAll(buf.chunk, buf.deferredFreeHandle, buf.id);
+                count ++;
+            }
+        }
+        deferredFreeCount.addAndGet(-count);
+
+        for (PooledByteBuf<T> buf = head; buf != null;) {
+            PooledByteBuf<T> next = buf.nextDeferredFree;
+            buf.nextDeferredFree = null;
+            buf.recycleIfNotTracked();
+            buf = next;
+        }
+        return true;
+    }
+
     PoolSubpage<T> findSubpagePoolHead(int elemSize) {
         int tableIdx;
         PoolSubpage<T>[] table;
@@ -379,6 +493,16 @@ abstract class PoolArena<T> {
             return;
         }
 
+        AllocationTraceRecorder recorder = PooledByteBufAllocator.getTraceRecorder();
+        long startNanos = recorder != null ? System.nanoTime() : 0;
+
+        if (freeOldMemory && newCapacity > oldCapacity && growInPlace(buf, newCapacity)) {
+            if (recorder != null) {
+                recorder.record(AllocationTraceRecorder.REALLOCATE, buf.isDirect(), buf.id, newCapacity, startNanos);
+            }
+            return;
+        }
+
         PoolChunk<T> oldChunk = buf.chunk;
         long oldHandle = buf.handle;
         T oldMemory = buf.memory;
@@ -410,18 +534,65 @@ abstract class PoolArena<T> {
         if (freeOldMemory) {
             free(oldChunk, oldHandle);
         }
+
+        if (recorder != null) {
+            recorder.record(AllocationTraceRecorder.REALLOCATE, buf.isDirect(), buf.id, newCapacity, startNanos);
+        }
+    }
+
+    /**
+     * Grows the run of {@code buf} in its chunk, so that its content need not be copied.
+     *
+     * @return {@code false} if the run can not grow in place
+     */
+    private synchronized boolean growInPlace(PooledByteBuf<T> buf, int newCapacity) {
+        PoolChunk<T> chunk = buf.chunk;
+        // the run of a swapped out buffer belongs to another buffer by now
+        if (chunk.unpooled || newCapacity > chunkSize || buf.isSwappedOut()) {
+            return false;
+        }
+
+        long oldHandle = buf.handle;
+        long handle = chunk.parent.grow(chunk, oldHandle, normalizeCapacity(newCapacity));
+        if (handle < 0) {
+            return false;
+        }
+
+        Pair<Long, Long> oldInMemoryKey = new Pair<Long, Long>(chunk.getId(), oldHandle);
+        assert PooledByteBuf.getInMemoryMap().get(oldInMemoryKey) == buf.id;
+        PooledByteBuf.getInMemoryMap().remove(oldInMemoryKey);
+
+        int readerIndex = buf.readerIndex();
+        int writerIndex = buf.writerIndex();
+        chunk.initBuf(buf, handle, newCapacity);
+        buf.setIndex(readerIndex, writerIndex);
+        growInPlaceCount.incrementAndGet();
+        return true;
     }
 
     public static int getMemoryOccupationInMB() {
         return memoryOccupationInMB.get();
     }
 
+    static long getSwapOutCount() {
+        return swapOutCount.get();
+    }
+
+    static long getSwapInCount() {
+        return swapInCount.get();
+    }
+
+    static long getGrowInPlaceCount() {
+        return growInPlaceCount.get();
+    }
+
     protected abstract BlockDisk<T> getBlockDisk();
+    protected abstract CompressedSwap<T> getCompressedSwap();
     protected abstract T newMemory(int capacity);
     protected abstract void freeMemory(T memory);
     protected abstract PoolChunk<T> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize);
     protected abstract PoolChunk<T> newUnpooledChunk(int capacity);
-    protected abstract PooledByteBuf<T> newByteBuf(int maxCapacity);
+    protected abstract PooledByteBuf<T> newByteBuf(int maxCapacity, ByteOrder order);
     protected abstract void memoryCopy(T src, int srcOffset, T dst, int dstOffset, int length);
     protected abstract void destroyChunk(PoolChunk<T> chunk);
 
@@ -520,7 +691,10 @@ abstract class PoolArena<T> {
         }
 
         @Override
-        protected PooledByteBuf<byte[]> newByteBuf(int maxCapacity) {
+        protected PooledByteBuf<byte[]> newByteBuf(int maxCapacity, ByteOrder order) {
+            if (order == ByteOrder.LITTLE_ENDIAN) {
+                return PooledLittleEndianHeapByteBuf.newInstance(maxCapacity);
+            }
             return PooledHeapByteBuf.newInstance(maxCapacity);
         }
 
@@ -547,6 +721,11 @@ abstract class PoolArena<T> {
         protected BlockDisk<byte[]> getBlockDisk() {
             return PooledByteBufAllocator.getHeapBlockDisk();
         }
+
+        @Override
+        protected CompressedSwap<byte[]> getCompressedSwap() {
+            return PooledByteBufAllocator.getHeapCompressedSwap();
+        }
     }
 
     static final class DirectArena extends PoolArena<ByteBuffer> {
@@ -577,8 +756,11 @@ abstract class PoolArena<T> {
         }
 
         @Override
-        protected PooledByteBuf<ByteBuffer> newByteBuf(int maxCapacity) {
+        protected PooledByteBuf<ByteBuffer> newByteBuf(int maxCapacity, ByteOrder order) {
             if (HAS_UNSAFE) {
+                if (order == ByteOrder.LITTLE_ENDIAN) {
+                    return PooledLittleEndianUnsafeDirectByteBuf.newInstance(maxCapacity);
+                }
                 return PooledUnsafeDirectByteBuf.newInstance(maxCapacity);
             } else {
                 return PooledDirectByteBuf.newInstance(maxCapacity);
@@ -620,5 +802,10 @@ abstract class PoolArena<T> {
         protected BlockDisk<ByteBuffer> getBlockDisk() {
             return PooledByteBufAllocator.getDirectBlockDisk();
         }
+
+        @Override
+        protected CompressedSwap<ByteBuffer> getCompressedSwap() {
+            return PooledByteBufAllocator.getDirectCompressedSwap();
+        }
     }
 }
@@ -125,7 +125,7 @@ final class PoolChunk<T> {
         return 100 - freePercentage;
     }
 
-    Pair<PoolChunk<T>, Long> findSwappable(PooledByteBuf<T> buf, int normCapacity) {
+    Pair<PoolChunk<T>, Long> findSwappable(PooledByteBuf<T> buf, int normCapacity, SwapPriority priority) {
         ConcurrentHashMapV8<Pair<Long, Long>, Long> inMemoryMap = PooledByteBuf.getInMemoryMap();
         ConcurrentHashMapV8<Long, int[]> onDiskMap = PooledByteBuf.getOnDiskMap();
 
@@ -151,6 +151,11 @@ final class PoolChunk<T> {
                 Pair<Long, Long> inMemoryKey = new Pair<Long, Long>(id, (long)curIdx);
 
                 assert inMemoryMap.containsKey(inMemoryKey);
+                long bufId = inMemoryMap.get(inMemoryKey);
+                if (PooledByteBuf.isPinned(bufId) || PooledByteBuf.getSwapPriority(bufId) != priority) {
+                    continue;
+                }
+
                 assert !onDiskMap.containsKey(inMemoryMap.get(inMemoryKey));
                 assert inMemoryMap.get(inMemoryKey) != buf.id;
 
@@ -332,6 +337,45 @@ final class PoolChunk<T> {
         }
     }
 
+    /**
+     * Grows the run of {@code handle} to {@code normCapacity} bytes without moving it, by merging it with the buddies
+     * that follow it. This is possible only if the run is the first half of each bigger run up to the new size, and
+     * the other halves are unused.
+     *
+     * @return the handle of the grown run, or {@code -1} if it can not grow in place
+     */
+    long grow(long handle, int normCapacity) {
+        if ((int) (handle >>> 32) != 0) {
+            // an element of a subpage
+            return -1;
+        }
+
+        int memoryMapIdx = (int) handle;
+        int val = memoryMap[memoryMapIdx];
+        assert (val & 3) == ST_ALLOCATED : String.valueOf(val & 3);
+
+        int oldRunLength = runLength(val);
+        int runLength = oldRunLength;
+        int curIdx = memoryMapIdx;
+        while (runLength < normCapacity) {
+            // a second half can not grow without moving, and the root has no buddy
+            if ((curIdx & 1) != 0 || (memoryMap[siblingIdx(curIdx)] & 3) != ST_UNUSED) {
+                return -1;
+            }
+            curIdx = parentIdx(curIdx);
+            runLength <<= 1;
+        }
+
+        // the nodes below the grown run are never visited while it is allocated, but are left unused for free()
+        for (int idx = memoryMapIdx; idx != curIdx; idx = parentIdx(idx)) {
+            //noinspection PointlessBitwiseExpression
+            memoryMap[idx] = memoryMap[idx] & ~3 | ST_UNUSED;
+        }
+        memoryMap[curIdx] = memoryMap[curIdx] & ~3 | ST_ALLOCATED;
+        freeBytes -= runLength - oldRunLength;
+        return curIdx;
+    }
+
     void initBuf(PooledByteBuf<T> buf, long handle, int reqCapacity) {
         int memoryMapIdx = (int) handle;
         int bitmapIdx = (int) (handle >>> 32);
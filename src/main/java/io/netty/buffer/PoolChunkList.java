@@ -62,14 +62,15 @@ final class PoolChunkList<T> {
         }
     }
 
-    Pair<PoolChunk<T>, Long> findSwappable(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+    Pair<PoolChunk<T>, Long> findSwappable(
+            PooledByteBuf<T> buf, int reqCapacity, int normCapacity, SwapPriority priority) {
         if (head == null) {
             return null;
         }
 
         Pair<PoolChunk<T>, Long> findResult = null;
         for (PoolChunk<T> currentChunk = head; currentChunk != null; currentChunk = currentChunk.next) {
-            findResult = currentChunk.findSwappable(buf, normCapacity);
+            findResult = currentChunk.findSwappable(buf, normCapacity, priority);
             if (findResult != null) {
                 return findResult;
             }
@@ -92,6 +93,15 @@ final class PoolChunkList<T> {
         }
     }
 
+    long grow(PoolChunk<T> chunk, long handle, int normCapacity) {
+        long newHandle = chunk.grow(handle, normCapacity);
+        if (newHandle >= 0 && chunk.usage() >= maxUsage) {
+            remove(chunk);
+            nextList.add(chunk);
+        }
+        return newHandle;
+    }
+
     void add(PoolChunk<T> chunk) {
         if (chunk.usage() >= maxUsage) {
             nextList.add(chunk);
@@ -19,11 +19,16 @@ package io.netty.buffer;
 import io.netty.util.Pair;
 import io.netty.util.Recycler;
 import io.netty.util.ResourceLeak;
+import io.netty.util.internal.ConcurrentSet;
 import io.netty.util.internal.chmv8.ConcurrentHashMapV8;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.atomic.AtomicLong;
 
 abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
@@ -35,6 +40,14 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
     // PooledByteBufID -> disk blocks
     private static final ConcurrentHashMapV8<Long, int[]> onDiskMap =
         new ConcurrentHashMapV8<Long, int[]>();
+    // PooledByteBufID -> compressed data
+    private static final ConcurrentHashMapV8<Long, ByteBuffer> compressedMap =
+        new ConcurrentHashMapV8<Long, ByteBuffer>();
+    // PooledByteBufIDs that must not be swapped out
+    private static final ConcurrentSet<Long> pinnedSet = new ConcurrentSet<Long>();
+    // PooledByteBufID -> swap priority, for buffers whose priority is not NORMAL
+    private static final ConcurrentHashMapV8<Long, SwapPriority> swapPriorityMap =
+        new ConcurrentHashMapV8<Long, SwapPriority>();
 
     private final ResourceLeak leak;
     private final Recycler.Handle recyclerHandle;
@@ -47,9 +60,19 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
     protected int offset;
     protected int length;
     private int maxLength;
+    // only modified while holding the arena lock, so that swapOut() sees a consistent value
+    private volatile int pinCount;
+    private SwapPriority swapPriority = SwapPriority.NORMAL;
+    private BufferSizePredictor sizePredictor;
 
     private ByteBuffer tmpNioBuf;
 
+    // the thread which allocated this buffer, until it is released
+    Thread allocatingThread;
+    // set while this buffer is queued to be freed by its arena
+    long deferredFreeHandle;
+    PooledByteBuf<T> nextDeferredFree;
+
     protected PooledByteBuf(Recycler.Handle recyclerHandle, int maxCapacity) {
         super(maxCapacity);
         leak = leakDetector.open(this);
@@ -145,7 +168,7 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
     }
 
     @Override
-    public final ByteOrder order() {
+    public ByteOrder order() {
         return ByteOrder.BIG_ENDIAN;
     }
 
@@ -154,9 +177,21 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
         return null;
     }
 
+    @Override
+    public final ByteBuf retainedSlice(int index, int length) {
+        ensureAccessible();
+        return PooledSlicedByteBuf.newInstance(this, this, index, length);
+    }
+
+    @Override
+    public final ByteBuf retainedDuplicate() {
+        ensureAccessible();
+        return PooledDuplicatedByteBuf.newInstance(this, this, readerIndex(), writerIndex());
+    }
+
     protected final ByteBuffer internalNioBuffer() {
         ByteBuffer tmpNioBuf = this.tmpNioBuf;
-        if (tmpNioBuf == null || isOnDisk()) {
+        if (tmpNioBuf == null || isSwappedOut()) {
             swapInIfNeeded();
             this.tmpNioBuf = tmpNioBuf = newInternalNioBuffer(memory);
         }
@@ -165,22 +200,100 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
 
     protected abstract ByteBuffer newInternalNioBuffer(T memory);
 
+    @Override
+    public final ByteBuf pin() {
+        ensureAccessible();
+
+        // lock order is buffer, then arena, as in swapInIfNeeded()
+        synchronized (this) {
+            for (;;) {
+                swapInIfNeeded();
+                synchronized (chunk.arena) {
+                    // nothing can be swapped out while we hold the arena lock
+                    if (!isSwappedOut()) {
+                        if (pinCount ++ == 0) {
+                            pinnedSet.add(id);
+                        }
+                        return this;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public final ByteBuf unpin() {
+        synchronized (chunk.arena) {
+            if (pinCount == 0) {
+                throw new IllegalStateException("not pinned");
+            }
+            if (-- pinCount == 0) {
+                pinnedSet.remove(id);
+            }
+        }
+        return this;
+    }
+
+    void swapPriority(SwapPriority swapPriority) {
+        if (swapPriority == null) {
+            throw new NullPointerException("swapPriority");
+        }
+
+        this.swapPriority = swapPriority;
+        if (swapPriority == SwapPriority.NORMAL) {
+            swapPriorityMap.remove(id);
+        } else {
+            swapPriorityMap.put(id, swapPriority);
+        }
+    }
+
+    void sizePredictor(BufferSizePredictor sizePredictor) {
+        this.sizePredictor = sizePredictor;
+    }
+
     @Override
     protected final void deallocate() {
+        BufferSizePredictor sizePredictor = this.sizePredictor;
+        if (sizePredictor != null) {
+            this.sizePredictor = null;
+            sizePredictor.record(writerIndex());
+        }
+        if (pinCount != 0) {
+            synchronized (chunk.arena) {
+                pinCount = 0;
+                pinnedSet.remove(id);
+            }
+        }
+        if (swapPriority != SwapPriority.NORMAL) {
+            swapPriority(SwapPriority.NORMAL);
+        }
         if (handle >= 0) {
             final long handle = this.handle;
             this.handle = -1;
             memory = null;
-            chunk.arena.freeAll(chunk, handle, id);
 
             if (leak != null) {
                 leak.close();
-            } else {
-                recycle();
+            }
+
+            AllocationTraceRecorder recorder = PooledByteBufAllocator.getTraceRecorder();
+            if (recorder != null) {
+                // recorded before freeing, as a buffer queued for freeing may be reused by another thread
+                // before freeOrDefer() returns
+                recorder.record(AllocationTraceRecorder.FREE, isDirect(), id, length, System.nanoTime());
+            }
+            if (chunk.arena.freeOrDefer(this, handle)) {
+                recycleIfNotTracked();
             }
         }
     }
 
+    void recycleIfNotTracked() {
+        if (leak == null) {
+            recycle();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private void recycle() {
         Recycler.Handle recyclerHandle = this.recyclerHandle;
@@ -203,17 +316,82 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
         return onDiskMap;
     }
 
-    protected boolean isOnDisk() {
-        return onDiskMap.containsKey(id);
+    public static ConcurrentHashMapV8<Long, ByteBuffer> getCompressedMap() {
+        return compressedMap;
+    }
+
+    static boolean isPinned(long id) {
+        return pinnedSet.contains(id);
+    }
+
+    static SwapPriority getSwapPriority(long id) {
+        SwapPriority swapPriority = swapPriorityMap.get(id);
+        return swapPriority == null ? SwapPriority.NORMAL : swapPriority;
+    }
+
+    protected boolean isSwappedOut() {
+        return onDiskMap.containsKey(id) || compressedMap.containsKey(id);
+    }
+
+    /**
+     * Writes the content of a buffer that has been swapped out to disk straight from the swap file,
+     * leaving the buffer swapped out.
+     *
+     * @return the number of bytes written, or {@code -1} if the content is not on disk
+     */
+    protected final int getBytesFromDisk(int index, WritableByteChannel out, int length) throws IOException {
+        if (!onDiskMap.containsKey(id)) {
+            return -1;
+        }
+
+        // swapInIfNeeded() also locks on this buffer, so the blocks can not go away while being transferred
+        synchronized (this) {
+            int[] blocks = onDiskMap.get(id);
+            if (blocks == null) {
+                return -1;
+            }
+            return (int) chunk.arena.getBlockDisk().transferTo(blocks, index, length, out);
+        }
+    }
+
+    /**
+     * Same as {@link #getBytesFromDisk(int, WritableByteChannel, int)}, but writes all {@code length} bytes.
+     *
+     * @return {@code false} if the content is not on disk
+     */
+    protected final boolean getBytesFromDisk(int index, OutputStream out, int length) throws IOException {
+        if (!onDiskMap.containsKey(id)) {
+            return false;
+        }
+
+        WritableByteChannel channel = Channels.newChannel(out);
+        synchronized (this) {
+            int[] blocks = onDiskMap.get(id);
+            if (blocks == null) {
+                return false;
+            }
+            long transferred = 0;
+            while (transferred < length) {
+                long n = chunk.arena.getBlockDisk().transferTo(
+                        blocks, index + transferred, length - transferred, channel);
+                if (n <= 0) {
+                    throw new EOFException(
+                            "swapped out content ended after " + transferred + " of " + length + " bytes");
+                }
+                transferred += n;
+            }
+            return true;
+        }
     }
 
     protected void swapInIfNeeded() {
-        if (!isOnDisk()) {
+        // a pinned buffer is always in memory
+        if (pinCount != 0 || !isSwappedOut()) {
             return;
         }
 
         synchronized (this) {
-            if (!isOnDisk()) {
+            if (!isSwappedOut()) {
                 return;
             }
 
@@ -222,11 +400,16 @@ abstract class PooledByteBuf<T> extends AbstractReferenceCountedByteBuf {
             int oldLength = length;
             int oldMaxLength = maxLength;
 
+            AllocationTraceRecorder recorder = PooledByteBufAllocator.getTraceRecorder();
+            long startNanos = recorder != null ? System.nanoTime() : 0;
             try {
                 chunk.arena.swapIn(this, oldLength, oldMaxLength);
             } catch (IOException iox) {
                 throw new RuntimeException(iox);
             }
+            if (recorder != null) {
+                recorder.record(AllocationTraceRecorder.SWAP_IN, isDirect(), id, oldLength, startNanos);
+            }
 
             assert oldId == this.id;
             assert oldRefCnt == refCnt();
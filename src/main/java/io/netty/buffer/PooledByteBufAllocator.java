@@ -17,15 +17,19 @@
 package io.netty.buffer;
 
 import io.netty.disk.BlockDisk;
+import io.netty.disk.CompressedSwap;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.chmv8.ConcurrentHashMapV8;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -47,6 +51,17 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
     private static final BlockDisk<byte[]> heapBlockDisk;
     private static final BlockDisk<ByteBuffer> directBlockDisk;
 
+    private static final int DEFAULT_COMPRESSED_SWAP_MEMORY_MB;    // in MB, default to 0 (disabled)
+
+    private static final CompressedSwap<byte[]> heapCompressedSwap;
+    private static final CompressedSwap<ByteBuffer> directCompressedSwap;
+
+    // number of buffers released by other threads that an arena frees at once, 0 to free them right away
+    private static final int DEFAULT_DEFERRED_FREE_BATCH;
+
+    // null unless traceFile is configured
+    private static volatile AllocationTraceRecorder traceRecorder;
+
     static {
         Properties allocatorProperties = new Properties();
         try {
@@ -127,6 +142,29 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             throw new RuntimeException(iox);
         }
 
+        int defaultCompressedSwapMemory = Integer.valueOf(allocatorProperties.getProperty("compressedSwapMemory", "0"));
+        DEFAULT_COMPRESSED_SWAP_MEMORY_MB = Math.max(0, defaultCompressedSwapMemory);
+        heapCompressedSwap = new CompressedSwap.HeapCompressedSwap((long) DEFAULT_COMPRESSED_SWAP_MEMORY_MB << 20);
+        directCompressedSwap = new CompressedSwap.DirectCompressedSwap((long) DEFAULT_COMPRESSED_SWAP_MEMORY_MB << 20);
+
+        int defaultDeferredFreeBatch = Integer.valueOf(allocatorProperties.getProperty("deferredFreeBatch", "0"));
+        DEFAULT_DEFERRED_FREE_BATCH = Math.max(0, defaultDeferredFreeBatch);
+
+        String traceFile = allocatorProperties.getProperty("traceFile");
+        if (traceFile != null && traceFile.length() != 0) {
+            try {
+                setTraceRecorder(new AllocationTraceRecorder(new FileOutputStream(traceFile)));
+            } catch (IOException iox) {
+                throw new RuntimeException(iox);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    setTraceRecorder(null);
+                }
+            });
+        }
+
         if (logger.isDebugEnabled()) {
             logger.debug("numHeapArenas: {}", DEFAULT_NUM_HEAP_ARENA);
             logger.debug("numDirectArenas: {}", DEFAULT_NUM_DIRECT_ARENA);
@@ -146,6 +184,9 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
             } else {
                 logger.debug("maxMemory: {}", DEFAULT_MAX_MEMORY_MB, maxMemoryFallbackCause);
             }
+            logger.debug("compressedSwapMemory: {}", DEFAULT_COMPRESSED_SWAP_MEMORY_MB);
+            logger.debug("deferredFreeBatch: {}", DEFAULT_DEFERRED_FREE_BATCH);
+            logger.debug("traceFile: {}", traceFile);
         }
     }
 
@@ -154,6 +195,8 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
     private final PoolArena<byte[]>[] heapArenas;
     private final PoolArena<ByteBuffer>[] directArenas;
+    private final ConcurrentHashMapV8<Object, BufferSizePredictor> sizePredictors =
+            new ConcurrentHashMapV8<Object, BufferSizePredictor>();
 
     final ThreadLocal<PoolThreadCache> threadCache = new ThreadLocal<PoolThreadCache>() {
         private final AtomicInteger index = new AtomicInteger();
@@ -183,7 +226,7 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         this(preferDirect, DEFAULT_NUM_HEAP_ARENA, DEFAULT_NUM_DIRECT_ARENA, DEFAULT_PAGE_SIZE, DEFAULT_MAX_ORDER);
     }
 
-    private PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder) {
+    PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder) {
         super(preferDirect);
 
         final int chunkSize = validateAndCalculateChunkSize(pageSize, maxOrder);
@@ -276,26 +319,154 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
 
     @Override
     protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+        return newHeapBuffer(initialCapacity, maxCapacity, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity, ByteOrder order) {
         PoolThreadCache cache = threadCache.get();
         PoolArena<byte[]> heapArena = cache.heapArena;
+        ByteBuf buf;
         if (heapArena != null) {
-            return heapArena.allocate(cache, initialCapacity, maxCapacity);
+            buf = heapArena.allocate(cache, initialCapacity, maxCapacity, order);
         } else {
-            return new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
+            buf = new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
         }
+        // does nothing if the buffer already has the requested order
+        return buf.order(order);
     }
 
     @Override
     protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+        return newDirectBuffer(initialCapacity, maxCapacity, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity, ByteOrder order) {
         PoolThreadCache cache = threadCache.get();
         PoolArena<ByteBuffer> directArena = cache.directArena;
+        ByteBuf buf;
         if (directArena != null) {
-            return directArena.allocate(cache, initialCapacity, maxCapacity);
+            buf = directArena.allocate(cache, initialCapacity, maxCapacity, order);
         } else {
             if (PlatformDependent.hasUnsafe()) {
-                return new UnpooledUnsafeDirectByteBuf(this, initialCapacity, maxCapacity);
+                buf = new UnpooledUnsafeDirectByteBuf(this, initialCapacity, maxCapacity);
             } else {
-                return new UnpooledDirectByteBuf(this, initialCapacity, maxCapacity);
+                buf = new UnpooledDirectByteBuf(this, initialCapacity, maxCapacity);
+            }
+        }
+        // does nothing if the buffer already has the requested order
+        return buf.order(order);
+    }
+
+    /**
+     * Allocates a buffer like {@link #buffer(int, int)} does, and tells the allocator how willing it should be
+     * to swap it out.
+     */
+    public ByteBuf buffer(int initialCapacity, int maxCapacity, SwapPriority swapPriority) {
+        return swapPriority(buffer(initialCapacity, maxCapacity), swapPriority);
+    }
+
+    /**
+     * Same as {@link #buffer(int, int, SwapPriority)} but always allocates a heap buffer.
+     */
+    public ByteBuf heapBuffer(int initialCapacity, int maxCapacity, SwapPriority swapPriority) {
+        return swapPriority(heapBuffer(initialCapacity, maxCapacity), swapPriority);
+    }
+
+    /**
+     * Same as {@link #buffer(int, int, SwapPriority)} but always allocates a direct buffer.
+     */
+    public ByteBuf directBuffer(int initialCapacity, int maxCapacity, SwapPriority swapPriority) {
+        return swapPriority(directBuffer(initialCapacity, maxCapacity), swapPriority);
+    }
+
+    private static ByteBuf swapPriority(ByteBuf buf, SwapPriority swapPriority) {
+        if (buf instanceof PooledByteBuf) {
+            ((PooledByteBuf<?>) buf).swapPriority(swapPriority);
+        }
+        return buf;
+    }
+
+    /**
+     * Allocates a buffer like {@link #buffer()} does, but with the capacity {@code predictor} expects it to grow to,
+     * and records the {@link ByteBuf#writerIndex()} of the buffer in {@code predictor} when it is released.
+     */
+    public ByteBuf buffer(BufferSizePredictor predictor) {
+        return sizePredictor(buffer(predictor.nextCapacity()), predictor);
+    }
+
+    /**
+     * Same as {@link #buffer(BufferSizePredictor)} but always allocates a heap buffer.
+     */
+    public ByteBuf heapBuffer(BufferSizePredictor predictor) {
+        return sizePredictor(heapBuffer(predictor.nextCapacity()), predictor);
+    }
+
+    /**
+     * Same as {@link #buffer(BufferSizePredictor)} but always allocates a direct buffer.
+     */
+    public ByteBuf directBuffer(BufferSizePredictor predictor) {
+        return sizePredictor(directBuffer(predictor.nextCapacity()), predictor);
+    }
+
+    /**
+     * Returns the {@link BufferSizePredictor} of this allocator for {@code tag}, e.g. the class of an encoder,
+     * creating it on first use. Tags are never forgotten, so they should come from a small fixed set.
+     */
+    public BufferSizePredictor sizePredictor(Object tag) {
+        if (tag == null) {
+            throw new NullPointerException("tag");
+        }
+        BufferSizePredictor predictor = sizePredictors.get(tag);
+        if (predictor == null) {
+            predictor = new BufferSizePredictor();
+            BufferSizePredictor old = sizePredictors.putIfAbsent(tag, predictor);
+            if (old != null) {
+                predictor = old;
+            }
+        }
+        return predictor;
+    }
+
+    private static ByteBuf sizePredictor(ByteBuf buf, BufferSizePredictor predictor) {
+        // a buffer which is not pooled, as when there are no arenas, is sized but never recorded
+        if (buf instanceof PooledByteBuf) {
+            ((PooledByteBuf<?>) buf).sizePredictor(predictor);
+        }
+        return buf;
+    }
+
+    /**
+     * @return the number of runs swapped out since startup, over all pooled allocators
+     */
+    public static long getSwapOutCount() {
+        return PoolArena.getSwapOutCount();
+    }
+
+    /**
+     * @return the number of runs swapped back in since startup, over all pooled allocators
+     */
+    public static long getSwapInCount() {
+        return PoolArena.getSwapInCount();
+    }
+
+    static AllocationTraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    /**
+     * Replaces the recorder that pooled arenas write their allocation trace to, closing the previous one.
+     * {@code null} turns tracing off.
+     */
+    static void setTraceRecorder(AllocationTraceRecorder recorder) {
+        AllocationTraceRecorder old = traceRecorder;
+        traceRecorder = recorder;
+        if (old != null) {
+            try {
+                old.close();
+            } catch (IOException iox) {
+                logger.warn("failed to close allocation trace.", iox);
             }
         }
     }
@@ -312,6 +483,10 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         return DEFAULT_MAX_MEMORY_MB;
     }
 
+    static int getDefaultDeferredFreeBatch() {
+        return DEFAULT_DEFERRED_FREE_BATCH;
+    }
+
     public static BlockDisk<byte[]> getHeapBlockDisk() {
         return heapBlockDisk;
     }
@@ -320,6 +495,14 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator {
         return directBlockDisk;
     }
 
+    public static CompressedSwap<byte[]> getHeapCompressedSwap() {
+        return heapCompressedSwap;
+    }
+
+    public static CompressedSwap<ByteBuffer> getDirectCompressedSwap() {
+        return directCompressedSwap;
+    }
+
     @Override
     public boolean isDirectBufferPooled() {
         return directArenas != null;
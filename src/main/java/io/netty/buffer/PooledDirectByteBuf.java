@@ -132,6 +132,9 @@ final class PooledDirectByteBuf extends PooledByteBuf<ByteBuffer> {
         if (length == 0) {
             return this;
         }
+        if (getBytesFromDisk(index, out, length)) {
+            return this;
+        }
 
         byte[] tmp = new byte[length];
         ByteBuffer tmpBuf = internalNioBuffer();
@@ -147,6 +150,10 @@ final class PooledDirectByteBuf extends PooledByteBuf<ByteBuffer> {
         if (length == 0) {
             return 0;
         }
+        int written = getBytesFromDisk(index, out, length);
+        if (written >= 0) {
+            return written;
+        }
 
         ByteBuffer tmpBuf = internalNioBuffer();
         index = idx(index);
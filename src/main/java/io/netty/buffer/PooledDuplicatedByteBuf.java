@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import io.netty.util.Recycler;
+
+/**
+ * The recyclable duplicate returned by {@link ByteBuf#retainedDuplicate()} of a pooled buffer.
+ */
+final class PooledDuplicatedByteBuf extends AbstractPooledDerivedByteBuf {
+
+    private static final Recycler<PooledDuplicatedByteBuf> RECYCLER = new Recycler<PooledDuplicatedByteBuf>() {
+        @Override
+        protected PooledDuplicatedByteBuf newObject(Handle handle) {
+            return new PooledDuplicatedByteBuf(handle);
+        }
+    };
+
+    /**
+     * Returns a duplicate of {@code root} with the specified indexes, which holds a reference to {@code parent}.
+     */
+    static PooledDuplicatedByteBuf newInstance(AbstractByteBuf root, ByteBuf parent,
+                                               int readerIndex, int writerIndex) {
+        PooledDuplicatedByteBuf duplicate = RECYCLER.get();
+        duplicate.init(root, parent, 0, readerIndex, writerIndex, root.maxCapacity());
+        return duplicate;
+    }
+
+    private PooledDuplicatedByteBuf(Recycler.Handle recyclerHandle) {
+        super(recyclerHandle);
+    }
+
+    @Override
+    protected Recycler<?> recycler() {
+        return RECYCLER;
+    }
+
+    @Override
+    public int capacity() {
+        return unwrap().capacity();
+    }
+
+    @Override
+    public ByteBuf capacity(int newCapacity) {
+        unwrap().capacity(newCapacity);
+        return this;
+    }
+
+    @Override
+    public ByteBuf retainedDuplicate() {
+        ensureAccessible();
+        return newInstance(root(), this, readerIndex(), writerIndex());
+    }
+}
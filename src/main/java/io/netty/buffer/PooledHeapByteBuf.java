@@ -25,7 +25,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 
-final class PooledHeapByteBuf extends PooledByteBuf<byte[]> {
+class PooledHeapByteBuf extends PooledByteBuf<byte[]> {
 
     private static final Recycler<PooledHeapByteBuf> RECYCLER = new Recycler<PooledHeapByteBuf>() {
         @Override
@@ -41,7 +41,7 @@ final class PooledHeapByteBuf extends PooledByteBuf<byte[]> {
         return buf;
     }
 
-    private PooledHeapByteBuf(Recycler.Handle recyclerHandle, int maxCapacity) {
+    PooledHeapByteBuf(Recycler.Handle recyclerHandle, int maxCapacity) {
         super(recyclerHandle, maxCapacity);
     }
 
@@ -56,6 +56,48 @@ final class PooledHeapByteBuf extends PooledByteBuf<byte[]> {
         return memory[idx(index)];
     }
 
+    @Override
+    int firstIndexOf0(int fromIndex, int toIndex, byte value) {
+        swapInIfNeeded();
+        int index = ByteBufUtil.firstIndexOf(memory, idx(fromIndex), idx(toIndex), value);
+        return index < 0 ? -1 : index - offset;
+    }
+
+    @Override
+    int lastIndexOf0(int fromIndex, int toIndex, byte value) {
+        swapInIfNeeded();
+        int index = ByteBufUtil.lastIndexOf(memory, idx(fromIndex), idx(toIndex), value);
+        return index < 0 ? -1 : index - offset;
+    }
+
+    @Override
+    long _getLongLE(int index) {
+        swapInIfNeeded();
+        return ByteBufUtil.getLongLE(memory, idx(index));
+    }
+
+    @Override
+    void _setBytesLE(int index, long word, int length) {
+        swapInIfNeeded();
+        ByteBufUtil.setBytesLE(memory, idx(index), word, length);
+    }
+
+    @Override
+    boolean _getPrimitives(int index, Object dst, long dstOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        swapInIfNeeded();
+        return ByteBufUtil.copyPrimitives(memory, PlatformDependent.byteArrayBaseOffset() + idx(index), dst, dstOffset,
+                                          length, elementSize, littleEndian);
+    }
+
+    @Override
+    boolean _setPrimitives(int index, Object src, long srcOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        swapInIfNeeded();
+        return ByteBufUtil.copyPrimitives(src, srcOffset, memory, PlatformDependent.byteArrayBaseOffset() + idx(index),
+                                          length, elementSize, littleEndian);
+    }
+
     @Override
     protected short _getShort(int index) {
         swapInIfNeeded();
@@ -129,6 +171,9 @@ final class PooledHeapByteBuf extends PooledByteBuf<byte[]> {
     @Override
     public ByteBuf getBytes(int index, OutputStream out, int length) throws IOException {
         checkIndex(index, length);
+        if (getBytesFromDisk(index, out, length)) {
+            return this;
+        }
         swapInIfNeeded();
         out.write(memory, idx(index), length);
         return this;
@@ -137,6 +182,10 @@ final class PooledHeapByteBuf extends PooledByteBuf<byte[]> {
     @Override
     public int getBytes(int index, GatheringByteChannel out, int length) throws IOException {
         checkIndex(index, length);
+        int written = getBytesFromDisk(index, out, length);
+        if (written >= 0) {
+            return written;
+        }
         index = idx(index);
         return out.write((ByteBuffer) internalNioBuffer().clear().position(index).limit(index + length));
     }
@@ -241,7 +290,7 @@ final class PooledHeapByteBuf extends PooledByteBuf<byte[]> {
     public ByteBuf copy(int index, int length) {
         checkIndex(index, length);
         swapInIfNeeded();
-        ByteBuf copy = alloc().heapBuffer(length, maxCapacity());
+        ByteBuf copy = alloc().heapBuffer(length, maxCapacity(), order());
         copy.writeBytes(memory, idx(index), length);
         return copy;
     }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import io.netty.util.Recycler;
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link PooledHeapByteBuf} whose {@link #order()} is {@link ByteOrder#LITTLE_ENDIAN}, which reads and writes
+ * its primitives without the {@link SwappedByteBuf} that {@link #order(ByteOrder)} would add.
+ */
+final class PooledLittleEndianHeapByteBuf extends PooledHeapByteBuf {
+
+    private static final boolean WORD_ACCESS = PlatformDependent.isUnaligned();
+    private static final boolean NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    private static final long BYTE_ARRAY_BASE_OFFSET = PlatformDependent.byteArrayBaseOffset();
+
+    private static final Recycler<PooledLittleEndianHeapByteBuf> RECYCLER =
+            new Recycler<PooledLittleEndianHeapByteBuf>() {
+        @Override
+        protected PooledLittleEndianHeapByteBuf newObject(Handle handle) {
+            return new PooledLittleEndianHeapByteBuf(handle, 0);
+        }
+    };
+
+    static PooledLittleEndianHeapByteBuf newInstance(int maxCapacity) {
+        PooledLittleEndianHeapByteBuf buf = RECYCLER.get();
+        buf.setRefCnt(1);
+        buf.maxCapacity(maxCapacity);
+        return buf;
+    }
+
+    private PooledLittleEndianHeapByteBuf(Recycler.Handle recyclerHandle, int maxCapacity) {
+        super(recyclerHandle, maxCapacity);
+    }
+
+    @Override
+    public ByteOrder order() {
+        return ByteOrder.LITTLE_ENDIAN;
+    }
+
+    @Override
+    protected short _getShort(int index) {
+        swapInIfNeeded();
+        index = idx(index);
+        return (short) (memory[index] & 0xFF | memory[index + 1] << 8);
+    }
+
+    @Override
+    protected int _getUnsignedMedium(int index) {
+        swapInIfNeeded();
+        index = idx(index);
+        return  memory[index]     & 0xff        |
+               (memory[index + 1] & 0xff) <<  8 |
+               (memory[index + 2] & 0xff) << 16;
+    }
+
+    @Override
+    protected int _getInt(int index) {
+        swapInIfNeeded();
+        index = idx(index);
+        if (WORD_ACCESS) {
+            int v = PlatformDependent.getInt(memory, BYTE_ARRAY_BASE_OFFSET + index);
+            return NATIVE_ORDER ? v : Integer.reverseBytes(v);
+        }
+        return  memory[index]     & 0xff        |
+               (memory[index + 1] & 0xff) <<  8 |
+               (memory[index + 2] & 0xff) << 16 |
+                memory[index + 3]         << 24;
+    }
+
+    @Override
+    protected long _getLong(int index) {
+        swapInIfNeeded();
+        return ByteBufUtil.getLongLE(memory, idx(index));
+    }
+
+    @Override
+    protected void _setShort(int index, int value) {
+        swapInIfNeeded();
+        index = idx(index);
+        memory[index]     = (byte) value;
+        memory[index + 1] = (byte) (value >>> 8);
+    }
+
+    @Override
+    protected void _setMedium(int index, int value) {
+        swapInIfNeeded();
+        index = idx(index);
+        memory[index]     = (byte) value;
+        memory[index + 1] = (byte) (value >>> 8);
+        memory[index + 2] = (byte) (value >>> 16);
+    }
+
+    @Override
+    protected void _setInt(int index, int value) {
+        swapInIfNeeded();
+        index = idx(index);
+        if (WORD_ACCESS) {
+            PlatformDependent.putInt(memory, BYTE_ARRAY_BASE_OFFSET + index,
+                                     NATIVE_ORDER ? value : Integer.reverseBytes(value));
+        } else {
+            ByteBufUtil.setBytesLE(memory, index, value, 4);
+        }
+    }
+
+    @Override
+    protected void _setLong(int index, long value) {
+        swapInIfNeeded();
+        index = idx(index);
+        if (WORD_ACCESS) {
+            PlatformDependent.putLong(memory, BYTE_ARRAY_BASE_OFFSET + index,
+                                      NATIVE_ORDER ? value : Long.reverseBytes(value));
+        } else {
+            ByteBufUtil.setBytesLE(memory, index, value, 8);
+        }
+    }
+
+    @Override
+    public ByteBuffer nioBuffer(int index, int length) {
+        return super.nioBuffer(index, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    protected Recycler<?> recycler() {
+        return RECYCLER;
+    }
+}
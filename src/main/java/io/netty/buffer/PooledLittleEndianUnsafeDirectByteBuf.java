@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import io.netty.util.Recycler;
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link PooledUnsafeDirectByteBuf} whose {@link #order()} is {@link ByteOrder#LITTLE_ENDIAN}, which reads and
+ * writes its primitives with plain loads and stores on little-endian hosts.
+ */
+final class PooledLittleEndianUnsafeDirectByteBuf extends PooledUnsafeDirectByteBuf {
+
+    private static final boolean NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private static final Recycler<PooledLittleEndianUnsafeDirectByteBuf> RECYCLER =
+            new Recycler<PooledLittleEndianUnsafeDirectByteBuf>() {
+        @Override
+        protected PooledLittleEndianUnsafeDirectByteBuf newObject(Handle handle) {
+            return new PooledLittleEndianUnsafeDirectByteBuf(handle, 0);
+        }
+    };
+
+    static PooledLittleEndianUnsafeDirectByteBuf newInstance(int maxCapacity) {
+        PooledLittleEndianUnsafeDirectByteBuf buf = RECYCLER.get();
+        buf.setRefCnt(1);
+        buf.maxCapacity(maxCapacity);
+        return buf;
+    }
+
+    private PooledLittleEndianUnsafeDirectByteBuf(Recycler.Handle recyclerHandle, int maxCapacity) {
+        super(recyclerHandle, maxCapacity);
+    }
+
+    @Override
+    public ByteOrder order() {
+        return ByteOrder.LITTLE_ENDIAN;
+    }
+
+    @Override
+    protected short _getShort(int index) {
+        swapInIfNeeded();
+        short v = PlatformDependent.getShort(addr(index));
+        return NATIVE_ORDER ? v : Short.reverseBytes(v);
+    }
+
+    @Override
+    protected int _getUnsignedMedium(int index) {
+        swapInIfNeeded();
+        long addr = addr(index);
+        return PlatformDependent.getByte(addr) & 0xff |
+                (PlatformDependent.getByte(addr + 1) & 0xff) << 8 |
+                (PlatformDependent.getByte(addr + 2) & 0xff) << 16;
+    }
+
+    @Override
+    protected int _getInt(int index) {
+        swapInIfNeeded();
+        int v = PlatformDependent.getInt(addr(index));
+        return NATIVE_ORDER ? v : Integer.reverseBytes(v);
+    }
+
+    @Override
+    protected long _getLong(int index) {
+        swapInIfNeeded();
+        long v = PlatformDependent.getLong(addr(index));
+        return NATIVE_ORDER ? v : Long.reverseBytes(v);
+    }
+
+    @Override
+    protected void _setShort(int index, int value) {
+        swapInIfNeeded();
+        PlatformDependent.putShort(addr(index), NATIVE_ORDER ? (short) value : Short.reverseBytes((short) value));
+    }
+
+    @Override
+    protected void _setMedium(int index, int value) {
+        swapInIfNeeded();
+        long addr = addr(index);
+        PlatformDependent.putByte(addr, (byte) value);
+        PlatformDependent.putByte(addr + 1, (byte) (value >>> 8));
+        PlatformDependent.putByte(addr + 2, (byte) (value >>> 16));
+    }
+
+    @Override
+    protected void _setInt(int index, int value) {
+        swapInIfNeeded();
+        PlatformDependent.putInt(addr(index), NATIVE_ORDER ? value : Integer.reverseBytes(value));
+    }
+
+    @Override
+    protected void _setLong(int index, long value) {
+        swapInIfNeeded();
+        PlatformDependent.putLong(addr(index), NATIVE_ORDER ? value : Long.reverseBytes(value));
+    }
+
+    @Override
+    public ByteBuffer nioBuffer(int index, int length) {
+        return super.nioBuffer(index, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    protected Recycler<?> recycler() {
+        return RECYCLER;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import io.netty.util.Recycler;
+
+/**
+ * The recyclable slice returned by {@link ByteBuf#retainedSlice(int, int)} of a pooled buffer.
+ */
+final class PooledSlicedByteBuf extends AbstractPooledDerivedByteBuf {
+
+    private static final Recycler<PooledSlicedByteBuf> RECYCLER = new Recycler<PooledSlicedByteBuf>() {
+        @Override
+        protected PooledSlicedByteBuf newObject(Handle handle) {
+            return new PooledSlicedByteBuf(handle);
+        }
+    };
+
+    /**
+     * Returns a slice of {@code root} from {@code index}, which holds a reference to {@code parent}.
+     */
+    static PooledSlicedByteBuf newInstance(AbstractByteBuf root, ByteBuf parent, int index, int length) {
+        if (index < 0 || length < 0 || index > root.capacity() - length) {
+            throw new IndexOutOfBoundsException(parent.toString() + ".retainedSlice(" + index + ", " + length + ')');
+        }
+        PooledSlicedByteBuf slice = RECYCLER.get();
+        slice.length = length;
+        slice.init(root, parent, index, 0, length, length);
+        return slice;
+    }
+
+    private int length;
+
+    private PooledSlicedByteBuf(Recycler.Handle recyclerHandle) {
+        super(recyclerHandle);
+    }
+
+    @Override
+    protected Recycler<?> recycler() {
+        return RECYCLER;
+    }
+
+    @Override
+    public int capacity() {
+        return length;
+    }
+
+    @Override
+    public ByteBuf capacity(int newCapacity) {
+        throw new UnsupportedOperationException("sliced buffer");
+    }
+
+    @Override
+    public ByteBuf retainedDuplicate() {
+        ensureAccessible();
+        PooledSlicedByteBuf duplicate = newInstance(root(), this, idx(0), length);
+        duplicate.setIndex(readerIndex(), writerIndex());
+        return duplicate;
+    }
+}
@@ -28,7 +28,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 
-final class PooledUnsafeDirectByteBuf extends PooledByteBuf<ByteBuffer> {
+class PooledUnsafeDirectByteBuf extends PooledByteBuf<ByteBuffer> {
 
     private static final boolean NATIVE_ORDER = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
 
@@ -48,7 +48,7 @@ final class PooledUnsafeDirectByteBuf extends PooledByteBuf<ByteBuffer> {
 
     private long memoryAddress;
 
-    private PooledUnsafeDirectByteBuf(Recycler.Handle recyclerHandle, int maxCapacity) {
+    PooledUnsafeDirectByteBuf(Recycler.Handle recyclerHandle, int maxCapacity) {
         super(recyclerHandle, maxCapacity);
     }
 
@@ -84,6 +84,44 @@ final class PooledUnsafeDirectByteBuf extends PooledByteBuf<ByteBuffer> {
         return PlatformDependent.getByte(addr(index));
     }
 
+    @Override
+    int firstIndexOf0(int fromIndex, int toIndex, byte value) {
+        swapInIfNeeded();
+        return ByteBufUtil.firstIndexOf(memoryAddress, fromIndex, toIndex, value);
+    }
+
+    @Override
+    int lastIndexOf0(int fromIndex, int toIndex, byte value) {
+        swapInIfNeeded();
+        return ByteBufUtil.lastIndexOf(memoryAddress, fromIndex, toIndex, value);
+    }
+
+    @Override
+    long _getLongLE(int index) {
+        swapInIfNeeded();
+        return ByteBufUtil.getLongLE(addr(index));
+    }
+
+    @Override
+    void _setBytesLE(int index, long word, int length) {
+        swapInIfNeeded();
+        ByteBufUtil.setBytesLE(addr(index), word, length);
+    }
+
+    @Override
+    boolean _getPrimitives(int index, Object dst, long dstOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        swapInIfNeeded();
+        return ByteBufUtil.copyPrimitives(null, addr(index), dst, dstOffset, length, elementSize, littleEndian);
+    }
+
+    @Override
+    boolean _setPrimitives(int index, Object src, long srcOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        swapInIfNeeded();
+        return ByteBufUtil.copyPrimitives(src, srcOffset, null, addr(index), length, elementSize, littleEndian);
+    }
+
     @Override
     protected short _getShort(int index) {
         swapInIfNeeded();
@@ -167,7 +205,7 @@ final class PooledUnsafeDirectByteBuf extends PooledByteBuf<ByteBuffer> {
     @Override
     public ByteBuf getBytes(int index, OutputStream out, int length) throws IOException {
         checkIndex(index, length);
-        if (length != 0) {
+        if (length != 0 && !getBytesFromDisk(index, out, length)) {
             swapInIfNeeded();
             byte[] tmp = new byte[length];
             PlatformDependent.copyMemory(addr(index), tmp, 0, length);
@@ -182,6 +220,10 @@ final class PooledUnsafeDirectByteBuf extends PooledByteBuf<ByteBuffer> {
         if (length == 0) {
             return 0;
         }
+        int written = getBytesFromDisk(index, out, length);
+        if (written >= 0) {
+            return written;
+        }
 
         ByteBuffer tmpBuf = internalNioBuffer();
         index = idx(index);
@@ -297,7 +339,8 @@ final class PooledUnsafeDirectByteBuf extends PooledByteBuf<ByteBuffer> {
     @Override
     public ByteBuf copy(int index, int length) {
         checkIndex(index, length);
-        PooledUnsafeDirectByteBuf copy = (PooledUnsafeDirectByteBuf) alloc().directBuffer(length, maxCapacity());
+        PooledUnsafeDirectByteBuf copy =
+                (PooledUnsafeDirectByteBuf) alloc().directBuffer(length, maxCapacity(), order());
         if (length != 0) {
             swapInIfNeeded();
             PlatformDependent.copyMemory(addr(index), copy.addr(0), length);
@@ -353,10 +396,11 @@ final class PooledUnsafeDirectByteBuf extends PooledByteBuf<ByteBuffer> {
 
     @Override
     public long memoryAddress() {
+        swapInIfNeeded();
         return memoryAddress;
     }
 
-    private long addr(int index) {
+    final long addr(int index) {
         return memoryAddress + index;
     }
 
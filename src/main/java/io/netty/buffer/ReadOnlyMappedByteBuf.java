@@ -0,0 +1,40 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.MappedByteBuffer;
+
+/**
+ * Same as {@link UnpooledMappedByteBuf} for a read-only file mapping. Unlike a writable one, it does not expose its
+ * {@link #memoryAddress()}, which other buffers would write to directly.
+ */
+final class ReadOnlyMappedByteBuf extends ReadOnlyUnsafeDirectByteBuf {
+
+    private final MappedByteBuffer mapping;
+
+    ReadOnlyMappedByteBuf(ByteBufAllocator alloc, MappedByteBuffer mapping) {
+        super(alloc, mapping);
+        this.mapping = mapping;
+    }
+
+    @Override
+    protected void deallocate() {
+        super.deallocate();
+        PlatformDependent.freeDirectBuffer(mapping);
+    }
+}
@@ -117,6 +117,32 @@ public class SlicedByteBuf extends AbstractDerivedByteBuf {
         return buffer.getByte(index + adjustment);
     }
 
+    @Override
+    int firstIndexOf0(int fromIndex, int toIndex, byte value) {
+        int index = buffer.indexOf(fromIndex + adjustment, toIndex + adjustment, value);
+        return index < 0 ? -1 : index - adjustment;
+    }
+
+    @Override
+    int lastIndexOf0(int fromIndex, int toIndex, byte value) {
+        int index = buffer.indexOf(toIndex + adjustment, fromIndex + adjustment, value);
+        return index < 0 ? -1 : index - adjustment;
+    }
+
+    @Override
+    boolean _getPrimitives(int index, Object dst, long dstOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        return buffer instanceof AbstractByteBuf && ((AbstractByteBuf) buffer)._getPrimitives(
+                index + adjustment, dst, dstOffset, length, elementSize, littleEndian);
+    }
+
+    @Override
+    boolean _setPrimitives(int index, Object src, long srcOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        return buffer instanceof AbstractByteBuf && ((AbstractByteBuf) buffer)._setPrimitives(
+                index + adjustment, src, srcOffset, length, elementSize, littleEndian);
+    }
+
     @Override
     protected short _getShort(int index) {
         return buffer.getShort(index + adjustment);
@@ -159,6 +185,12 @@ public class SlicedByteBuf extends AbstractDerivedByteBuf {
         return buffer.slice(index + adjustment, length);
     }
 
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        checkIndex(index, length);
+        return buffer.retainedSlice(index + adjustment, length);
+    }
+
     @Override
     public ByteBuf getBytes(int index, ByteBuf dst, int dstIndex, int length) {
         checkIndex(index, length);
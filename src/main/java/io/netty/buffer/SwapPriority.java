@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+/**
+ * Tells {@link PooledByteBufAllocator} how willing it should be to swap out a buffer when it runs out of memory.
+ */
+public enum SwapPriority {
+    /**
+     * Swapped out before any {@link #NORMAL} buffer, e.g. for scratch or spill data.
+     */
+    EVICT_FIRST,
+    /**
+     * The default.
+     */
+    NORMAL,
+    /**
+     * Never swapped out, e.g. for latency critical buffers.
+     */
+    NEVER_EVICT
+}
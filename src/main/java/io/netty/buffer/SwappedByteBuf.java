@@ -49,6 +49,18 @@ public final class SwappedByteBuf extends ByteBuf {
         throw new UnsupportedOperationException("not implemented");
     }
 
+    @Override
+    public ByteBuf pin() {
+        buf.pin();
+        return this;
+    }
+
+    @Override
+    public ByteBuf unpin() {
+        buf.unpin();
+        return this;
+    }
+
     @Override
     public ByteOrder order() {
         return order;
@@ -307,6 +319,54 @@ public final class SwappedByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        if (buf instanceof AbstractByteBuf) {
+            ((AbstractByteBuf) buf).getInts(index, dst, dstIndex, length, order == ByteOrder.LITTLE_ENDIAN);
+        } else {
+            for (int i = 0; i < length; i ++) {
+                dst[dstIndex + i] = getInt(index + (i << 2));
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        if (buf instanceof AbstractByteBuf) {
+            ((AbstractByteBuf) buf).getLongs(index, dst, dstIndex, length, order == ByteOrder.LITTLE_ENDIAN);
+        } else {
+            for (int i = 0; i < length; i ++) {
+                dst[dstIndex + i] = getLong(index + (i << 3));
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        if (buf instanceof AbstractByteBuf) {
+            ((AbstractByteBuf) buf).getFloats(index, dst, dstIndex, length, order == ByteOrder.LITTLE_ENDIAN);
+        } else {
+            for (int i = 0; i < length; i ++) {
+                dst[dstIndex + i] = getFloat(index + (i << 2));
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        if (buf instanceof AbstractByteBuf) {
+            ((AbstractByteBuf) buf).getDoubles(index, dst, dstIndex, length, order == ByteOrder.LITTLE_ENDIAN);
+        } else {
+            for (int i = 0; i < length; i ++) {
+                dst[dstIndex + i] = getDouble(index + (i << 3));
+            }
+        }
+        return this;
+    }
+
     @Override
     public ByteBuf getBytes(int index, ByteBuffer dst) {
         buf.getBytes(index, dst);
@@ -408,6 +468,54 @@ public final class SwappedByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        if (buf instanceof AbstractByteBuf) {
+            ((AbstractByteBuf) buf).setInts(index, src, srcIndex, length, order == ByteOrder.LITTLE_ENDIAN);
+        } else {
+            for (int i = 0; i < length; i ++) {
+                setInt(index + (i << 2), src[srcIndex + i]);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        if (buf instanceof AbstractByteBuf) {
+            ((AbstractByteBuf) buf).setLongs(index, src, srcIndex, length, order == ByteOrder.LITTLE_ENDIAN);
+        } else {
+            for (int i = 0; i < length; i ++) {
+                setLong(index + (i << 3), src[srcIndex + i]);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        if (buf instanceof AbstractByteBuf) {
+            ((AbstractByteBuf) buf).setFloats(index, src, srcIndex, length, order == ByteOrder.LITTLE_ENDIAN);
+        } else {
+            for (int i = 0; i < length; i ++) {
+                setFloat(index + (i << 2), src[srcIndex + i]);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        if (buf instanceof AbstractByteBuf) {
+            ((AbstractByteBuf) buf).setDoubles(index, src, srcIndex, length, order == ByteOrder.LITTLE_ENDIAN);
+        } else {
+            for (int i = 0; i < length; i ++) {
+                setDouble(index + (i << 3), src[srcIndex + i]);
+            }
+        }
+        return this;
+    }
+
     @Override
     public ByteBuf setBytes(int index, ByteBuffer src) {
         buf.setBytes(index, src);
@@ -505,6 +613,11 @@ public final class SwappedByteBuf extends ByteBuf {
         return buf.readSlice(length).order(order);
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        return buf.readRetainedSlice(length).order(order);
+    }
+
     @Override
     public ByteBuf readBytes(ByteBuf dst) {
         buf.readBytes(dst);
@@ -724,11 +837,26 @@ public final class SwappedByteBuf extends ByteBuf {
         return buf.slice(index, length).order(order);
     }
 
+    @Override
+    public ByteBuf retainedSlice() {
+        return buf.retainedSlice().order(order);
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        return buf.retainedSlice(index, length).order(order);
+    }
+
     @Override
     public ByteBuf duplicate() {
         return buf.duplicate().order(order);
     }
 
+    @Override
+    public ByteBuf retainedDuplicate() {
+        return buf.retainedDuplicate().order(order);
+    }
+
     @Override
     public int nioBufferCount() {
         return buf.nioBufferCount();
@@ -17,9 +17,14 @@ package io.netty.buffer;
 
 import io.netty.util.internal.PlatformDependent;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
@@ -59,6 +64,8 @@ import java.util.List;
  * You might want to take a look at the methods that accept varargs closely if
  * you want to create a buffer which is composed of more than one array to
  * reduce the number of memory copy.
+ * {@link #mapFile(File, long, int, FileChannel.MapMode)} creates a buffer
+ * which is a view of a region of a file mapped into memory.
  *
  * <h3>Creating a copied buffer</h3>
  *
@@ -339,6 +346,66 @@ public final class Unpooled {
         return EMPTY_BUFFER;
     }
 
+    /**
+     * Maps {@code length} bytes of the specified {@code file} from {@code offset} on into memory in the specified
+     * {@code mode}, and returns a new big-endian direct buffer over them whose {@code readerIndex} and
+     * {@code writerIndex} are {@code 0} and {@code length} respectively.  Nothing is copied: the buffer and its
+     * slices access the mapped pages, and the mapping is unmapped as soon as the buffer is released.  The buffer is
+     * read-only if {@code mode} is {@link FileChannel.MapMode#READ_ONLY}.
+     */
+    public static ByteBuf mapFile(File file, long offset, int length, FileChannel.MapMode mode) throws IOException {
+        return mapFile(file, offset, length, mode, false);
+    }
+
+    /**
+     * Same as {@link #mapFile(File, long, int, FileChannel.MapMode)}, but if {@code load} is {@code true}, reads the
+     * mapped content into physical memory before returning, as a hint that all of it is going to be accessed soon.
+     */
+    public static ByteBuf mapFile(File file, long offset, int length, FileChannel.MapMode mode, boolean load)
+            throws IOException {
+        if (file == null) {
+            throw new NullPointerException("file");
+        }
+        if (mode == null) {
+            throw new NullPointerException("mode");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset: " + offset + " (expected: >= 0)");
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("length: " + length + " (expected: >= 0)");
+        }
+
+        MappedByteBuffer mapping;
+        RandomAccessFile raf = new RandomAccessFile(file, mode == FileChannel.MapMode.READ_ONLY ? "r" : "rw");
+        try {
+            // only a read-write mapping extends the file, and reading a page past its end would crash
+            if (mode != FileChannel.MapMode.READ_WRITE && offset + length > raf.length()) {
+                throw new IllegalArgumentException(
+                        "offset + length: " + (offset + length) + " (expected: <= " + raf.length() + ')');
+            }
+            // the mapping stays valid after the file is closed
+            mapping = raf.getChannel().map(mode, offset, length);
+        } finally {
+            raf.close();
+        }
+
+        if (!mapping.hasRemaining()) {
+            return EMPTY_BUFFER;
+        }
+        if (load) {
+            mapping.load();
+        }
+        if (!PlatformDependent.hasUnsafe()) {
+            // the mapping is unmapped when it is garbage collected
+            return wrappedBuffer(mapping);
+        }
+        if (mapping.isReadOnly()) {
+            return new ReadOnlyMappedByteBuf(ALLOC, mapping);
+        }
+        return new UnpooledMappedByteBuf(ALLOC, mapping);
+    }
+
     /**
      * Returns a new big-endian composite buffer with no components.
      */
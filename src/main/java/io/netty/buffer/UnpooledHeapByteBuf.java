@@ -272,6 +272,40 @@ public class UnpooledHeapByteBuf extends AbstractReferenceCountedByteBuf {
         return array[index];
     }
 
+    @Override
+    int firstIndexOf0(int fromIndex, int toIndex, byte value) {
+        return ByteBufUtil.firstIndexOf(array, fromIndex, toIndex, value);
+    }
+
+    @Override
+    int lastIndexOf0(int fromIndex, int toIndex, byte value) {
+        return ByteBufUtil.lastIndexOf(array, fromIndex, toIndex, value);
+    }
+
+    @Override
+    long _getLongLE(int index) {
+        return ByteBufUtil.getLongLE(array, index);
+    }
+
+    @Override
+    void _setBytesLE(int index, long word, int length) {
+        ByteBufUtil.setBytesLE(array, index, word, length);
+    }
+
+    @Override
+    boolean _getPrimitives(int index, Object dst, long dstOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        return ByteBufUtil.copyPrimitives(array, PlatformDependent.byteArrayBaseOffset() + index, dst, dstOffset,
+                                          length, elementSize, littleEndian);
+    }
+
+    @Override
+    boolean _setPrimitives(int index, Object src, long srcOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        return ByteBufUtil.copyPrimitives(src, srcOffset, array, PlatformDependent.byteArrayBaseOffset() + index,
+                                          length, elementSize, littleEndian);
+    }
+
     @Override
     public short getShort(int index) {
         ensureAccessible();
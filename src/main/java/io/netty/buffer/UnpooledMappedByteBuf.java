@@ -0,0 +1,41 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.nio.MappedByteBuffer;
+
+/**
+ * A direct buffer over a writable file mapping created by {@link Unpooled#mapFile}, which unmaps it as soon as it is
+ * deallocated rather than when the mapping is garbage collected.
+ */
+final class UnpooledMappedByteBuf extends UnpooledUnsafeDirectByteBuf {
+
+    private final MappedByteBuffer mapping;
+
+    UnpooledMappedByteBuf(ByteBufAllocator alloc, MappedByteBuffer mapping) {
+        super(alloc, mapping, mapping.remaining());
+        this.mapping = mapping;
+    }
+
+    @Override
+    protected void deallocate() {
+        super.deallocate();
+        // the super class only frees its own slice of the mapping, which does not own the memory
+        PlatformDependent.freeDirectBuffer(mapping);
+    }
+}
@@ -209,6 +209,38 @@ public class UnpooledUnsafeDirectByteBuf extends AbstractReferenceCountedByteBuf
         return PlatformDependent.getByte(addr(index));
     }
 
+    @Override
+    int firstIndexOf0(int fromIndex, int toIndex, byte value) {
+        return ByteBufUtil.firstIndexOf(memoryAddress, fromIndex, toIndex, value);
+    }
+
+    @Override
+    int lastIndexOf0(int fromIndex, int toIndex, byte value) {
+        return ByteBufUtil.lastIndexOf(memoryAddress, fromIndex, toIndex, value);
+    }
+
+    @Override
+    long _getLongLE(int index) {
+        return ByteBufUtil.getLongLE(addr(index));
+    }
+
+    @Override
+    void _setBytesLE(int index, long word, int length) {
+        ByteBufUtil.setBytesLE(addr(index), word, length);
+    }
+
+    @Override
+    boolean _getPrimitives(int index, Object dst, long dstOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        return ByteBufUtil.copyPrimitives(null, addr(index), dst, dstOffset, length, elementSize, littleEndian);
+    }
+
+    @Override
+    boolean _setPrimitives(int index, Object src, long srcOffset, int length, int elementSize,
+                           boolean littleEndian) {
+        return ByteBufUtil.copyPrimitives(src, srcOffset, null, addr(index), length, elementSize, littleEndian);
+    }
+
     @Override
     protected short _getShort(int index) {
         short v = PlatformDependent.getShort(addr(index));
@@ -47,6 +47,18 @@ final class UnreleasableByteBuf extends ByteBuf {
         throw new UnsupportedOperationException("not implemented");
     }
 
+    @Override
+    public ByteBuf pin() {
+        buf.pin();
+        return this;
+    }
+
+    @Override
+    public ByteBuf unpin() {
+        buf.unpin();
+        return this;
+    }
+
     @Override
     public boolean hasMemoryAddress() {
         return buf.hasMemoryAddress();
@@ -310,6 +322,30 @@ final class UnreleasableByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf getInts(int index, int[] dst, int dstIndex, int length) {
+        buf.getInts(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getLongs(int index, long[] dst, int dstIndex, int length) {
+        buf.getLongs(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getFloats(int index, float[] dst, int dstIndex, int length) {
+        buf.getFloats(index, dst, dstIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf getDoubles(int index, double[] dst, int dstIndex, int length) {
+        buf.getDoubles(index, dst, dstIndex, length);
+        return this;
+    }
+
     @Override
     public ByteBuf getBytes(int index, ByteBuffer dst) {
         buf.getBytes(index, dst);
@@ -411,6 +447,30 @@ final class UnreleasableByteBuf extends ByteBuf {
         return this;
     }
 
+    @Override
+    public ByteBuf setInts(int index, int[] src, int srcIndex, int length) {
+        buf.setInts(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setLongs(int index, long[] src, int srcIndex, int length) {
+        buf.setLongs(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setFloats(int index, float[] src, int srcIndex, int length) {
+        buf.setFloats(index, src, srcIndex, length);
+        return this;
+    }
+
+    @Override
+    public ByteBuf setDoubles(int index, double[] src, int srcIndex, int length) {
+        buf.setDoubles(index, src, srcIndex, length);
+        return this;
+    }
+
     @Override
     public ByteBuf setBytes(int index, ByteBuffer src) {
         buf.setBytes(index, src);
@@ -508,6 +568,12 @@ final class UnreleasableByteBuf extends ByteBuf {
         return new UnreleasableByteBuf(buf.readSlice(length));
     }
 
+    @Override
+    public ByteBuf readRetainedSlice(int length) {
+        // as release() does nothing, the slice need not be retained
+        return readSlice(length);
+    }
+
     @Override
     public ByteBuf readBytes(ByteBuf dst) {
         buf.readBytes(dst);
@@ -727,11 +793,26 @@ final class UnreleasableByteBuf extends ByteBuf {
         return new UnreleasableByteBuf(buf.slice(index, length));
     }
 
+    @Override
+    public ByteBuf retainedSlice() {
+        return slice();
+    }
+
+    @Override
+    public ByteBuf retainedSlice(int index, int length) {
+        return slice(index, length);
+    }
+
     @Override
     public ByteBuf duplicate() {
         return new UnreleasableByteBuf(buf.duplicate());
     }
 
+    @Override
+    public ByteBuf retainedDuplicate() {
+        return duplicate();
+    }
+
     @Override
     public int nioBufferCount() {
         return buf.nioBufferCount();
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -38,17 +39,25 @@ public abstract class BlockDisk<T> {
     /** File channel for multiple concurrent reads and writes */
     protected final FileChannel fileChannel;
 
+    /** Whether each write is forced to the device before it returns */
+    protected final boolean syncWrites;
+
     protected BlockDisk(String filepath) throws IOException {
         this(filepath, DEFAULT_BLOCK_SIZE_BYTES);
     }
 
     protected BlockDisk(String filepath, short blockSizeBytes) throws IOException {
+        this(filepath, blockSizeBytes, true);
+    }
+
+    protected BlockDisk(String filepath, short blockSizeBytes, boolean syncWrites) throws IOException {
         validateBlockSize(blockSizeBytes);
         this.filepath = filepath;
         RandomAccessFile raf = new RandomAccessFile(filepath, "rw");
         this.fileChannel = raf.getChannel();
         this.fileChannel.truncate(0);
         this.blockSizeBytes = blockSizeBytes;
+        this.syncWrites = syncWrites;
     }
 
     public static void validateBlockSize(short blockSizeBytes) {
@@ -65,6 +74,36 @@ public abstract class BlockDisk<T> {
     public abstract int[] write(T data) throws IOException;
     public abstract T read(int[] blocks) throws IOException;
 
+    /**
+     * Transfers {@code count} bytes of the data stored in {@code blocks}, starting at {@code position}
+     * of that data, to {@code target} without reading them into memory first.
+     *
+     * @return the number of bytes transferred, which is less than {@code count} only if
+     *         {@code target} did not accept more
+     */
+    public long transferTo(int[] blocks, long position, long count, WritableByteChannel target) throws IOException {
+        assert blocks != null && blocks.length >= 1;
+
+        final int maxChunkSize = blockSizeBytes - HEADER_SIZE_BYTES;
+        long transferred = 0;
+        while (transferred < count) {
+            long dataPosition = position + transferred;
+            int blockIndex = (int) (dataPosition / maxChunkSize);
+            int blockOffset = (int) (dataPosition % maxChunkSize);
+            assert blockIndex < blocks.length;
+
+            long length = Math.min(maxChunkSize - blockOffset, count - transferred);
+            long filePosition = calculateByteOffsetForBlock(blocks[blockIndex]) + HEADER_SIZE_BYTES + blockOffset;
+            long written = fileChannel.transferTo(filePosition, length, target);
+            transferred += written;
+            if (written < length) {
+                break;
+            }
+        }
+
+        return transferred;
+    }
+
     protected int[] allocateBlocks(int numBlocksNeeded) {
         assert numBlocksNeeded >= 1;
 
@@ -142,6 +181,7 @@ public abstract class BlockDisk<T> {
         sb.append("\n  Filepath [" + filepath + "]");
         sb.append("\n  NumberOfBlocks [" + getNumOfBlocks() + "]");
         sb.append("\n  BlockSizeBytes [" + getBlockSizeBytes() + "]");
+        sb.append("\n  SyncWrites [" + syncWrites + "]");
         sb.append("\n  Empty Blocks [" + getEmptyBlocks() + "]");
         try {
             sb.append("\n  Length [" + length() + "]");
@@ -162,6 +202,10 @@ public abstract class BlockDisk<T> {
             super(filepath, blockSizeBytes);
         }
 
+        public HeapBlockDisk(String filepath, short blockSizeBytes, boolean syncWrites) throws IOException {
+            super(filepath, blockSizeBytes, syncWrites);
+        }
+
         @Override
         public int[] write(byte[] data) throws IOException {
             final int numBlocksNeeded = calculateTheNumberOfBlocksNeeded(data.length);
@@ -188,7 +232,9 @@ public abstract class BlockDisk<T> {
 
                 offset += length;
             }
-            fileChannel.force(false);
+            if (syncWrites) {
+                fileChannel.force(false);
+            }
 
             return blocks;
         }
@@ -229,6 +275,10 @@ public abstract class BlockDisk<T> {
             super(filepath, blockSizeBytes);
         }
 
+        public DirectBlockDisk(String filepath, short blockSizeBytes, boolean syncWrites) throws IOException {
+            super(filepath, blockSizeBytes, syncWrites);
+        }
+
         @Override
         public int[] write(ByteBuffer data) throws IOException {
             final int totalBytes = data.remaining();
@@ -254,7 +304,9 @@ public abstract class BlockDisk<T> {
                 written = fileChannel.write(data, position + HEADER_SIZE_BYTES);
                 assert written == length;
             }
-            fileChannel.force(false);
+            if (syncWrites) {
+                fileChannel.force(false);
+            }
 
             return blocks;
         }
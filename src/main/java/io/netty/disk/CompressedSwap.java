@@ -0,0 +1,278 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.disk;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * An in-memory swap tier that sits in front of {@link BlockDisk}. Swapped out runs are deflated into
+ * direct memory which is budgeted separately from the pool, so that swapping them back in does not
+ * touch the disk. Data is rejected (and should go to disk instead) when the budget is exhausted or
+ * when it does not compress well enough to be worth keeping in memory.
+ */
+public abstract class CompressedSwap<T> {
+
+    /** Data is only kept if it shrinks to at most 3/4 of its original size. */
+    private static final int MIN_COMPRESSION_RATIO_SHIFT = 2;
+
+    /** Size of the slices direct memory is moved through on its way to and from the (de)compressor. */
+    private static final int SLICE_SIZE = 64 << 10;
+
+    /** Largest output array a thread keeps around between calls to {@link #write}. */
+    private static final int MAX_RETAINED_OUTPUT_SIZE = 1 << 20;
+
+    private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    /** Max bytes of compressed data this tier may hold */
+    private volatile long capacityBytes;
+
+    /** Bytes of compressed data currently held */
+    private final AtomicLong usedBytes = new AtomicLong(0);
+
+    protected CompressedSwap(long capacityBytes) {
+        setCapacityBytes(capacityBytes);
+    }
+
+    /**
+     * Compresses {@code length} bytes of {@code memory} starting at {@code offset}.
+     *
+     * @return the compressed data, or {@code null} if the data was rejected by this tier
+     */
+    public ByteBuffer write(T memory, int offset, int length) {
+        if (capacityBytes == 0 || length == 0) {
+            return null;
+        }
+
+        final int maxCompressedLength = length - (length >>> MIN_COMPRESSION_RATIO_SHIFT);
+        // do not bother compressing if even well compressed data would not fit
+        if (usedBytes.get() + maxCompressedLength > capacityBytes) {
+            return null;
+        }
+
+        Scratch scratch = CompressedSwap.scratch.get();
+        Deflater deflater = scratch.deflater;
+        // one extra byte to tell whether the output would have exceeded maxCompressedLength
+        byte[] out = scratch.output(maxCompressedLength + 1);
+        int compressedLength = 0;
+        try {
+            int consumed = 0;
+            while (!deflater.finished() && compressedLength < out.length) {
+                if (deflater.needsInput() && consumed < length) {
+                    consumed += setInput(deflater, memory, offset + consumed, length - consumed, scratch.input);
+                    if (consumed == length) {
+                        deflater.finish();
+                    }
+                }
+                compressedLength += deflater.deflate(out, compressedLength, out.length - compressedLength);
+            }
+            if (!deflater.finished() || compressedLength > maxCompressedLength) {
+                return null;
+            }
+        } finally {
+            deflater.reset();
+        }
+
+        if (!reserve(compressedLength)) {
+            return null;
+        }
+
+        ByteBuffer compressed = ByteBuffer.allocateDirect(compressedLength);
+        compressed.put(out, 0, compressedLength);
+        compressed.flip();
+        return compressed;
+    }
+
+    /**
+     * Decompresses {@code compressed} into {@code memory} starting at {@code offset}. At most
+     * {@code length} bytes are restored.
+     */
+    public void read(ByteBuffer compressed, T memory, int offset, int length) throws IOException {
+        Scratch scratch = CompressedSwap.scratch.get();
+        Inflater inflater = scratch.inflater;
+        ByteBuffer src = compressed.duplicate();
+        int restored = 0;
+        try {
+            while (restored < length && !inflater.finished()) {
+                if (inflater.needsInput()) {
+                    if (!src.hasRemaining()) {
+                        throw new IOException("truncated compressed data");
+                    }
+                    int n = Math.min(src.remaining(), scratch.input.length);
+                    src.get(scratch.input, 0, n);
+                    inflater.setInput(scratch.input, 0, n);
+                }
+                restored += inflate(inflater, memory, offset + restored, length - restored, scratch.output);
+            }
+        } catch (DataFormatException dfe) {
+            throw new IOException(dfe);
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    /**
+     * Releases the memory held by {@code compressed}.
+     */
+    public void free(ByteBuffer compressed) {
+        if (compressed != null) {
+            usedBytes.addAndGet(-compressed.capacity());
+            PlatformDependent.freeDirectBuffer(compressed);
+        }
+    }
+
+    private boolean reserve(int numBytes) {
+        for (;;) {
+            long used = usedBytes.get();
+            if (used + numBytes > capacityBytes) {
+                return false;
+            }
+            if (usedBytes.compareAndSet(used, used + numBytes)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hands (a part of) the given range of {@code memory} to {@code deflater}, using {@code slice} if the
+     * memory cannot be handed over directly.
+     *
+     * @return the number of bytes handed over
+     */
+    protected abstract int setInput(Deflater deflater, T memory, int offset, int length, byte[] slice);
+
+    /**
+     * Decompresses at most {@code length} bytes into {@code memory} starting at {@code offset}, using
+     * {@code slice} if the memory cannot be decompressed into directly.
+     *
+     * @return the number of bytes restored
+     */
+    protected abstract int inflate(Inflater inflater, T memory, int offset, int length, byte[] slice)
+            throws DataFormatException;
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    /**
+     * Changes the max bytes of compressed data this tier may hold. Data already held is kept even if it
+     * exceeds the new capacity; {@code 0} disables the tier.
+     */
+    public void setCapacityBytes(long capacityBytes) {
+        if (capacityBytes < 0) {
+            throw new IllegalArgumentException("capacityBytes: " + capacityBytes + " (expected: 0+)");
+        }
+        this.capacityBytes = capacityBytes;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\nCompressed Swap ");
+        sb.append("\n  CapacityBytes [" + getCapacityBytes() + "]");
+        sb.append("\n  UsedBytes [" + getUsedBytes() + "]");
+        return sb.toString();
+    }
+
+    public static final class HeapCompressedSwap extends CompressedSwap<byte[]> {
+
+        public HeapCompressedSwap(long capacityBytes) {
+            super(capacityBytes);
+        }
+
+        // heap memory is compressed from and decompressed into in place
+
+        @Override
+        protected int setInput(Deflater deflater, byte[] memory, int offset, int length, byte[] slice) {
+            deflater.setInput(memory, offset, length);
+            return length;
+        }
+
+        @Override
+        protected int inflate(Inflater inflater, byte[] memory, int offset, int length, byte[] slice)
+                throws DataFormatException {
+            return inflater.inflate(memory, offset, length);
+        }
+    }
+
+    public static final class DirectCompressedSwap extends CompressedSwap<ByteBuffer> {
+
+        public DirectCompressedSwap(long capacityBytes) {
+            super(capacityBytes);
+        }
+
+        @Override
+        protected int setInput(Deflater deflater, ByteBuffer memory, int offset, int length, byte[] slice) {
+            int n = Math.min(length, slice.length);
+            ByteBuffer src = memory.duplicate();
+            src.clear().position(offset);
+            src.get(slice, 0, n);
+            deflater.setInput(slice, 0, n);
+            return n;
+        }
+
+        @Override
+        protected int inflate(Inflater inflater, ByteBuffer memory, int offset, int length, byte[] slice)
+                throws DataFormatException {
+            int n = inflater.inflate(slice, 0, Math.min(length, slice.length));
+            if (n > 0) {
+                ByteBuffer dst = memory.duplicate();
+                dst.clear().position(offset);
+                dst.put(slice, 0, n);
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Per-thread (de)compressors and the arrays data is moved through, so that swapping does not allocate
+     * temporary arrays.
+     */
+    private static final class Scratch {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        final Inflater inflater = new Inflater(true);
+        final byte[] input = new byte[SLICE_SIZE];
+        byte[] output = new byte[SLICE_SIZE];
+
+        /** Returns an array of at least {@code length} bytes to deflate into. */
+        byte[] output(int length) {
+            if (output.length >= length) {
+                return output;
+            }
+            byte[] array = new byte[length];
+            if (length <= MAX_RETAINED_OUTPUT_SIZE) {
+                output = array;
+            }
+            return array;
+        }
+    }
+}
@@ -16,100 +16,465 @@
 
 package io.netty.util;
 
-import java.util.IdentityHashMap;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Light-weight object pool based on a thread-local stack.
  *
+ * An object recycled by another thread than the one which created it is put into a queue owned by the recycling
+ * thread and the creating thread's stack, and moved to the stack when the creating thread runs out of objects.
+ *
  * @param <T> the type of the pooled object
  */
 public abstract class Recycler<T> {
 
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(Recycler.class);
+
+    private static final AtomicInteger ID_GENERATOR = new AtomicInteger(Integer.MIN_VALUE);
+    private static final int OWN_THREAD_ID = ID_GENERATOR.getAndIncrement();
+
+    private static final int DEFAULT_MAX_CAPACITY;
+    private static final int INITIAL_CAPACITY;
+    static final int MAX_DELAYED_QUEUES_PER_THREAD;
+    private static final int LINK_CAPACITY = 16;
+
+    static {
+        // objects kept on the stack of a thread; the objects recycled to it by other threads and not moved to the
+        // stack yet are bounded by the same amount on their own, so a thread holds at most twice as many objects
+        int maxCapacity = SystemPropertyUtil.getInt("io.netty.recycler.maxCapacity", 262144);
+        if (maxCapacity < LINK_CAPACITY) {
+            maxCapacity = LINK_CAPACITY;
+        }
+        DEFAULT_MAX_CAPACITY = maxCapacity;
+        INITIAL_CAPACITY = Math.min(DEFAULT_MAX_CAPACITY, 256);
+
+        // stacks of other threads a thread queues recycled objects for; objects for any further stack are dropped
+        MAX_DELAYED_QUEUES_PER_THREAD = Math.max(0, SystemPropertyUtil.getInt(
+                "io.netty.recycler.maxDelayedQueuesPerThread", Runtime.getRuntime().availableProcessors() * 2));
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.recycler.maxCapacity: {}", DEFAULT_MAX_CAPACITY);
+            logger.debug("-Dio.netty.recycler.maxDelayedQueuesPerThread: {}", MAX_DELAYED_QUEUES_PER_THREAD);
+        }
+    }
+
+    private final int maxCapacity;
+
     private final ThreadLocal<Stack<T>> threadLocal = new ThreadLocal<Stack<T>>() {
         @Override
         protected Stack<T> initialValue() {
-            return new Stack<T>(Recycler.this, Thread.currentThread());
+            return new Stack<T>(Recycler.this, Thread.currentThread(), maxCapacity);
         }
     };
 
+    protected Recycler() {
+        this(DEFAULT_MAX_CAPACITY);
+    }
+
+    protected Recycler(int maxCapacity) {
+        this.maxCapacity = Math.max(LINK_CAPACITY, maxCapacity);
+    }
+
     public final T get() {
         Stack<T> stack = threadLocal.get();
-        T o = stack.pop();
-        if (o == null) {
-            o = newObject(stack);
+        DefaultHandle handle = stack.pop();
+        if (handle == null) {
+            handle = stack.newHandle();
+            handle.value = newObject(handle);
         }
+        @SuppressWarnings("unchecked")
+        T o = (T) handle.value;
         return o;
     }
 
     public final boolean recycle(T o, Handle handle) {
-        @SuppressWarnings("unchecked")
-        Stack<T> stack = (Stack<T>) handle;
-        if (stack.parent != this) {
+        DefaultHandle h = (DefaultHandle) handle;
+        if (h.stack.parent != this) {
             return false;
         }
-
-        if (Thread.currentThread() != stack.thread) {
-            return false;
+        if (o != h.value) {
+            throw new IllegalArgumentException("o does not belong to handle");
         }
 
-        stack.push(o);
-        return true;
+        return h.recycle();
+    }
+
+    /** Returns the space the current thread's stack has left for objects recycled by other threads. */
+    final int threadLocalAvailableSharedCapacity() {
+        return threadLocal.get().availableSharedCapacity.get();
     }
 
     protected abstract T newObject(Handle handle);
 
     public interface Handle { }
 
-    static final class Stack<T> implements Handle {
+    static final class DefaultHandle implements Handle {
+        // id of the last queue (or OWN_THREAD_ID) the object was recycled to, and the id it was moved to the stack
+        // with; both are 0 while the object is in use
+        private int lastRecycledId;
+        private int recycleId;
+
+        private final Stack<?> stack;
+        private Object value;
+
+        DefaultHandle(Stack<?> stack) {
+            this.stack = stack;
+        }
+
+        boolean recycle() {
+            Thread thread = Thread.currentThread();
+            if (thread == stack.thread) {
+                stack.push(this);
+                return true;
+            }
 
-        private static final int INITIAL_CAPACITY = 256;
+            Map<Stack<?>, WeakOrderQueue> delayedRecycled = DELAYED_RECYCLED.get();
+            WeakOrderQueue queue = delayedRecycled.get(stack);
+            if (queue == null) {
+                if (delayedRecycled.size() >= MAX_DELAYED_QUEUES_PER_THREAD) {
+                    // remember not to queue for this stack, so that objects for it are dropped right away
+                    delayedRecycled.put(stack, WeakOrderQueue.DUMMY);
+                    return false;
+                }
+                queue = WeakOrderQueue.newQueue(stack, thread);
+                if (queue == null) {
+                    // the stack is full, try again next time
+                    return false;
+                }
+                delayedRecycled.put(stack, queue);
+            } else if (queue == WeakOrderQueue.DUMMY) {
+                return false;
+            }
+            return queue.add(this);
+        }
+    }
+
+    // the queues of the current thread, one per stack of another thread it recycled objects to
+    private static final ThreadLocal<Map<Stack<?>, WeakOrderQueue>> DELAYED_RECYCLED =
+            new ThreadLocal<Map<Stack<?>, WeakOrderQueue>>() {
+        @Override
+        protected Map<Stack<?>, WeakOrderQueue> initialValue() {
+            return new WeakHashMap<Stack<?>, WeakOrderQueue>();
+        }
+    };
+
+    /**
+     * Objects recycled by one thread to the stack of another. Only the recycling thread adds and only the owner of
+     * the stack takes, so the queue is a linked list of fixed size arrays whose write index is published with
+     * {@link AtomicInteger#lazySet(int)}.
+     */
+    private static final class WeakOrderQueue {
+
+        // marks a stack the current thread does not queue objects for
+        static final WeakOrderQueue DUMMY = new WeakOrderQueue();
+
+        @SuppressWarnings("serial")
+        private static final class Link extends AtomicInteger {
+            private final DefaultHandle[] elements = new DefaultHandle[LINK_CAPACITY];
+
+            private int readIndex;
+            private Link next;
+        }
+
+        // chain of data items
+        private Link head, tail;
+        // pointer to another queue of delayed items for the same stack
+        private WeakOrderQueue next;
+        private final WeakReference<Thread> owner;
+        private final int id = ID_GENERATOR.getAndIncrement();
+        // not the stack itself, which is the key of this queue in DELAYED_RECYCLED
+        private final AtomicInteger availableSharedCapacity;
+
+        private WeakOrderQueue() {
+            owner = null;
+            availableSharedCapacity = null;
+        }
+
+        private WeakOrderQueue(Stack<?> stack, Thread thread) {
+            availableSharedCapacity = stack.availableSharedCapacity;
+            head = tail = new Link();
+            owner = new WeakReference<Thread>(thread);
+            synchronized (stack) {
+                next = stack.head;
+                stack.head = this;
+            }
+        }
+
+        /**
+         * Returns a new queue for {@code stack} with space reserved for its first link, or {@code null} if the
+         * stack has no space left.
+         */
+        static WeakOrderQueue newQueue(Stack<?> stack, Thread thread) {
+            if (!Stack.reserveSpace(stack.availableSharedCapacity, LINK_CAPACITY)) {
+                return null;
+            }
+            return new WeakOrderQueue(stack, thread);
+        }
+
+        /**
+         * Gives back the space of the links still held, once the owner of the queue is gone and its objects have
+         * been moved to the stack. Objects left in them (if the stack was full) are dropped.
+         */
+        void reclaimSpace() {
+            int reclaimed = 0;
+            for (Link link = head; link != null; link = link.next) {
+                reclaimed += LINK_CAPACITY;
+            }
+            head = null;
+            if (reclaimed != 0) {
+                availableSharedCapacity.addAndGet(reclaimed);
+            }
+        }
 
+        boolean add(DefaultHandle handle) {
+            if (handle.lastRecycledId != 0) {
+                throw new IllegalStateException("recycled already");
+            }
+
+            Link tail = this.tail;
+            int writeIndex = tail.get();
+            if (writeIndex == LINK_CAPACITY) {
+                // the stack may only be filled up to maxCapacity, so drop the object rather than queueing more
+                if (!Stack.reserveSpace(availableSharedCapacity, LINK_CAPACITY)) {
+                    return false;
+                }
+                this.tail = tail = tail.next = new Link();
+                writeIndex = tail.get();
+            }
+
+            handle.lastRecycledId = id;
+            tail.elements[writeIndex] = handle;
+            // the owner of the stack may only see the handle once it is in the array
+            tail.lazySet(writeIndex + 1);
+            return true;
+        }
+
+        boolean hasFinalData() {
+            return tail.readIndex != tail.get();
+        }
+
+        // transfer as many items as we can from this queue to the stack, returning true if any were transferred
+        boolean transfer(Stack<?> dst) {
+            Link head = this.head;
+            if (head == null) {
+                return false;
+            }
+
+            if (head.readIndex == LINK_CAPACITY) {
+                if (head.next == null) {
+                    return false;
+                }
+                this.head = head = head.next;
+                dst.releaseSpace(LINK_CAPACITY);
+            }
+
+            final int srcStart = head.readIndex;
+            int srcEnd = head.get();
+            final int srcSize = srcEnd - srcStart;
+            if (srcSize == 0) {
+                return false;
+            }
+
+            final int dstSize = dst.size;
+            final int expectedCapacity = dstSize + srcSize;
+
+            if (expectedCapacity > dst.elements.length) {
+                final int actualCapacity = dst.increaseCapacity(expectedCapacity);
+                srcEnd = Math.min(srcStart + actualCapacity - dstSize, srcEnd);
+            }
+
+            if (srcStart != srcEnd) {
+                final DefaultHandle[] srcElems = head.elements;
+                final DefaultHandle[] dstElems = dst.elements;
+                int newDstSize = dstSize;
+                for (int i = srcStart; i < srcEnd; i ++) {
+                    DefaultHandle element = srcElems[i];
+                    if (element.recycleId == 0) {
+                        element.recycleId = element.lastRecycledId;
+                    } else if (element.recycleId != element.lastRecycledId) {
+                        throw new IllegalStateException("recycled already");
+                    }
+                    srcElems[i] = null;
+                    dstElems[newDstSize ++] = element;
+                }
+
+                head.readIndex = srcEnd;
+                dst.size = newDstSize;
+                return true;
+            } else {
+                // The destination stack is full already.
+                return false;
+            }
+        }
+    }
+
+    static final class Stack<T> {
+
+        // we keep a queue of per-thread queues, which is appended to once only, each time a new thread other
+        // than the stack owner recycles: when we run out of items in our stack we iterate this collection
+        // to scavenge those that can be reused. this permits us to incur minimal thread synchronisation whilst
+        // still recycling all items.
         final Recycler<T> parent;
         final Thread thread;
-        private T[] elements;
+        private DefaultHandle[] elements;
+        private final int maxCapacity;
         private int size;
-        private final Map<T, Boolean> map = new IdentityHashMap<T, Boolean>(INITIAL_CAPACITY);
 
-        @SuppressWarnings({ "unchecked", "SuspiciousArrayCast" })
-        Stack(Recycler<T> parent, Thread thread) {
+        // space the queues of other threads may still fill, so that the stack never grows beyond maxCapacity
+        final AtomicInteger availableSharedCapacity;
+
+        private volatile WeakOrderQueue head;
+        private WeakOrderQueue cursor, prev;
+
+        Stack(Recycler<T> parent, Thread thread, int maxCapacity) {
             this.parent = parent;
             this.thread = thread;
-            elements = newArray(INITIAL_CAPACITY);
+            this.maxCapacity = maxCapacity;
+            availableSharedCapacity = new AtomicInteger(maxCapacity);
+            elements = new DefaultHandle[Math.min(INITIAL_CAPACITY, maxCapacity)];
         }
 
-        T pop() {
+        int increaseCapacity(int expectedCapacity) {
+            int newCapacity = elements.length;
+            int maxCapacity = this.maxCapacity;
+            do {
+                newCapacity <<= 1;
+            } while (newCapacity < expectedCapacity && newCapacity < maxCapacity);
+
+            newCapacity = Math.min(newCapacity, maxCapacity);
+            if (newCapacity != elements.length) {
+                elements = Arrays.copyOf(elements, newCapacity);
+            }
+
+            return newCapacity;
+        }
+
+        static boolean reserveSpace(AtomicInteger availableSharedCapacity, int space) {
+            for (;;) {
+                int available = availableSharedCapacity.get();
+                if (available < space) {
+                    return false;
+                }
+                if (availableSharedCapacity.compareAndSet(available, available - space)) {
+                    return true;
+                }
+            }
+        }
+
+        void releaseSpace(int space) {
+            availableSharedCapacity.addAndGet(space);
+        }
+
+        DefaultHandle pop() {
             int size = this.size;
             if (size == 0) {
-                return null;
+                if (!scavenge()) {
+                    return null;
+                }
+                size = this.size;
             }
             size --;
-            T ret = elements[size];
+            DefaultHandle ret = elements[size];
             elements[size] = null;
-            map.remove(ret);
+            if (ret.lastRecycledId != ret.recycleId) {
+                throw new IllegalStateException("recycled multiple times");
+            }
+            ret.recycleId = 0;
+            ret.lastRecycledId = 0;
             this.size = size;
             return ret;
         }
 
-        void push(T o) {
-            if (map.put(o, Boolean.TRUE) != null) {
+        boolean scavenge() {
+            // continue an existing scavenge, if any
+            if (scavengeSome()) {
+                return true;
+            }
+
+            // reset our scavenge cursor
+            prev = null;
+            cursor = head;
+            return false;
+        }
+
+        boolean scavengeSome() {
+            WeakOrderQueue cursor = this.cursor;
+            if (cursor == null) {
+                cursor = head;
+                if (cursor == null) {
+                    return false;
+                }
+            }
+
+            boolean success = false;
+            WeakOrderQueue prev = this.prev;
+            do {
+                if (cursor.transfer(this)) {
+                    success = true;
+                    break;
+                }
+
+                WeakOrderQueue next = cursor.next;
+                if (cursor.owner.get() == null) {
+                    // if the thread associated with the queue is gone, unlink it, after
+                    // performing a volatile read to confirm there is no data left to collect.
+                    // We never unlink the first queue, as we don't want to synchronize on updating the head.
+                    if (cursor.hasFinalData()) {
+                        for (;;) {
+                            if (cursor.transfer(this)) {
+                                success = true;
+                            } else {
+                                break;
+                            }
+                        }
+                    }
+                    // the first queue stays linked, but holds no space once reclaimed
+                    cursor.reclaimSpace();
+                    if (prev != null) {
+                        prev.next = next;
+                    }
+                } else {
+                    prev = cursor;
+                }
+
+                cursor = next;
+
+            } while (cursor != null && !success);
+
+            this.prev = prev;
+            this.cursor = cursor;
+            return success;
+        }
+
+        void push(DefaultHandle item) {
+            if ((item.recycleId | item.lastRecycledId) != 0) {
                 throw new IllegalStateException("recycled already");
             }
+            item.recycleId = item.lastRecycledId = OWN_THREAD_ID;
 
             int size = this.size;
+            if (size >= maxCapacity) {
+                // Hit the maximum capacity - drop the possibly youngest object.
+                return;
+            }
             if (size == elements.length) {
-                T[] newElements = newArray(size << 1);
-                System.arraycopy(elements, 0, newElements, 0, size);
-                elements = newElements;
+                elements = Arrays.copyOf(elements, Math.min(size << 1, maxCapacity));
             }
 
-            elements[size] = o;
+            elements[size] = item;
             this.size = size + 1;
         }
 
-        @SuppressWarnings({ "unchecked", "SuspiciousArrayCast" })
-        private static <T> T[] newArray(int length) {
-            return (T[]) new Object[length];
+        DefaultHandle newHandle() {
+            return new DefaultHandle(this);
         }
     }
 }
@@ -248,10 +248,75 @@ public final class PlatformDependent {
         return PlatformDependent0.getInt(object, fieldOffset);
     }
 
+    /**
+     * Reads 8 bytes in the native byte order at {@code offset} in {@code object}, or at the address {@code offset}
+     * if {@code object} is {@code null}. Only valid if {@link #isUnaligned()}.
+     */
+    public static long getLong(Object object, long offset) {
+        return PlatformDependent0.getLong(object, offset);
+    }
+
+    /**
+     * Reads the byte at {@code offset} in {@code object}, or at the address {@code offset} if {@code object} is
+     * {@code null}.
+     */
+    public static byte getByte(Object object, long offset) {
+        return PlatformDependent0.getByte(object, offset);
+    }
+
+    /**
+     * Writes the byte at {@code offset} in {@code object}, or at the address {@code offset} if {@code object} is
+     * {@code null}.
+     */
+    public static void putByte(Object object, long offset, byte value) {
+        PlatformDependent0.putByte(object, offset, value);
+    }
+
+    /**
+     * Writes 4 bytes in the native byte order at {@code offset} in {@code object}, or at the address
+     * {@code offset} if {@code object} is {@code null}. Only valid if {@link #isUnaligned()}.
+     */
+    public static void putInt(Object object, long offset, int value) {
+        PlatformDependent0.putInt(object, offset, value);
+    }
+
+    /**
+     * Writes 8 bytes in the native byte order at {@code offset} in {@code object}, or at the address
+     * {@code offset} if {@code object} is {@code null}. Only valid if {@link #isUnaligned()}.
+     */
+    public static void putLong(Object object, long offset, long value) {
+        PlatformDependent0.putLong(object, offset, value);
+    }
+
+    /**
+     * Returns the offset of the first element of a {@code byte[]}, for {@link #getLong(Object, long)},
+     * {@link #getByte(Object, long)} and {@link #putByte(Object, long, byte)}, or {@code -1} if
+     * {@code sun.misc.Unsafe} is unavailable.
+     */
+    public static long byteArrayBaseOffset() {
+        return ARRAY_BASE_OFFSET;
+    }
+
+    /**
+     * Returns the offset of the first element of an array of the specified class, e.g. {@code int[].class}, or
+     * {@code -1} if {@code sun.misc.Unsafe} is unavailable.
+     */
+    public static long arrayBaseOffset(Class<?> arrayClass) {
+        return hasUnsafe() ? PlatformDependent0.arrayBaseOffset(arrayClass) : -1;
+    }
+
     public static long objectFieldOffset(Field field) {
         return PlatformDependent0.objectFieldOffset(field);
     }
 
+    /**
+     * Return {@code true} if and only if {@code sun.misc.Unsafe} is available and the platform supports unaligned
+     * access, so that {@link #getLong(long)} and {@link #getLong(byte[], int)} read a word with one load.
+     */
+    public static boolean isUnaligned() {
+        return HAS_UNSAFE && PlatformDependent0.isUnaligned();
+    }
+
     public static byte getByte(long address) {
         return PlatformDependent0.getByte(address);
     }
@@ -268,6 +333,13 @@ public final class PlatformDependent {
         return PlatformDependent0.getLong(address);
     }
 
+    /**
+     * Reads the 8 bytes from {@code data[index]} in the native byte order. Only valid if {@link #isUnaligned()}.
+     */
+    public static long getLong(byte[] data, int index) {
+        return PlatformDependent0.getLong(data, ARRAY_BASE_OFFSET + index);
+    }
+
     public static void putByte(long address, byte value) {
         PlatformDependent0.putByte(address, value);
     }
@@ -296,6 +368,14 @@ public final class PlatformDependent {
         PlatformDependent0.copyMemory(null, srcAddr, dst, ARRAY_BASE_OFFSET + dstIndex, length);
     }
 
+    /**
+     * Copies {@code length} bytes from {@code srcOffset} in {@code src} to {@code dstOffset} in {@code dst}, where
+     * a {@code null} object makes the offset an address. Both objects must be arrays of a primitive type.
+     */
+    public static void copyMemory(Object src, long srcOffset, Object dst, long dstOffset, long length) {
+        PlatformDependent0.copyMemory(src, srcOffset, dst, dstOffset, length);
+    }
+
     private static boolean isAndroid0() {
         boolean android;
         try {
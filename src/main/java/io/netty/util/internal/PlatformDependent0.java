@@ -185,6 +185,10 @@ final class PlatformDependent0 {
         return UNSAFE.arrayBaseOffset(byte[].class);
     }
 
+    static long arrayBaseOffset(Class<?> arrayClass) {
+        return UNSAFE.arrayBaseOffset(arrayClass);
+    }
+
     static Object getObject(Object object, long fieldOffset) {
         return UNSAFE.getObject(object, fieldOffset);
     }
@@ -193,10 +197,18 @@ final class PlatformDependent0 {
         return UNSAFE.getInt(object, fieldOffset);
     }
 
-    private static long getLong(Object object, long fieldOffset) {
+    static boolean isUnaligned() {
+        return UNALIGNED;
+    }
+
+    static long getLong(Object object, long fieldOffset) {
         return UNSAFE.getLong(object, fieldOffset);
     }
 
+    static byte getByte(Object object, long fieldOffset) {
+        return UNSAFE.getByte(object, fieldOffset);
+    }
+
     static long objectFieldOffset(Field field) {
         return UNSAFE.objectFieldOffset(field);
     }
@@ -259,6 +271,18 @@ final class PlatformDependent0 {
         UNSAFE.putByte(address, value);
     }
 
+    static void putByte(Object object, long fieldOffset, byte value) {
+        UNSAFE.putByte(object, fieldOffset, value);
+    }
+
+    static void putInt(Object object, long fieldOffset, int value) {
+        UNSAFE.putInt(object, fieldOffset, value);
+    }
+
+    static void putLong(Object object, long fieldOffset, long value) {
+        UNSAFE.putLong(object, fieldOffset, value);
+    }
+
     static void putShort(long address, short value) {
         if (UNALIGNED) {
             UNSAFE.putShort(address, value);
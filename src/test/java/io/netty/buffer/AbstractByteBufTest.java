@@ -1482,6 +1482,94 @@ public abstract class AbstractByteBufTest {
         assertEquals(buffer.capacity() - 2, buffer.slice(1, buffer.capacity() - 2).writerIndex());
     }
 
+    @Test
+    public void testRetainedSlice() {
+        for (int i = 0; i < buffer.capacity(); i ++) {
+            buffer.setByte(i, (byte) random.nextInt());
+        }
+
+        ByteBuf slice = buffer.retainedSlice(1, CAPACITY - 2);
+        assertEquals(2, buffer.refCnt());
+        assertEquals(0, slice.readerIndex());
+        assertEquals(CAPACITY - 2, slice.writerIndex());
+        assertEquals(CAPACITY - 2, slice.capacity());
+        assertEquals(buffer.order(), slice.order());
+        for (int i = 0; i < slice.capacity(); i ++) {
+            assertEquals(buffer.getByte(i + 1), slice.getByte(i));
+        }
+        assertEquals(buffer.getLong(9), slice.getLong(8));
+
+        // Make sure the buffer content is shared.
+        buffer.setByte(1, (byte) (buffer.getByte(1) + 1));
+        assertEquals(buffer.getByte(1), slice.getByte(0));
+        slice.setInt(4, 0x01020304);
+        assertEquals(0x01020304, buffer.getInt(5));
+        assertEquals(buffer.slice(1, CAPACITY - 2), slice);
+
+        ByteBuf slice2 = slice.retainedSlice(2, 6);
+        assertEquals(slice.getInt(4), slice2.getInt(2));
+        slice.release();
+        assertEquals(buffer.getInt(5), slice2.getInt(2));
+        slice2.release();
+        assertEquals(1, buffer.refCnt());
+
+        try {
+            buffer.retainedSlice(1, CAPACITY);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        assertEquals(1, buffer.refCnt());
+    }
+
+    @Test
+    public void testRetainedDuplicate() {
+        for (int i = 0; i < buffer.capacity(); i ++) {
+            buffer.setByte(i, (byte) random.nextInt());
+        }
+        buffer.setIndex(CAPACITY / 3, CAPACITY * 2 / 3);
+
+        ByteBuf duplicate = buffer.retainedDuplicate();
+        assertEquals(2, buffer.refCnt());
+        assertEquals(buffer.readerIndex(), duplicate.readerIndex());
+        assertEquals(buffer.writerIndex(), duplicate.writerIndex());
+        assertEquals(buffer.capacity(), duplicate.capacity());
+        assertEquals(buffer.order(), duplicate.order());
+        assertEquals(buffer.duplicate(), duplicate);
+
+        duplicate.setByte(1, (byte) (duplicate.getByte(1) + 1));
+        assertEquals(buffer.getByte(1), duplicate.getByte(1));
+
+        duplicate.setIndex(1, 2);
+        ByteBuf duplicate2 = duplicate.retainedDuplicate();
+        assertEquals(1, duplicate2.readerIndex());
+        assertEquals(2, duplicate2.writerIndex());
+        duplicate.release();
+        duplicate2.release();
+        assertEquals(1, buffer.refCnt());
+    }
+
+    @Test
+    public void testReadRetainedSlice() {
+        buffer.writerIndex(CAPACITY);
+        buffer.readerIndex(8);
+        ByteBuf slice = buffer.readRetainedSlice(16);
+        assertEquals(24, buffer.readerIndex());
+        assertEquals(16, slice.readableBytes());
+        assertEquals(buffer.getLong(8), slice.getLong(0));
+        slice.release();
+        assertEquals(1, buffer.refCnt());
+
+        try {
+            buffer.readRetainedSlice(CAPACITY);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        assertEquals(24, buffer.readerIndex());
+        assertEquals(1, buffer.refCnt());
+    }
+
     @Test
     public void testEquals() {
         assertFalse(buffer.equals(null));
@@ -1539,6 +1627,49 @@ public abstract class AbstractByteBufTest {
         assertTrue(buffer.slice(0, 31).compareTo(wrappedBuffer(value).order(LITTLE_ENDIAN)) < 0);
     }
 
+    @Test
+    public void testEqualsCompareToAndHashCodeAtAllOffsets() {
+        byte[] value = new byte[32];
+        random.nextBytes(value);
+        buffer.clear();
+        buffer.writeBytes(value);
+
+        for (int from = 0; from < 8; from ++) {
+            for (int length = 0; from + length <= value.length; length ++) {
+                buffer.setIndex(from, from + length);
+                ByteBuf same = wrappedBuffer(value, from, length);
+                assertTrue(ByteBufUtil.equals(buffer, same));
+                assertEquals(0, ByteBufUtil.compare(buffer, same));
+                assertEquals(hashCode(value, from, length), ByteBufUtil.hashCode(buffer));
+
+                for (int i = 0; i < length; i ++) {
+                    byte[] other = value.clone();
+                    other[from + i] ++;
+                    ByteBuf different = wrappedBuffer(other, from, length);
+                    assertFalse(ByteBufUtil.equals(buffer, different));
+                    if (buffer.order() == BIG_ENDIAN) {
+                        int expected = (value[from + i] & 0xFF) < (other[from + i] & 0xFF) ? -1 : 1;
+                        assertEquals(expected, Integer.signum(ByteBufUtil.compare(buffer, different)));
+                    }
+                }
+            }
+        }
+    }
+
+    // the hash code of a big endian buffer, as documented by ByteBuf.hashCode()
+    private static int hashCode(byte[] value, int from, int length) {
+        int hashCode = 1;
+        int i = from;
+        for (; i + 4 <= from + length; i += 4) {
+            hashCode = 31 * hashCode + (value[i] << 24 | (value[i + 1] & 0xFF) << 16 |
+                                        (value[i + 2] & 0xFF) << 8 | value[i + 3] & 0xFF);
+        }
+        for (; i < from + length; i ++) {
+            hashCode = 31 * hashCode + value[i];
+        }
+        return hashCode == 0 ? 1 : hashCode;
+    }
+
     @Test
     public void testToString() {
         buffer.clear();
@@ -1561,6 +1692,243 @@ public abstract class AbstractByteBufTest {
         assertEquals(3, buffer.indexOf(4, 1, (byte) 2));
     }
 
+    @Test
+    public void testIndexOfAllPositions() {
+        final int length = Math.min(buffer.capacity(), 64);
+        buffer.clear();
+        for (int i = 0; i < length; i ++) {
+            // high bit set, so that a carry between bytes would be noticed
+            buffer.writeByte(0x80 | i);
+        }
+
+        for (int from = 0; from < 9; from ++) {
+            for (int pos = 0; pos < length; pos ++) {
+                buffer.setByte(pos, '\n');
+                int first = pos >= from ? pos : -1;
+                assertEquals(first, buffer.indexOf(from, length, (byte) '\n'));
+                assertEquals(pos < length - from ? pos : -1, buffer.indexOf(length - from, 0, (byte) '\n'));
+                assertEquals(first, buffer.forEachByte(from, length - from, ByteBufProcessor.FIND_LF));
+                assertEquals(first, buffer.forEachByteDesc(from, length - from, ByteBufProcessor.FIND_LF));
+                buffer.setByte(pos, 0x80 | pos);
+            }
+        }
+
+        buffer.setByte(3, 0);
+        buffer.setByte(length - 3, 0);
+        assertEquals(3, buffer.forEachByte(0, length, ByteBufProcessor.FIND_NUL));
+        assertEquals(length - 3, buffer.forEachByteDesc(0, length, ByteBufProcessor.FIND_NUL));
+        assertEquals(-1, buffer.forEachByte(0, length, ByteBufProcessor.FIND_CR));
+    }
+
+    @Test
+    public void testWriteAndReadUtf8() {
+        String[] strings = {
+            "", "netty", "caf\u00e9", "\u65e5\u672c\u8a9e", "\ud83d\ude00 smile", "lone \ud800 surrogate", "end \udc00"
+        };
+        for (String s: strings) {
+            byte[] expected = s.getBytes(CharsetUtil.UTF_8);
+            buffer.clear();
+            assertEquals(expected.length, ByteBufUtil.writeUtf8(buffer, s));
+            assertEquals(expected.length, buffer.readableBytes());
+            byte[] actual = new byte[expected.length];
+            buffer.getBytes(0, actual);
+            assertArrayEquals(expected, actual);
+
+            assertEquals(new String(expected, CharsetUtil.UTF_8), ByteBufUtil.readUtf8(buffer, expected.length));
+            assertFalse(buffer.isReadable());
+        }
+    }
+
+    @Test
+    public void testToStringMalformedUtf8() {
+        byte[] malformed = {
+            'a', (byte) 0xC0, (byte) 0x80, 'b', (byte) 0xED, (byte) 0xA0, (byte) 0x80, 'c', (byte) 0xE2, (byte) 0x82
+        };
+        buffer.clear();
+        buffer.writeBytes(malformed);
+        assertEquals(new String(malformed, CharsetUtil.UTF_8), buffer.toString(CharsetUtil.UTF_8));
+    }
+
+    @Test
+    public void testWriteAndReadAscii() {
+        buffer.clear();
+        assertEquals(5, ByteBufUtil.writeAscii(buffer, "a\u00e9b\n\u0000"));
+        assertEquals("a?b\n\u0000", buffer.toString(CharsetUtil.US_ASCII));
+
+        buffer.setByte(1, 0xE9);
+        assertEquals("a\ufffdb\n\u0000", ByteBufUtil.readAscii(buffer, 5));
+        assertFalse(buffer.isReadable());
+    }
+
+    @Test
+    public void testVarInts() {
+        Assume.assumeTrue(buffer instanceof AbstractByteBuf);
+        AbstractByteBuf buf = (AbstractByteBuf) buffer;
+
+        for (int bits = 0; bits <= 64; bits ++) {
+            long mask = bits == 64 ? -1L : (1L << bits) - 1;
+            for (long v: new long[] { mask, mask + 1, random.nextLong() & mask }) {
+                byte[] expected = varInt(v);
+                buf.clear();
+                buf.writeVarInt64(v);
+                assertEquals(expected.length, buf.readableBytes());
+                for (int i = 0; i < expected.length; i ++) {
+                    assertEquals(expected[i], buf.getByte(i));
+                }
+                // with no byte after the varint and with more than 8 bytes readable
+                assertEquals(v, buf.readVarInt64());
+                assertFalse(buf.isReadable());
+                buf.readerIndex(0);
+                buf.writeLong(-1);
+                assertEquals(v, buf.readVarInt64());
+                assertEquals(expected.length, buf.readerIndex());
+            }
+        }
+
+        for (int v: new int[] { 0, 1, 127, 128, 300, Integer.MAX_VALUE, Integer.MIN_VALUE, -1, -64, 63, -65 }) {
+            buf.clear();
+            buf.writeVarInt32(v);
+            assertEquals(varInt(v & 0xFFFFFFFFL).length, buf.readableBytes());
+            buf.writeZigZag32(v);
+            buf.writeZigZag64(v);
+            buf.writeZigZag64(v * 0x100000001L);
+            assertEquals(v, buf.readVarInt32());
+            assertEquals(v, buf.readZigZag32());
+            assertEquals(v, buf.readZigZag64());
+            assertEquals(v * 0x100000001L, buf.readZigZag64());
+            assertFalse(buf.isReadable());
+        }
+
+        buf.clear();
+        buf.writeZigZag32(-1);
+        buf.writeZigZag32(1);
+        buf.writeZigZag32(-64);
+        buf.writeZigZag32(64);
+        assertEquals(5, buf.readableBytes());
+    }
+
+    @Test
+    public void testMalformedVarInts() {
+        Assume.assumeTrue(buffer instanceof AbstractByteBuf);
+        AbstractByteBuf buf = (AbstractByteBuf) buffer;
+
+        buf.clear();
+        buf.writeByte(0x80);
+        buf.writeByte(0x80);
+        try {
+            buf.readVarInt32();
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        assertEquals(0, buf.readerIndex());
+
+        for (int readable: new int[] { 6, 12 }) {
+            buf.clear();
+            for (int i = 0; i < readable; i ++) {
+                buf.writeByte(i < 5 ? 0x80 : 0x01);
+            }
+            try {
+                buf.readVarInt32();
+                fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            assertEquals(0, buf.readerIndex());
+            assertEquals(1L << 35, buf.readVarInt64());
+        }
+    }
+
+    @Test
+    public void testIntsAndLongs() {
+        int[] ints = new int[CAPACITY / 4 - 1];
+        long[] longs = new long[CAPACITY / 8 - 1];
+        for (int i = 0; i < ints.length; i ++) {
+            ints[i] = random.nextInt();
+        }
+        for (int i = 0; i < longs.length; i ++) {
+            longs[i] = random.nextLong();
+        }
+
+        // at every alignment, so that the elements of a composite buffer may span components
+        for (int index = 0; index < 8; index ++) {
+            buffer.clear();
+            buffer.setInts(index, ints, 1, ints.length - 1);
+            for (int i = 1; i < ints.length; i ++) {
+                assertEquals(ints[i], buffer.getInt(index + (i - 1) * 4));
+            }
+            int[] intsCopy = new int[ints.length];
+            buffer.getInts(index, intsCopy, 1, ints.length - 1);
+            assertEquals(0, intsCopy[0]);
+            assertArrayEquals(Arrays.copyOfRange(ints, 1, ints.length), Arrays.copyOfRange(intsCopy, 1, ints.length));
+
+            buffer.setLongs(index, longs, 0, longs.length);
+            for (int i = 0; i < longs.length; i ++) {
+                assertEquals(longs[i], buffer.getLong(index + i * 8));
+            }
+            long[] longsCopy = new long[longs.length];
+            buffer.getLongs(index, longsCopy, 0, longs.length);
+            assertArrayEquals(longs, longsCopy);
+        }
+    }
+
+    @Test
+    public void testFloatsAndDoubles() {
+        float[] floats = { 0f, -0f, 1.5f, Float.NaN, Float.intBitsToFloat(0x7FC01234), Float.MAX_VALUE, -1e-40f };
+        double[] doubles = { 0d, -0d, 1.5d, Double.NaN, Double.longBitsToDouble(0x7FF8000012345678L), -1e-310d };
+
+        buffer.clear();
+        buffer.setFloats(3, floats, 0, floats.length);
+        float[] floatsCopy = new float[floats.length];
+        buffer.getFloats(3, floatsCopy, 0, floats.length);
+        for (int i = 0; i < floats.length; i ++) {
+            assertEquals(Float.floatToRawIntBits(floats[i]), buffer.getInt(3 + i * 4));
+            assertEquals(Float.floatToRawIntBits(floats[i]), Float.floatToRawIntBits(floatsCopy[i]));
+        }
+
+        buffer.setDoubles(5, doubles, 0, doubles.length);
+        double[] doublesCopy = new double[doubles.length];
+        buffer.getDoubles(5, doublesCopy, 0, doubles.length);
+        for (int i = 0; i < doubles.length; i ++) {
+            assertEquals(Double.doubleToRawLongBits(doubles[i]), buffer.getLong(5 + i * 8));
+            assertEquals(Double.doubleToRawLongBits(doubles[i]), Double.doubleToRawLongBits(doublesCopy[i]));
+        }
+    }
+
+    @Test
+    public void testPrimitiveArraysOutOfBounds() {
+        int[] ints = new int[CAPACITY / 4];
+        buffer.setInts(0, ints, 0, ints.length);
+        try {
+            buffer.setInts(1, ints, 0, ints.length);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            buffer.getLongs(0, new long[4], 1, 4);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            buffer.getInts(0, ints, 0, -1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    private static byte[] varInt(long value) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+        return out.toByteArray();
+    }
+
     @Test
     public void testNioBuffer1() {
         Assume.assumeTrue(buffer.nioBufferCount() == 1);
@@ -17,8 +17,11 @@ package io.netty.buffer;
 
 import org.junit.Test;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -158,6 +161,33 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
         assertTrue(ByteBufUtil.equals(a, b));
     }
 
+    @Test
+    public void testPinComponents() {
+        ByteBufAllocator alloc = new PooledByteBufAllocator(false);
+        ByteBuf c1 = alloc.buffer(8).writeLong(1);
+        ByteBuf c2 = alloc.buffer(8).writeLong(2);
+        CompositeByteBuf buf = compositeBuffer(Integer.MAX_VALUE).addComponent(c1);
+
+        buf.pin();
+        assertTrue(PooledByteBuf.isPinned(c1.getId()));
+
+        // components added while pinned are pinned as well
+        buf.addComponent(c2);
+        assertTrue(PooledByteBuf.isPinned(c2.getId()));
+
+        buf.unpin();
+        assertFalse(PooledByteBuf.isPinned(c1.getId()));
+        assertFalse(PooledByteBuf.isPinned(c2.getId()));
+
+        try {
+            buf.unpin();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        buf.release();
+    }
+
     @Test
     public void testAutoConsolidation() {
         CompositeByteBuf buf = compositeBuffer(2);
@@ -170,10 +200,40 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
 
         buf.addComponent(wrappedBuffer(new byte[] { 4, 5, 6 }));
 
-        assertEquals(1, buf.numComponents());
-        assertTrue(buf.hasArray());
-        assertNotNull(buf.array());
-        assertEquals(0, buf.arrayOffset());
+        // only the two smaller components are merged
+        assertEquals(2, buf.numComponents());
+        assertEquals(wrappedBuffer(new byte[] { 1, 2, 3 }), buf.component(0));
+        assertEquals(wrappedBuffer(new byte[] { 4, 5, 6 }), buf.component(1));
+        buf.release();
+    }
+
+    @Test
+    public void testAutoConsolidationKeepsLargeComponents() {
+        byte[] header = new byte[100];
+        byte[] body = new byte[100];
+        CompositeByteBuf buf = freeLater(compositeBuffer(3));
+        buf.addComponent(wrappedBuffer(header));
+        buf.addComponent(wrappedBuffer(new byte[] { 1 }));
+        buf.addComponent(wrappedBuffer(new byte[] { 2, 3 }));
+        buf.addComponent(wrappedBuffer(body));
+
+        assertEquals(3, buf.numComponents());
+        assertSame(header, buf.internalComponent(0).array());
+        assertEquals(wrappedBuffer(new byte[] { 1, 2, 3 }), buf.component(1));
+        assertSame(body, buf.internalComponent(2).array());
+        assertEquals(203, buf.capacity());
+
+        // adding many at once merges them in one go
+        CompositeByteBuf many = freeLater(compositeBuffer(4));
+        many.addComponent(wrappedBuffer(header));
+        for (int i = 0; i < 10; i ++) {
+            many.addComponent(wrappedBuffer(new byte[] { (byte) i }));
+        }
+        many.addComponent(wrappedBuffer(body));
+        assertEquals(4, many.numComponents());
+        assertSame(header, many.internalComponent(0).array());
+        assertSame(body, many.internalComponent(3).array());
+        assertEquals(210, many.capacity());
     }
 
     @Test
@@ -577,6 +637,183 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
         assertEquals(1, buf.numComponents());
     }
 
+    @Test
+    public void testForEachByteAcrossComponents() {
+        CompositeByteBuf buf = freeLater(compositeBuffer(Integer.MAX_VALUE));
+        for (int i = 0; i < 64; i ++) {
+            byte[] bytes = new byte[i % 5 + 1];
+            for (int j = 0; j < bytes.length; j ++) {
+                bytes[j] = (byte) (buf.capacity() + j);
+            }
+            buf.addComponent(wrappedBuffer(bytes));
+        }
+        int capacity = buf.capacity();
+        assertTrue(capacity < 256);
+        buf.writerIndex(capacity);
+
+        for (int from = 0; from < capacity; from ++) {
+            for (final int value: new int[] { from, from + 7, capacity - 1 }) {
+                ByteBufProcessor stopAtValue = new ByteBufProcessor() {
+                    @Override
+                    public boolean process(byte b) throws Exception {
+                        return b != (byte) value;
+                    }
+                };
+                int expected = value < capacity ? value : -1;
+                assertEquals(expected, buf.forEachByte(from, capacity - from, stopAtValue));
+                assertEquals(expected, buf.forEachByteDesc(from, capacity - from, stopAtValue));
+            }
+        }
+        // only the first byte is 0, and searched by the fast path of its component
+        assertEquals(0, buf.forEachByteDesc(0, capacity, ByteBufProcessor.FIND_NUL));
+        assertEquals(-1, buf.forEachByte(1, capacity - 1, ByteBufProcessor.FIND_NUL));
+
+        final int[] count = new int[1];
+        assertEquals(-1, buf.forEachByte(1, capacity - 2, new ByteBufProcessor() {
+            @Override
+            public boolean process(byte b) throws Exception {
+                assertEquals((byte) (count[0] + 1), b);
+                count[0] ++;
+                return true;
+            }
+        }));
+        assertEquals(capacity - 2, count[0]);
+    }
+
+    @Test
+    public void testComponentLookupAfterModification() {
+        CompositeByteBuf buf = freeLater(compositeBuffer());
+        buf.addComponent(wrappedBuffer(new byte[] { 1, 2 }));
+        buf.addComponent(wrappedBuffer(new byte[] { 3, 4 }));
+        buf.addComponent(wrappedBuffer(new byte[] { 5, 6 }));
+        buf.writerIndex(6);
+        assertEquals(6, buf.getByte(5));
+        assertEquals(2, buf.toComponentIndex(5));
+
+        buf.removeComponent(0);
+        assertEquals(1, buf.toComponentIndex(3));
+        assertEquals(6, buf.getByte(3));
+        assertEquals(3, buf.getByte(0));
+
+        buf.addComponent(0, wrappedBuffer(new byte[] { 7 }));
+        assertEquals(0, buf.toComponentIndex(0));
+        assertEquals(7, buf.getByte(0));
+        assertEquals(3, buf.getByte(1));
+        assertEquals(5, buf.getByte(3));
+
+        buf.consolidate();
+        assertEquals(0, buf.toComponentIndex(4));
+        assertEquals(6, buf.getByte(4));
+    }
+
+    @Test
+    public void testGatheringWriteAndScatteringRead() throws IOException {
+        CompositeByteBuf buf = freeLater(compositeBuffer(Integer.MAX_VALUE));
+        for (int i = 0; i < 8; i ++) {
+            buf.addComponent((i % 2 == 0 ? buffer(i + 1) : directBuffer(i + 1)).writerIndex(i + 1));
+        }
+        int capacity = buf.capacity();
+        byte[] bytes = new byte[capacity];
+        for (int i = 0; i < capacity; i ++) {
+            bytes[i] = (byte) i;
+        }
+
+        VectoredChannel in = new VectoredChannel(ByteBuffer.wrap(bytes, 0, capacity - 1));
+        assertEquals(capacity - 1, buf.setBytes(1, in, capacity - 1));
+        assertEquals(1, in.vectoredCalls);
+        for (int i = 1; i < capacity; i ++) {
+            assertEquals((byte) (i - 1), buf.getByte(i));
+        }
+        assertEquals(-1, buf.setBytes(0, in, capacity));
+
+        VectoredChannel out = new VectoredChannel(ByteBuffer.allocate(capacity));
+        assertEquals(capacity - 2, buf.getBytes(1, out, capacity - 2));
+        assertEquals(1, out.vectoredCalls);
+        out.data.flip();
+        for (int i = 0; i < capacity - 2; i ++) {
+            assertEquals((byte) i, out.data.get());
+        }
+    }
+
+    @Test
+    public void testNioBufferMergesAllComponents() {
+        CompositeByteBuf buf = freeLater(compositeBuffer());
+        buf.addComponent(wrappedBuffer(new byte[] { 1, 2 }));
+        buf.addComponent(wrappedBuffer(new byte[] { 3 }));
+        buf.addComponent(wrappedBuffer(new byte[] { 4, 5 }));
+        assertEquals(ByteBuffer.wrap(new byte[] { 2, 3, 4 }), buf.nioBuffer(1, 3));
+    }
+
+    /**
+     * Reads from and writes to {@link #data}, counting the calls with more than one buffer.
+     */
+    private static final class VectoredChannel implements GatheringByteChannel, ScatteringByteChannel {
+        final ByteBuffer data;
+        int vectoredCalls;
+
+        VectoredChannel(ByteBuffer data) {
+            this.data = data;
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) {
+            vectoredCalls ++;
+            if (!data.hasRemaining()) {
+                return -1;
+            }
+            long readBytes = 0;
+            for (int i = offset; i < offset + length; i ++) {
+                while (dsts[i].hasRemaining() && data.hasRemaining()) {
+                    dsts[i].put(data.get());
+                    readBytes ++;
+                }
+            }
+            return readBytes;
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts) {
+            return read(dsts, 0, dsts.length);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) {
+            vectoredCalls --;
+            return (int) read(new ByteBuffer[] { dst });
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            vectoredCalls ++;
+            long writtenBytes = 0;
+            for (int i = offset; i < offset + length; i ++) {
+                writtenBytes += srcs[i].remaining();
+                data.put(srcs[i]);
+            }
+            return writtenBytes;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            vectoredCalls --;
+            return (int) write(new ByteBuffer[] { src });
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     @Override
     @Test
     public void testInternalNioBuffer() {
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class AllocationTraceReplayerTest {
+
+    private static AllocationTraceReplayer.Report replay(ByteArrayOutputStream trace, int maxMemoryMB)
+            throws IOException {
+        // 8192 << 11 = 16MB chunks, one heap arena
+        return AllocationTraceReplayer.replay(
+                new ByteArrayInputStream(trace.toByteArray()), 8192, 11, 1, 0, maxMemoryMB);
+    }
+
+    @Test
+    public void testRecordAndReplay() throws IOException {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false);
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+
+        PooledByteBufAllocator.setTraceRecorder(new AllocationTraceRecorder(trace));
+        try {
+            ByteBuf small = allocator.heapBuffer(100);
+            ByteBuf normal = allocator.heapBuffer(20000);
+            normal.capacity(40000);
+            small.release();
+            normal.release();
+        } finally {
+            PooledByteBufAllocator.setTraceRecorder(null);
+        }
+
+        assertEquals(8 + 5 * AllocationTraceRecorder.RECORD_SIZE, trace.size());
+
+        AllocationTraceReplayer.Report report = replay(trace, 1024);
+        assertEquals(5, report.getEvents());
+        assertEquals(0, report.getUnknownEvents());
+        assertEquals(1, report.getChunksAllocated());
+        assertEquals(16 << 20, report.getPeakRssBytes());
+        assertEquals(0, report.getSwapOutCount());
+    }
+
+    @Test
+    public void testSwapSimulated() throws IOException {
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        AllocationTraceRecorder recorder = new AllocationTraceRecorder(trace);
+        long now = System.nanoTime();
+        recorder.record(AllocationTraceRecorder.ALLOCATE, false, 1, 8 << 20, now);
+        recorder.record(AllocationTraceRecorder.ALLOCATE, false, 2, 4 << 20, now);
+        recorder.record(AllocationTraceRecorder.ALLOCATE, false, 3, 4 << 20, now);
+        // the chunk is full and at maxMemory, so buffer 2 goes to disk
+        recorder.record(AllocationTraceRecorder.ALLOCATE, false, 4, 4 << 20, now);
+        // and comes back by pushing buffer 3 out
+        recorder.record(AllocationTraceRecorder.SWAP_IN, false, 2, 4 << 20, now);
+        recorder.close();
+
+        AllocationTraceReplayer.Report report = replay(trace, 16);
+        assertEquals(1, report.getChunksAllocated());
+        assertEquals(16 << 20, report.getPeakRssBytes());
+        assertEquals(0.5, report.getFragmentationAtPeak(), 0.001);
+        assertEquals(2, report.getSwapOutCount());
+        assertEquals(8 << 20, report.getSwapOutBytes());
+        assertEquals(1, report.getSwapInCount());
+
+        // with enough memory nothing is swapped, and the swap-in is a no-op
+        report = replay(trace, 1024);
+        assertEquals(2, report.getChunksAllocated());
+        assertEquals(0, report.getSwapOutCount());
+        assertEquals(0, report.getSwapInCount());
+    }
+}
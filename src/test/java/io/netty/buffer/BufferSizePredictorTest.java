@@ -0,0 +1,153 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link BufferSizePredictor} and the allocation of buffers with it by {@link PooledByteBufAllocator}.
+ */
+public class BufferSizePredictorTest {
+
+    @Test
+    public void testInitialCapacity() {
+        assertEquals(256, new BufferSizePredictor().nextCapacity());
+        assertEquals(1000, new BufferSizePredictor(1000).nextCapacity());
+    }
+
+    @Test
+    public void testLearnsSize() {
+        BufferSizePredictor predictor = new BufferSizePredictor();
+        predictor.record(3000);
+        assertEquals(4096, predictor.nextCapacity());
+        predictor.record(10);
+        assertEquals(4096, predictor.nextCapacity());
+
+        // the old sizes fade out
+        for (int i = 0; i < 4 * BufferSizePredictor.HALF_LIFE; i ++) {
+            predictor.record(100);
+        }
+        assertEquals(128, predictor.nextCapacity());
+
+        predictor.reset();
+        assertEquals(256, predictor.nextCapacity());
+    }
+
+    @Test
+    public void testIgnoresRareLargeSizes() {
+        BufferSizePredictor predictor = new BufferSizePredictor();
+        for (int i = 0; i < 100; i ++) {
+            predictor.record(i % 20 == 0 ? 1 << 20 : 500);
+        }
+        assertEquals(512, predictor.nextCapacity());
+    }
+
+    @Test
+    public void testLimits() {
+        BufferSizePredictor predictor = new BufferSizePredictor();
+        predictor.record(0);
+        assertEquals(64, predictor.nextCapacity());
+        predictor.reset();
+        predictor.record(Integer.MAX_VALUE);
+        assertEquals(4 << 20, predictor.nextCapacity());
+    }
+
+    @Test
+    public void testNoLossOfPrecision() {
+        BufferSizePredictor predictor = new BufferSizePredictor();
+        for (int i = 0; i < 100000; i ++) {
+            predictor.record(i % 2 == 0 ? 1024 : 2048);
+        }
+        assertEquals(2048, predictor.nextCapacity());
+        for (int i = 0; i < 4 * BufferSizePredictor.HALF_LIFE; i ++) {
+            predictor.record(1024);
+        }
+        assertEquals(1024, predictor.nextCapacity());
+    }
+
+    @Test
+    public void testConcurrentRecord() throws InterruptedException {
+        final BufferSizePredictor predictor = new BufferSizePredictor();
+        final AtomicInteger mispredictions = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i ++) {
+            // every thread records a size of its own, so all predictions must be one of these
+            final int size = 512 << i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    // enough samples to rescale the weights many times
+                    for (int j = 0; j < 200000; j ++) {
+                        predictor.record(size);
+                        int nextCapacity = predictor.nextCapacity();
+                        if (nextCapacity < 512 || nextCapacity > 512 << 3) {
+                            mispredictions.incrementAndGet();
+                        }
+                    }
+                }
+            };
+        }
+        for (Thread thread: threads) {
+            thread.start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        assertEquals(0, mispredictions.get());
+        int nextCapacity = predictor.nextCapacity();
+        assertTrue(nextCapacity >= 512 && nextCapacity <= 512 << 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSize() {
+        new BufferSizePredictor().record(-1);
+    }
+
+    @Test
+    public void testPooledBufferRecordsOnRelease() {
+        PooledByteBufAllocator alloc = new PooledByteBufAllocator(false);
+        BufferSizePredictor predictor = alloc.sizePredictor(BufferSizePredictorTest.class);
+        assertSame(predictor, alloc.sizePredictor(BufferSizePredictorTest.class));
+        assertNotSame(predictor, new PooledByteBufAllocator(false).sizePredictor(BufferSizePredictorTest.class));
+
+        ByteBuf buf = alloc.heapBuffer(predictor);
+        assertEquals(256, buf.capacity());
+        buf.writeZero(5000);
+        buf.readerIndex(100);
+        ByteBuf retained = buf.retain();
+        assertFalse(retained.release());
+        assertEquals(256, predictor.nextCapacity());
+        assertTrue(buf.release());
+        assertEquals(8192, predictor.nextCapacity());
+
+        buf = alloc.directBuffer(predictor);
+        assertEquals(8192, buf.capacity());
+        buf.writeZero(5000);
+        assertTrue(buf.release());
+        assertEquals(8192, predictor.nextCapacity());
+
+        // a buffer reused from the pool does not report to the predictor of its previous use
+        buf = alloc.heapBuffer(16);
+        buf.writeZero(16);
+        assertTrue(buf.release());
+        assertEquals(8192, predictor.nextCapacity());
+    }
+}
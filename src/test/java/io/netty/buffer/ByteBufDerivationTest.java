@@ -199,6 +199,64 @@ public class ByteBufDerivationTest {
         }
     }
 
+    @Test
+    public void testRetainedSliceOfPooled() throws Exception {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.heapBuffer(8).setIndex(1, 7);
+        ByteBuf slice = buf.retainedSlice(1, 7);
+
+        assertThat(slice, instanceOf(PooledSlicedByteBuf.class));
+        assertThat(slice.unwrap(), sameInstance(buf));
+        assertThat(slice.readerIndex(), is(0));
+        assertThat(slice.writerIndex(), is(7));
+        assertThat(slice.capacity(), is(7));
+        assertThat(slice.maxCapacity(), is(7));
+        assertThat(slice.refCnt(), is(1));
+        assertThat(buf.refCnt(), is(2));
+
+        ByteBuf slice2 = slice.retainedSlice(1, 6);
+        assertThat(slice2.unwrap(), sameInstance(buf));
+        assertThat(slice.refCnt(), is(2));
+
+        // the last slice releases the one it was derived from
+        assertThat(slice.release(), is(false));
+        assertThat(buf.refCnt(), is(2));
+        assertThat(slice2.release(), is(true));
+        assertThat(slice.refCnt(), is(0));
+        assertThat(buf.refCnt(), is(1));
+
+        // the released slice is recycled
+        ByteBuf slice3 = buf.retainedSlice(0, 8);
+        assertThat(slice3, anyOf(sameInstance(slice), sameInstance(slice2)));
+        assertThat(slice3.capacity(), is(8));
+        assertThat(slice3.release(), is(true));
+        assertThat(buf.release(), is(true));
+    }
+
+    @Test
+    public void testRetainedDuplicateOfPooled() throws Exception {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(8).setIndex(1, 7);
+        ByteBuf dup = buf.retainedDuplicate();
+
+        assertThat(dup, instanceOf(PooledDuplicatedByteBuf.class));
+        assertThat(dup.unwrap(), sameInstance(buf));
+        assertThat(dup.readerIndex(), is(buf.readerIndex()));
+        assertThat(dup.writerIndex(), is(buf.writerIndex()));
+        assertThat(dup.capacity(), is(buf.capacity()));
+        assertThat(dup.maxCapacity(), is(buf.maxCapacity()));
+
+        dup.setIndex(2, 6);
+        assertThat(buf.readerIndex(), is(1));
+        assertThat(buf.writerIndex(), is(7));
+
+        ByteBuf slice = dup.retainedSlice(2, 4);
+        assertThat(slice.unwrap(), sameInstance(buf));
+        assertThat(dup.release(), is(false));
+        assertThat(buf.refCnt(), is(2));
+        assertThat(slice.release(), is(true));
+        assertThat(buf.refCnt(), is(1));
+        assertThat(buf.release(), is(true));
+    }
+
     private static int nestLevel(ByteBuf buf) {
         int depth = 0;
         for (ByteBuf b = buf.order(ByteOrder.BIG_ENDIAN);;) {
@@ -15,9 +15,15 @@
  */
 package io.netty.buffer;
 
+import io.netty.util.CharsetUtil;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
+import java.io.UTFDataFormatException;
 import java.nio.charset.Charset;
 
 import static io.netty.util.internal.EmptyArrays.*;
@@ -202,4 +208,106 @@ public class ByteBufStreamTest {
         assertEquals(charCount, count);
         in.close();
     }
+
+    @Test
+    public void testReadLineTerminators() throws Exception {
+        byte[] bytes = "a\rb\r\n\r\nc\n\rd\u00e9\u00ff\r".getBytes(CharsetUtil.ISO_8859_1);
+        for (ByteBuf buf: buffers(bytes)) {
+            ByteBufInputStream in = new ByteBufInputStream(buf);
+            assertEquals("a", in.readLine());
+            assertEquals("b", in.readLine());
+            assertEquals("", in.readLine());
+            assertEquals("c", in.readLine());
+            assertEquals("", in.readLine());
+            assertEquals("d\u00e9\u00ff", in.readLine());
+            assertNull(in.readLine());
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testReadLineCROnly() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i ++) {
+            text.append("line").append(i).append('\r');
+        }
+        text.append("last");
+        for (ByteBuf buf: buffers(text.toString().getBytes(CharsetUtil.ISO_8859_1))) {
+            ByteBufInputStream in = new ByteBufInputStream(buf);
+            for (int i = 0; i < 1000; i ++) {
+                assertEquals("line" + i, in.readLine());
+            }
+            assertEquals("last", in.readLine());
+            assertNull(in.readLine());
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testReadUTF() throws Exception {
+        String[] strings = {
+                "", "Hello, World!", "a\u0000b", "\u00e9t\u00e9", "\u20ac\uffff", "\ud83d\ude00 \u0080\u07ff\u0800",
+                new String(new char[10000]).replace('\u0000', '\u00e9')
+        };
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(expected);
+        for (String s: strings) {
+            out.writeUTF(s);
+        }
+        out.close();
+
+        for (ByteBuf buf: buffers(expected.toByteArray())) {
+            ByteBufInputStream in = new ByteBufInputStream(buf);
+            for (String s: strings) {
+                assertEquals(s, in.readUTF());
+            }
+            assertEquals(0, in.available());
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testReadMalformedUTF() throws Exception {
+        byte[][] malformed = {
+                { 0, 2, (byte) 0xC3, 'a' }, { 0, 1, (byte) 0xE2 }, { 0, 3, 'a', (byte) 0xE2, (byte) 0x82 },
+                { 0, 3, (byte) 0xE2, (byte) 0x82, 'a' }, { 0, 1, (byte) 0x80 }, { 0, 1, (byte) 0xF0 }
+        };
+        for (byte[] bytes: malformed) {
+            String expected = null;
+            try {
+                new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+                fail();
+            } catch (UTFDataFormatException e) {
+                expected = e.getMessage();
+            }
+            for (ByteBuf buf: buffers(bytes)) {
+                try {
+                    new ByteBufInputStream(buf).readUTF();
+                    fail();
+                } catch (UTFDataFormatException e) {
+                    // reported the same way as DataInputStream does
+                    assertEquals(expected, e.getMessage());
+                }
+                buf.release();
+            }
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testReadUTFPastLength() throws Exception {
+        ByteBuf buf = Unpooled.wrappedBuffer(new byte[] { 0, 4, 'a', 'b', 'c', 'd' });
+        new ByteBufInputStream(buf, 5).readUTF();
+    }
+
+    // the buffers which are read from their memory, and a composite buffer which is not
+    private static ByteBuf[] buffers(byte[] bytes) {
+        ByteBuf composite = Unpooled.compositeBuffer().addComponent(Unpooled.wrappedBuffer(bytes));
+        return new ByteBuf[] {
+                Unpooled.wrappedBuffer(bytes),
+                Unpooled.directBuffer(bytes.length).writeBytes(bytes),
+                PooledByteBufAllocator.DEFAULT.heapBuffer(bytes.length).writeBytes(bytes),
+                PooledByteBufAllocator.DEFAULT.directBuffer(bytes.length).writeBytes(bytes),
+                composite.writerIndex(bytes.length)
+        };
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link CompositeByteBufOutputStream}.
+ */
+public class CompositeByteBufOutputStreamTest {
+
+    private static void writeAll(DataOutput out) throws IOException {
+        out.writeBoolean(true);
+        out.writeBoolean(false);
+        out.writeByte(42);
+        out.writeByte(224);
+        out.writeBytes("Hello, World!");
+        out.writeChars("Hello, World");
+        out.writeChar('!');
+        out.writeDouble(42.0);
+        out.writeFloat(42.0f);
+        out.writeInt(42);
+        out.writeInt(0x01020304);
+        out.writeLong(42);
+        out.writeLong(0x0102030405060708L);
+        out.writeShort(42);
+        out.writeShort(49152);
+        out.writeUTF("Hello, World!");
+        out.write(new byte[0]);
+        out.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17 });
+        out.write(new byte[] { 1, 3, 3, 4 }, 1, 2);
+    }
+
+    @Test
+    public void testSameAsDataOutputStream() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(expected);
+        writeAll(dataOut);
+        dataOut.close();
+
+        // every segment size up to 9 splits values of every size at every offset
+        for (int segmentSize = 1; segmentSize <= 9; segmentSize ++) {
+            CompositeByteBufOutputStream out =
+                    new CompositeByteBufOutputStream(UnpooledByteBufAllocator.DEFAULT, segmentSize);
+            writeAll(out);
+            out.close();
+
+            CompositeByteBuf buf = out.buffer();
+            assertEquals(expected.size(), out.writtenBytes());
+            assertEquals(expected.size(), buf.readableBytes());
+            assertEquals((expected.size() + segmentSize - 1) / segmentSize, buf.numComponents());
+            byte[] actual = new byte[buf.readableBytes()];
+            buf.readBytes(actual);
+            assertArrayEquals(expected.toByteArray(), actual);
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testSegmentsAreNotCopied() throws IOException {
+        CompositeByteBufOutputStream out = new CompositeByteBufOutputStream(PooledByteBufAllocator.DEFAULT, 8192);
+        assertEquals(0, out.writtenBytes());
+        assertEquals(0, out.buffer().numComponents());
+
+        out.writeLong(0);
+        ByteBuf first = out.buffer().component(0);
+        for (int i = 1; i < 4096; i ++) {
+            out.writeLong(i);
+        }
+        out.writeInt(-1);
+
+        CompositeByteBuf buf = out.buffer();
+        assertEquals(4096 * 8 + 4, buf.readableBytes());
+        assertEquals(5, buf.numComponents());
+        assertEquals(5 * 8192, buf.capacity());
+        assertSame(first.unwrap(), buf.component(0).unwrap());
+        for (int i = 0; i < 4096; i ++) {
+            assertEquals(i, buf.readLong());
+        }
+        assertEquals(-1, buf.readInt());
+
+        // writing on after buffer() continues in the last segment
+        out.writeInt(-2);
+        assertSame(buf, out.buffer());
+        assertEquals(-2, buf.readInt());
+        assertEquals(5, buf.numComponents());
+
+        assertTrue(buf.release());
+    }
+
+    @Test
+    public void testPooledSegmentsAreNotDoubled() throws IOException {
+        CompositeByteBufOutputStream out = new CompositeByteBufOutputStream(new PooledByteBufAllocator(false), 8192);
+        out.write(new byte[2 * 8192]);
+
+        CompositeByteBuf buf = out.buffer();
+        for (int i = 0; i < buf.numComponents(); i ++) {
+            PooledByteBuf<?> segment = (PooledByteBuf<?>) buf.component(i).unwrap();
+            assertEquals(8192, segment.capacity());
+            // the run taken from the chunk is no larger than the segment
+            assertEquals(8192, segment.chunk.runLength(segment.chunk.getMemoryMap()[(int) segment.handle]));
+        }
+
+        assertTrue(buf.release());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testWriteOutOfBounds() throws IOException {
+        CompositeByteBufOutputStream out = new CompositeByteBufOutputStream(UnpooledByteBufAllocator.DEFAULT);
+        try {
+            out.write(new byte[4], 2, 3);
+        } finally {
+            out.buffer().release();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSegmentSize() {
+        new CompositeByteBufOutputStream(UnpooledByteBufAllocator.DEFAULT, 0);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the reference counts of buffers confined to a thread by {@link AbstractReferenceCountedByteBuf#confine()}.
+ */
+public class ConfinedReferenceCountTest {
+
+    @Before
+    public void checkUnsafe() {
+        Assume.assumeTrue(PlatformDependent.hasUnsafe());
+    }
+
+    @Test
+    public void testRetainAndRelease() {
+        AbstractReferenceCountedByteBuf buf = newBuffer();
+        buf.confine();
+        assertTrue(buf.isConfined());
+
+        buf.retain().retain(2);
+        assertEquals(4, buf.refCnt());
+        assertFalse(buf.release(2));
+        assertFalse(buf.release());
+        assertEquals(1, buf.refCnt());
+
+        // derived buffers count on the confined one
+        ByteBuf slice = buf.slice(0, 8).retain();
+        assertEquals(2, buf.refCnt());
+        assertFalse(slice.release());
+
+        assertTrue(buf.release());
+        assertEquals(0, buf.refCnt());
+        assertFalse(buf.isConfined());
+    }
+
+    @Test(expected = IllegalReferenceCountException.class)
+    public void testReleaseTooOften() {
+        AbstractReferenceCountedByteBuf buf = newBuffer();
+        buf.confine();
+        try {
+            buf.release(2);
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testOtherThread() throws Exception {
+        final AbstractReferenceCountedByteBuf buf = newBuffer();
+        buf.confine();
+
+        assertTrue(runInOtherThread(new Runnable() {
+            @Override
+            public void run() {
+                buf.retain();
+            }
+        }) instanceof IllegalStateException);
+        assertTrue(runInOtherThread(new Runnable() {
+            @Override
+            public void run() {
+                buf.release();
+            }
+        }) instanceof IllegalStateException);
+        assertTrue(runInOtherThread(new Runnable() {
+            @Override
+            public void run() {
+                buf.confine();
+            }
+        }) instanceof IllegalStateException);
+        assertEquals(1, buf.refCnt());
+
+        buf.retain();
+        buf.share();
+        assertFalse(buf.isConfined());
+        assertNull(runInOtherThread(new Runnable() {
+            @Override
+            public void run() {
+                assertEquals(2, buf.refCnt());
+                assertFalse(buf.release());
+            }
+        }));
+        assertEquals(1, buf.refCnt());
+        assertTrue(buf.release());
+    }
+
+    @Test
+    public void testRecycledBufferIsShared() {
+        AbstractReferenceCountedByteBuf buf = newBuffer();
+        buf.confine();
+        buf.release();
+
+        for (int i = 0; i < 16; i ++) {
+            AbstractReferenceCountedByteBuf newBuf = newBuffer();
+            assertFalse(newBuf.isConfined());
+            newBuf.release();
+        }
+    }
+
+    private static AbstractReferenceCountedByteBuf newBuffer() {
+        return (AbstractReferenceCountedByteBuf) PooledByteBufAllocator.DEFAULT.heapBuffer(16);
+    }
+
+    /**
+     * Runs {@code task} in a new thread and returns what it threw, if anything.
+     */
+    private static Throwable runInOtherThread(final Runnable task) throws InterruptedException {
+        final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    cause.set(t);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        return cause.get();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import io.netty.util.Pair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeferredFreeTest {
+
+    private static void releaseInOtherThread(final ByteBuf... bufs) throws InterruptedException {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                for (ByteBuf buf: bufs) {
+                    buf.release();
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+    }
+
+    private static Pair<Long, Long> inMemoryKey(ByteBuf buf) {
+        PooledByteBuf<?> pooled = (PooledByteBuf<?>) buf;
+        return new Pair<Long, Long>(pooled.chunk.getId(), pooled.handle);
+    }
+
+    @Test
+    public void testFreedOnNextAllocation() throws InterruptedException {
+        // two arenas, the first one for this thread and the second one for the releasing thread
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 2, 0, 8192, 11);
+        ByteBuf buf = allocator.heapBuffer(20000);
+        Pair<Long, Long> key = inMemoryKey(buf);
+
+        releaseInOtherThread(buf);
+        assertEquals(0, buf.refCnt());
+        assertTrue(PooledByteBuf.getInMemoryMap().containsKey(key));
+
+        ByteBuf other = allocator.heapBuffer(100);
+        assertFalse(PooledByteBuf.getInMemoryMap().containsKey(key));
+        other.release();
+    }
+
+    @Test
+    public void testFreedWhenBatchIsFull() throws InterruptedException {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 2, 0, 8192, 11);
+        ByteBuf[] bufs = new ByteBuf[PooledByteBufAllocator.getDefaultDeferredFreeBatch()];
+        List<Pair<Long, Long>> keys = new ArrayList<Pair<Long, Long>>(bufs.length);
+        for (int i = 0; i < bufs.length; i ++) {
+            bufs[i] = allocator.heapBuffer(100);
+            keys.add(inMemoryKey(bufs[i]));
+        }
+
+        releaseInOtherThread(bufs);
+        for (Pair<Long, Long> key: keys) {
+            assertFalse(PooledByteBuf.getInMemoryMap().containsKey(key));
+        }
+    }
+
+    @Test
+    public void testReleasingThreadGetsNoArena() throws InterruptedException {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 2, 0, 8192, 11);
+        ByteBuf buf = allocator.heapBuffer(100);
+        PoolArena<?> arena = ((PooledByteBuf<?>) buf).chunk.arena;
+
+        releaseInOtherThread(buf);
+
+        // the next allocating thread is assigned the second arena, as the releasing thread took none
+        final ByteBuf[] allocated = new ByteBuf[1];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                allocated[0] = allocator.heapBuffer(100);
+            }
+        };
+        thread.start();
+        thread.join();
+        assertNotSame(arena, ((PooledByteBuf<?>) allocated[0]).chunk.arena);
+        allocated[0].release();
+    }
+}
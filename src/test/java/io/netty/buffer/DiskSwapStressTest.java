@@ -85,8 +85,8 @@ class AllocateTask implements Runnable {
         int[] ints = new int[buf.capacity() >>> 2];
         for (int i = 0; i < ints.length; i++) {
             ints[i] = random.nextInt();
-            buf.setInt(i << 2, ints[i]);
         }
+        buf.setInts(0, ints, 0, ints.length);
 
         return ints;
     }
@@ -1,9 +1,15 @@
 package io.netty.buffer;
 
+import io.netty.disk.CompressedSwap;
 import io.netty.util.Pair;
 import io.netty.util.internal.chmv8.ConcurrentHashMapV8;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -20,6 +26,7 @@ public class DiskSwapTest {
 
     private static final ConcurrentHashMapV8<Pair<Long, Long>, Long> inMemoryMap = PooledByteBuf.getInMemoryMap();
     private static final ConcurrentHashMapV8<Long, int[]> onDiskMap = PooledByteBuf.getOnDiskMap();
+    private static final ConcurrentHashMapV8<Long, ByteBuffer> compressedMap = PooledByteBuf.getCompressedMap();
 
     @Test
     public void testSwapSimple() {
@@ -89,9 +96,9 @@ public class DiskSwapTest {
         allocator.buffer(64 << 20);
         allocator.buffer((8 << 20) - 1);
         ByteBuf bb3 = allocator.buffer((4 << 20) - 1);
-        ByteBuf bb4 = allocator.buffer((2 << 20) - 1);
-        // bb3 will be swapped out
-        bb4.capacity(bb4.capacity() * 2);
+        allocator.buffer((2 << 20) - 1);
+        // bb3 will be swapped out; growing the last buffer would not do, as it may grow into its free buddy
+        allocator.buffer((4 << 20) - 1);
 
         assertTrue(onDiskMap.containsKey(bb3.getId()));
 
@@ -99,4 +106,155 @@ public class DiskSwapTest {
 
         assertFalse(onDiskMap.containsKey(bb3.getId()));
     }
+
+    @Test
+    public void testGetBytesWithoutSwapIn() throws IOException {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(true);
+
+        allocator.buffer(64 << 20);
+        allocator.buffer((8 << 20) - 1);
+        ByteBuf bb3 = allocator.buffer((4 << 20) - 1);
+        byte[] bytes3 = initByteBuf(bb3);
+        allocator.buffer((2 << 20) - 1);
+        // bb3 will be swapped out; growing the last buffer would not do, as it may grow into its free buddy
+        allocator.buffer((4 << 20) - 1);
+
+        assertTrue(onDiskMap.containsKey(bb3.getId()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bb3.getBytes(0, out, bb3.capacity());
+
+        File tempFile = File.createTempFile("transfer", ".dat");
+        tempFile.deleteOnExit();
+        RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");
+        int written = bb3.getBytes(1, raf.getChannel(), bb3.capacity() - 1);
+        assertEquals(bb3.capacity() - 1, written);
+
+        // served straight from the swap file
+        assertTrue(onDiskMap.containsKey(bb3.getId()));
+
+        assertArrayEquals(bytes3, out.toByteArray());
+        byte[] transferred = new byte[written];
+        raf.seek(0);
+        raf.readFully(transferred);
+        raf.close();
+        for (int i = 0; i < written; i++) {
+            assertEquals(bytes3[i + 1], transferred[i]);
+        }
+    }
+
+    @Test
+    public void testPinPreventsSwapOut() {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(true);
+
+        allocator.buffer(64 << 20);
+        allocator.buffer((8 << 20) - 1);
+        ByteBuf bb3 = allocator.buffer((4 << 20) - 1);
+        allocator.buffer((2 << 20) - 1);
+
+        // bb3 is the only candidate, so the chunk must not be swapped while it is pinned
+        bb3.pin();
+        allocator.buffer((4 << 20) - 1);
+        assertFalse(onDiskMap.containsKey(bb3.getId()));
+
+        bb3.unpin();
+        try {
+            bb3.unpin();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPinSwapsIn() {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(true);
+
+        allocator.buffer(64 << 20);
+        allocator.buffer((8 << 20) - 1);
+        ByteBuf bb3 = allocator.buffer((4 << 20) - 1);
+        allocator.buffer((2 << 20) - 1);
+        // bb3 will be swapped out; growing the last buffer would not do, as it may grow into its free buddy
+        allocator.buffer((4 << 20) - 1);
+        assertTrue(onDiskMap.containsKey(bb3.getId()));
+
+        bb3.pin();
+        assertFalse(onDiskMap.containsKey(bb3.getId()));
+        bb3.unpin();
+    }
+
+    @Test
+    public void testEvictFirstSwappedOutFirst() {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(true);
+
+        allocator.buffer(64 << 20);
+        allocator.buffer((8 << 20) - 1);
+        ByteBuf bb3 = allocator.buffer((4 << 20) - 1);
+        ByteBuf bb4 = allocator.buffer((4 << 20) - 1, Integer.MAX_VALUE, SwapPriority.EVICT_FIRST);
+
+        // bb3 would be picked without the hint
+        allocator.buffer((2 << 20) - 1);
+        assertFalse(onDiskMap.containsKey(bb3.getId()));
+        assertTrue(onDiskMap.containsKey(bb4.getId()));
+    }
+
+    @Test
+    public void testNeverEvictNotSwappedOut() {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(true);
+
+        allocator.buffer(64 << 20);
+        allocator.buffer((8 << 20) - 1);
+        ByteBuf bb3 = allocator.buffer((4 << 20) - 1, Integer.MAX_VALUE, SwapPriority.NEVER_EVICT);
+        ByteBuf bb4 = allocator.buffer((4 << 20) - 1);
+
+        allocator.buffer((2 << 20) - 1);
+        assertFalse(onDiskMap.containsKey(bb3.getId()));
+        assertTrue(onDiskMap.containsKey(bb4.getId()));
+    }
+
+    @Test
+    public void testCompressedSwap() {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(true);
+        final CompressedSwap<ByteBuffer> swap = PooledByteBufAllocator.getDirectCompressedSwap();
+        final long capacityBytes = swap.getCapacityBytes();
+        final long usedBytes = swap.getUsedBytes();
+        swap.setCapacityBytes(usedBytes + (16 << 20));
+        try {
+            allocator.buffer(64 << 20);
+            allocator.buffer((8 << 20) - 1);
+            ByteBuf bb3 = allocator.buffer((4 << 20) - 1);
+            byte[] bytes3 = initCompressibleByteBuf(bb3);
+            allocator.buffer((2 << 20) - 1);
+            // bb3 will be swapped out, to the compressed tier as it compresses well
+            ByteBuf bb5 = allocator.buffer((4 << 20) - 1);
+            byte[] bytes5 = initCompressibleByteBuf(bb5);
+
+            assertTrue(compressedMap.containsKey(bb3.getId()));
+            assertFalse(onDiskMap.containsKey(bb3.getId()));
+            assertTrue(swap.getUsedBytes() > usedBytes);
+
+            // swapped back in from the compressed tier, which swaps out bb5
+            assertByteBuf(bb3, bytes3);
+            assertFalse(compressedMap.containsKey(bb3.getId()));
+            assertTrue(compressedMap.containsKey(bb5.getId()));
+
+            // released while compressed
+            bb5.release();
+            assertFalse(compressedMap.containsKey(bb5.getId()));
+            assertEquals(usedBytes, swap.getUsedBytes());
+
+            bb3.release();
+        } finally {
+            swap.setCapacityBytes(capacityBytes);
+        }
+    }
+
+    private static byte[] initCompressibleByteBuf(ByteBuf buf) {
+        byte[] bytes = new byte[buf.capacity()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i % 7);
+        }
+        buf.setBytes(0, bytes);
+        return bytes;
+    }
 }
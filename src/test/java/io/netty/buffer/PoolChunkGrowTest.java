@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.Pair;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests growing a run in place by {@link PoolChunk#grow(long, int)}.
+ */
+public class PoolChunkGrowTest {
+
+    private static final int PAGE_SIZE = 8192;
+
+    @Test
+    public void testGrowIntoFreeBuddies() {
+        // 8 pages, which are the memory map nodes 8 to 15
+        PoolChunk<byte[]> chunk = new PoolChunk<byte[]>(null, new byte[8 * PAGE_SIZE], PAGE_SIZE, 3, 13, 8 * PAGE_SIZE);
+        long[] handles = new long[16];
+        for (int i = 0; i < 8; i ++) {
+            long handle = chunk.allocate(PAGE_SIZE);
+            handles[(int) handle] = handle;
+        }
+        assertEquals(100, chunk.usage());
+
+        chunk.free(handles[9]);
+        chunk.free(handles[10]);
+        chunk.free(handles[11]);
+        assertEquals(63, chunk.usage());
+
+        // the second half of a run can not grow without moving
+        assertEquals(-1, chunk.grow(handles[13], 2 * PAGE_SIZE));
+        // the buddies of node 12 are in use
+        assertEquals(-1, chunk.grow(handles[12], 2 * PAGE_SIZE));
+
+        // node 8 merges with node 9 and then with node 5 into node 2
+        long grown = chunk.grow(handles[8], 4 * PAGE_SIZE);
+        assertEquals(2, grown);
+        assertEquals(100, chunk.usage());
+        assertEquals(0, chunk.runOffset(chunk.getMemoryMap()[2]));
+        assertEquals(4 * PAGE_SIZE, chunk.runLength(chunk.getMemoryMap()[2]));
+        assertEquals(-1, chunk.grow(grown, 8 * PAGE_SIZE));
+        assertEquals(-1, chunk.allocate(PAGE_SIZE));
+
+        chunk.free(grown);
+        assertEquals(50, chunk.usage());
+        assertEquals(2, chunk.allocate(4 * PAGE_SIZE));
+    }
+
+    @Test
+    public void testBufferGrowsInPlaceOrByCopy() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, PAGE_SIZE, 11);
+        for (int i = 0; i < 16; i ++) {
+            PooledByteBuf<?> buf = (PooledByteBuf<?>) allocator.heapBuffer(PAGE_SIZE);
+            for (int j = 0; j < PAGE_SIZE; j ++) {
+                buf.writeByte(j);
+            }
+            buf.readerIndex(10);
+
+            Object memory = buf.memory;
+            int offset = buf.offset;
+            Pair<Long, Long> oldKey = new Pair<Long, Long>(buf.chunk.getId(), buf.handle);
+            long growInPlaceCount = PoolArena.getGrowInPlaceCount();
+
+            buf.capacity(4 * PAGE_SIZE);
+            // a copy goes to a new run, which is allocated before the old one is freed
+            if (buf.offset == offset) {
+                assertEquals(growInPlaceCount + 1, PoolArena.getGrowInPlaceCount());
+                assertSame(memory, buf.memory);
+                assertFalse(PooledByteBuf.getInMemoryMap().containsKey(oldKey));
+            } else {
+                assertEquals(growInPlaceCount, PoolArena.getGrowInPlaceCount());
+            }
+            assertEquals(Long.valueOf(buf.id),
+                    PooledByteBuf.getInMemoryMap().get(new Pair<Long, Long>(buf.chunk.getId(), buf.handle)));
+
+            assertEquals(4 * PAGE_SIZE, buf.capacity());
+            assertEquals(10, buf.readerIndex());
+            assertEquals(PAGE_SIZE, buf.writerIndex());
+            // only the readable bytes are kept when the buffer is copied
+            for (int j = 10; j < PAGE_SIZE; j ++) {
+                assertEquals((byte) j, buf.getByte(j));
+            }
+            assertTrue(buf.release());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import org.junit.Test;
+
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests little-endian heap channel buffers allocated in that order
+ */
+public class PooledNativeLittleEndianHeapByteBufTest extends AbstractByteBufTest {
+
+    private ByteBuf buffer;
+
+    @Override
+    protected ByteBuf newBuffer(int length) {
+        buffer = PooledByteBufAllocator.DEFAULT.heapBuffer(length, ByteOrder.LITTLE_ENDIAN);
+        assertSame(ByteOrder.LITTLE_ENDIAN, buffer.order());
+        assertEquals(0, buffer.writerIndex());
+        return buffer;
+    }
+
+    @Override
+    protected ByteBuf[] components() {
+        return new ByteBuf[] { buffer };
+    }
+
+    @Test
+    public void testNativeOrder() {
+        assertTrue(buffer instanceof PooledLittleEndianHeapByteBuf);
+        buffer.writerIndex(24);
+        buffer.setInt(0, 0x01020304);
+        assertEquals(0x04, buffer.getByte(0));
+        assertEquals(0x0403, buffer.order(ByteOrder.BIG_ENDIAN).getShort(0));
+        buffer.setLong(8, 0x0102030405060708L);
+        assertEquals(0x0807060504030201L, buffer.order(ByteOrder.BIG_ENDIAN).getLong(8));
+        buffer.setMedium(16, 0x010203);
+        assertEquals(0x030201, buffer.order(ByteOrder.BIG_ENDIAN).getMedium(16));
+
+        assertSame(ByteOrder.LITTLE_ENDIAN, buffer.nioBuffer(0, 4).order());
+        assertEquals(0x01020304, buffer.nioBuffer(0, 4).getInt());
+        assertEquals(0x01020304, buffer.slice(0, 8).getInt(0));
+        ByteBuf copy = buffer.copy(0, 16);
+        assertSame(ByteOrder.LITTLE_ENDIAN, copy.order());
+        assertEquals(0x0102030405060708L, copy.getLong(8));
+        copy.release();
+        ByteBuf read = buffer.readBytes(4);
+        assertSame(ByteOrder.LITTLE_ENDIAN, read.order());
+        assertEquals(0x01020304, read.getInt(0));
+    }
+}
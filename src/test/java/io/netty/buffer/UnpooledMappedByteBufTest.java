@@ -0,0 +1,194 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Tests the buffers created by {@link Unpooled#mapFile(File, long, int, FileChannel.MapMode)}.
+ */
+public class UnpooledMappedByteBufTest {
+
+    private static final int SIZE = 3 * 4096 + 100;
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("mapped", ".dat");
+        byte[] bytes = new byte[SIZE];
+        for (int i = 0; i < SIZE; i ++) {
+            bytes[i] = (byte) i;
+        }
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    @After
+    public void deleteFile() {
+        assertTrue(file.delete());
+    }
+
+    private byte[] readFile() throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            assertEquals(bytes.length, in.read(bytes));
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testReadOnly() throws IOException {
+        ByteBuf buf = Unpooled.mapFile(file, 1000, 8000, FileChannel.MapMode.READ_ONLY, true);
+        assertTrue(buf.isDirect());
+        assertFalse(buf.hasMemoryAddress());
+        assertEquals(0, buf.readerIndex());
+        assertEquals(8000, buf.writerIndex());
+        assertEquals(8000, buf.capacity());
+        for (int i = 0; i < 8000; i ++) {
+            assertEquals((byte) (1000 + i), buf.getByte(i));
+        }
+        assertEquals(0x70717273, buf.getInt(136));
+
+        ByteBuf slice = buf.slice(100, 16);
+        assertEquals((byte) 1100, slice.getByte(0));
+        try {
+            slice.setByte(0, 1);
+            fail();
+        } catch (ReadOnlyBufferException e) {
+            // Expected
+        }
+
+        assertTrue(buf.release());
+        try {
+            slice.getByte(0);
+            fail();
+        } catch (IllegalReferenceCountException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        ByteBuf buf = Unpooled.mapFile(file, 4096, 8192, FileChannel.MapMode.READ_WRITE);
+        assertEquals(8192, buf.readableBytes());
+        assertEquals(PlatformDependent.hasUnsafe(), buf.hasMemoryAddress());
+        assertEquals(17, buf.indexOf(0, 8192, (byte) 17));
+
+        buf.setLong(8, 0x0102030405060708L);
+        buf.slice(100, 4).setInt(0, -1);
+        assertTrue(buf.release());
+
+        byte[] bytes = readFile();
+        assertEquals(SIZE, bytes.length);
+        assertEquals(1, bytes[4096 + 8]);
+        assertEquals(8, bytes[4096 + 15]);
+        assertEquals(-1, bytes[4096 + 100]);
+        assertEquals(-1, bytes[4096 + 103]);
+        assertEquals((byte) (4096 + 104), bytes[4096 + 104]);
+    }
+
+    @Test
+    public void testReadWriteExtendsFile() throws IOException {
+        ByteBuf buf = Unpooled.mapFile(file, SIZE, 100, FileChannel.MapMode.READ_WRITE);
+        buf.setByte(99, 42);
+        assertTrue(buf.release());
+
+        byte[] bytes = readFile();
+        assertEquals(SIZE + 100, bytes.length);
+        assertEquals(42, bytes[SIZE + 99]);
+    }
+
+    @Test
+    public void testPrivate() throws IOException {
+        ByteBuf buf = Unpooled.mapFile(file, 0, SIZE, FileChannel.MapMode.PRIVATE);
+        buf.setByte(0, 42);
+        assertEquals(42, buf.getByte(0));
+        assertTrue(buf.release());
+
+        assertEquals(0, readFile()[0]);
+    }
+
+    @Test
+    public void testUnmappedOnRelease() throws IOException {
+        File maps = new File("/proc/self/maps");
+        assumeTrue(maps.canRead() && PlatformDependent.hasUnsafe());
+
+        ByteBuf readOnly = Unpooled.mapFile(file, 0, SIZE, FileChannel.MapMode.READ_ONLY);
+        ByteBuf readWrite = Unpooled.mapFile(file, 0, SIZE, FileChannel.MapMode.READ_WRITE);
+        assertEquals(2, countMappings(maps));
+        readOnly.release();
+        assertEquals(1, countMappings(maps));
+        readWrite.retain().release();
+        assertEquals(1, countMappings(maps));
+        readWrite.release();
+        assertEquals(0, countMappings(maps));
+    }
+
+    private int countMappings(File maps) throws IOException {
+        String path = file.getCanonicalPath();
+        int count = 0;
+        BufferedReader in = new BufferedReader(new FileReader(maps));
+        try {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (line.endsWith(path)) {
+                    count ++;
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return count;
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        assertSame(Unpooled.EMPTY_BUFFER, Unpooled.mapFile(file, SIZE, 0, FileChannel.MapMode.READ_ONLY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPastEndOfFile() throws IOException {
+        Unpooled.mapFile(file, 1, SIZE, FileChannel.MapMode.READ_ONLY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeOffset() throws IOException {
+        Unpooled.mapFile(file, -1, 1, FileChannel.MapMode.READ_ONLY);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.disk;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompressedSwapTest {
+
+    private static byte[] compressibleBytes(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i % 7);
+        }
+        return data;
+    }
+
+    @Test
+    public void testSimpleWriteAndReadHeapCompressedSwap() throws IOException {
+        CompressedSwap<byte[]> swap = new CompressedSwap.HeapCompressedSwap(1 << 20);
+
+        byte[] memory = new byte[64 << 10];
+        byte[] data = compressibleBytes(16 << 10);
+        System.arraycopy(data, 0, memory, 8 << 10, data.length);
+
+        ByteBuffer compressed = swap.write(memory, 8 << 10, data.length);
+        assertNotNull(compressed);
+        assertTrue(compressed.remaining() < data.length);
+        assertEquals(compressed.capacity(), swap.getUsedBytes());
+
+        byte[] restored = new byte[32 << 10];
+        swap.read(compressed, restored, 4 << 10, data.length);
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(data[i], restored[(4 << 10) + i]);
+        }
+
+        swap.free(compressed);
+        assertEquals(0, swap.getUsedBytes());
+    }
+
+    @Test
+    public void testSimpleWriteAndReadDirectCompressedSwap() throws IOException {
+        CompressedSwap<ByteBuffer> swap = new CompressedSwap.DirectCompressedSwap(1 << 20);
+
+        byte[] data = compressibleBytes(16 << 10);
+        ByteBuffer memory = ByteBuffer.allocateDirect(64 << 10);
+        memory.position(8 << 10);
+        memory.put(data);
+        memory.clear();
+
+        ByteBuffer compressed = swap.write(memory, 8 << 10, data.length);
+        assertNotNull(compressed);
+
+        ByteBuffer restored = ByteBuffer.allocateDirect(32 << 10);
+        swap.read(compressed, restored, 4 << 10, data.length);
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(data[i], restored.get((4 << 10) + i));
+        }
+
+        swap.free(compressed);
+        assertEquals(0, swap.getUsedBytes());
+    }
+
+    @Test
+    public void testLargeDirectCompressedSwap() throws IOException {
+        CompressedSwap<ByteBuffer> swap = new CompressedSwap.DirectCompressedSwap(4 << 20);
+
+        // spans many slices, and needs more output than a thread keeps around
+        byte[] data = compressibleBytes((2 << 20) + 3);
+        ByteBuffer memory = ByteBuffer.allocateDirect(data.length + 1);
+        memory.position(1);
+        memory.put(data);
+        memory.clear();
+
+        for (int i = 0; i < 2; i++) {
+            ByteBuffer compressed = swap.write(memory, 1, data.length);
+            assertNotNull(compressed);
+
+            ByteBuffer restored = ByteBuffer.allocateDirect(data.length);
+            swap.read(compressed, restored, 0, data.length);
+            for (int j = 0; j < data.length; j++) {
+                assertEquals(data[j], restored.get(j));
+            }
+
+            swap.free(compressed);
+            assertEquals(0, swap.getUsedBytes());
+        }
+    }
+
+    @Test
+    public void testIncompressibleDataRejected() {
+        CompressedSwap<byte[]> swap = new CompressedSwap.HeapCompressedSwap(1 << 20);
+
+        byte[] data = new byte[16 << 10];
+        new Random(System.currentTimeMillis()).nextBytes(data);
+
+        assertNull(swap.write(data, 0, data.length));
+        assertEquals(0, swap.getUsedBytes());
+    }
+
+    @Test
+    public void testOverflowRejected() {
+        CompressedSwap<byte[]> swap = new CompressedSwap.HeapCompressedSwap(16 << 10);
+
+        byte[] data = compressibleBytes(64 << 10);
+        assertNull(swap.write(data, 0, data.length));
+
+        CompressedSwap<byte[]> disabled = new CompressedSwap.HeapCompressedSwap(0);
+        assertNull(disabled.write(compressibleBytes(1024), 0, 1024));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.BufferSizePredictor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Writes a message of {@link #size} bytes in 64 byte pieces into a buffer allocated by
+ * {@link PooledByteBufAllocator#buffer()}, which grows by {@link ByteBuf#ensureWritable(int)}, and into one allocated
+ * by {@link PooledByteBufAllocator#buffer(BufferSizePredictor)}, which is big enough from the start.
+ */
+@State(Scope.Thread)
+public class BufferSizePredictorBenchmark extends AbstractMicrobenchmark {
+
+    private static final PooledByteBufAllocator ALLOCATOR = new PooledByteBufAllocator(true);
+
+    @Param({ "1000", "20000", "300000" })
+    public int size;
+
+    private final byte[] piece = new byte[64];
+    private final BufferSizePredictor predictor = new BufferSizePredictor();
+
+    @Setup
+    public void setup() {
+        predictor.reset();
+    }
+
+    private int write(ByteBuf buf) {
+        for (int i = 0; i < size; i += piece.length) {
+            buf.writeBytes(piece);
+        }
+        int capacity = buf.capacity();
+        buf.release();
+        return capacity;
+    }
+
+    @Benchmark
+    public int grow() {
+        return write(ALLOCATOR.buffer());
+    }
+
+    @Benchmark
+    public int predicted() {
+        return write(ALLOCATOR.buffer(predictor));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.buffer.UnpooledDirectByteBuf;
+import io.netty.buffer.UnpooledHeapByteBuf;
+import io.netty.buffer.UnpooledUnsafeDirectByteBuf;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteOrder;
+
+/**
+ * Primitive accessors of the safe ({@link java.nio.ByteBuffer} based) and the unsafe implementations, and of
+ * little-endian pooled buffers allocated in that order against the {@link ByteBuf#order(ByteOrder)} views of
+ * big-endian ones.
+ */
+@State(Scope.Thread)
+public class ByteBufAccessorBenchmark extends AbstractMicrobenchmark {
+
+    private static final int CAPACITY = 8192;
+
+    @Param
+    public Impl impl;
+
+    private ByteBuf buf;
+
+    @Setup
+    public void setup() {
+        buf = impl.newBuffer();
+    }
+
+    @TearDown
+    public void teardown() {
+        buf.release();
+    }
+
+    @Benchmark
+    public int getByte() {
+        final ByteBuf buf = this.buf;
+        int sum = 0;
+        for (int i = 0; i < CAPACITY; i ++) {
+            sum += buf.getByte(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int getInt() {
+        final ByteBuf buf = this.buf;
+        int sum = 0;
+        for (int i = 0; i < CAPACITY; i += 4) {
+            sum += buf.getInt(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long getLong() {
+        final ByteBuf buf = this.buf;
+        long sum = 0;
+        for (int i = 0; i < CAPACITY; i += 8) {
+            sum += buf.getLong(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ByteBuf setLong() {
+        final ByteBuf buf = this.buf;
+        for (int i = 0; i < CAPACITY; i += 8) {
+            buf.setLong(i, i);
+        }
+        return buf;
+    }
+
+    public enum Impl {
+        HEAP {
+            @Override
+            ByteBuf newBuffer() {
+                return new UnpooledHeapByteBuf(UnpooledByteBufAllocator.DEFAULT, CAPACITY, CAPACITY) { };
+            }
+        },
+        DIRECT_SAFE {
+            @Override
+            ByteBuf newBuffer() {
+                return new UnpooledDirectByteBuf(UnpooledByteBufAllocator.DEFAULT, CAPACITY, CAPACITY) { };
+            }
+        },
+        DIRECT_UNSAFE {
+            @Override
+            ByteBuf newBuffer() {
+                return new UnpooledUnsafeDirectByteBuf(UnpooledByteBufAllocator.DEFAULT, CAPACITY, CAPACITY) { };
+            }
+        },
+        // pooled buffers also check whether they are swapped out on every access
+        POOLED_HEAP {
+            @Override
+            ByteBuf newBuffer() {
+                return PooledByteBufAllocator.DEFAULT.heapBuffer(CAPACITY, CAPACITY);
+            }
+        },
+        POOLED_DIRECT {
+            @Override
+            ByteBuf newBuffer() {
+                return PooledByteBufAllocator.DEFAULT.directBuffer(CAPACITY, CAPACITY);
+            }
+        },
+        POOLED_HEAP_SWAPPED_LE {
+            @Override
+            ByteBuf newBuffer() {
+                return PooledByteBufAllocator.DEFAULT.heapBuffer(CAPACITY, CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        },
+        POOLED_HEAP_LE {
+            @Override
+            ByteBuf newBuffer() {
+                return PooledByteBufAllocator.DEFAULT.heapBuffer(CAPACITY, CAPACITY, ByteOrder.LITTLE_ENDIAN);
+            }
+        },
+        POOLED_DIRECT_SWAPPED_LE {
+            @Override
+            ByteBuf newBuffer() {
+                return PooledByteBufAllocator.DEFAULT.directBuffer(CAPACITY, CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        },
+        POOLED_DIRECT_LE {
+            @Override
+            ByteBuf newBuffer() {
+                return PooledByteBufAllocator.DEFAULT.directBuffer(CAPACITY, CAPACITY, ByteOrder.LITTLE_ENDIAN);
+            }
+        };
+
+        abstract ByteBuf newBuffer();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+/**
+ * Reads a {@link #length} byte string by {@link ByteBufInputStream#readUTF()} and
+ * {@link ByteBufInputStream#readLine()} from a pooled buffer, and by {@link DataInputStream#readUTF(java.io.DataInput)}
+ * on top of the stream, which reads the string into a byte array before decoding it.
+ */
+@State(Scope.Thread)
+public class ByteBufInputStreamBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    @Param({ "16", "1024" })
+    public int length;
+
+    private ByteBuf utf;
+    private ByteBuf line;
+
+    @Setup
+    public void setup() {
+        StringBuilder s = new StringBuilder(length);
+        for (int i = 0; i < length; i ++) {
+            s.append((char) ('a' + i % 26));
+        }
+        byte[] bytes = s.toString().getBytes(CharsetUtil.US_ASCII);
+
+        PooledByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+        utf = direct ? alloc.directBuffer(length + 2) : alloc.heapBuffer(length + 2);
+        utf.writeShort(length).writeBytes(bytes);
+        line = direct ? alloc.directBuffer(length + 2) : alloc.heapBuffer(length + 2);
+        line.writeBytes(bytes).writeByte('\r').writeByte('\n');
+    }
+
+    @TearDown
+    public void teardown() {
+        utf.release();
+        line.release();
+    }
+
+    @Benchmark
+    public String readUTF() throws IOException {
+        return new ByteBufInputStream(utf.readerIndex(0)).readUTF();
+    }
+
+    @Benchmark
+    public String dataInputStreamReadUTF() throws IOException {
+        return DataInputStream.readUTF(new ByteBufInputStream(utf.readerIndex(0)));
+    }
+
+    @Benchmark
+    public String readLine() throws IOException {
+        return new ByteBufInputStream(line.readerIndex(0)).readLine();
+    }
+}
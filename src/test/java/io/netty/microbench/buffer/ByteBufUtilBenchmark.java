@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufProcessor;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The {@link ByteBufUtil} operations on two buffers with the same content.
+ */
+@State(Scope.Thread)
+public class ByteBufUtilBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "16", "256", "4096" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private ByteBuf a;
+    private ByteBuf b;
+
+    @Setup
+    public void setup() {
+        a = direct ? Unpooled.directBuffer(size) : Unpooled.buffer(size);
+        b = direct ? Unpooled.directBuffer(size) : Unpooled.buffer(size);
+        for (int i = 0; i < size; i ++) {
+            // no zero byte, so that indexOf() scans the whole buffer
+            a.writeByte(i % 255 + 1);
+            b.writeByte(i % 255 + 1);
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        a.release();
+        b.release();
+    }
+
+    @Benchmark
+    public int bufHashCode() {
+        return ByteBufUtil.hashCode(a);
+    }
+
+    @Benchmark
+    public boolean bufEquals() {
+        return ByteBufUtil.equals(a, b);
+    }
+
+    @Benchmark
+    public int bufCompare() {
+        return ByteBufUtil.compare(a, b);
+    }
+
+    @Benchmark
+    public int bufIndexOf() {
+        return ByteBufUtil.indexOf(a, 0, size, (byte) 0);
+    }
+
+    @Benchmark
+    public int bufLastIndexOf() {
+        return ByteBufUtil.indexOf(a, size, 0, (byte) 0);
+    }
+
+    @Benchmark
+    public int bufForEachByteFindNul() {
+        return a.forEachByte(ByteBufProcessor.FIND_NUL);
+    }
+
+    @Benchmark
+    public String bufHexDump() {
+        return ByteBufUtil.hexDump(a);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufProcessor;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads from a {@link CompositeByteBuf} of 64KiB spread over a varying number of components.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CompositeByteBufBenchmark extends AbstractMicrobenchmark {
+
+    private static final int CAPACITY = 64 * 1024;
+
+    @Param({ "1", "8", "64", "256" })
+    public int components;
+
+    private CompositeByteBuf composite;
+    private final SumProcessor sumProcessor = new SumProcessor();
+    private final int[] randomIndexes = new int[1024];
+    private final byte[] array = new byte[CAPACITY];
+
+    @Setup
+    public void setup() {
+        composite = Unpooled.compositeBuffer(components);
+        int componentSize = CAPACITY / components;
+        for (int i = 0; i < components; i ++) {
+            ByteBuf component = Unpooled.buffer(componentSize);
+            component.writerIndex(componentSize);
+            composite.addComponent(component);
+        }
+        composite.writerIndex(CAPACITY);
+
+        Random random = new Random(42);
+        for (int i = 0; i < randomIndexes.length; i ++) {
+            randomIndexes[i] = random.nextInt(CAPACITY - 3);
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        composite.release();
+    }
+
+    @Benchmark
+    public int sequentialGetByte() {
+        final CompositeByteBuf composite = this.composite;
+        int sum = 0;
+        for (int i = 0; i < CAPACITY; i ++) {
+            sum += composite.getByte(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sequentialReadLong() {
+        final CompositeByteBuf composite = this.composite;
+        composite.readerIndex(0);
+        long sum = 0;
+        while (composite.isReadable()) {
+            sum += composite.readLong();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int forEachByte() {
+        sumProcessor.sum = 0;
+        composite.forEachByte(sumProcessor);
+        return sumProcessor.sum;
+    }
+
+    @Benchmark
+    public int randomGetInt() {
+        final CompositeByteBuf composite = this.composite;
+        int sum = 0;
+        for (int index: randomIndexes) {
+            sum += composite.getInt(index);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public byte[] getBytes() {
+        composite.getBytes(0, array);
+        return array;
+    }
+
+    private static final class SumProcessor implements ByteBufProcessor {
+        int sum;
+
+        @Override
+        public boolean process(byte value) {
+            sum += value;
+            return true;
+        }
+    }
+}
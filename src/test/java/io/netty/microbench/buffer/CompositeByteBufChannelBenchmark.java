@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a response of a small header and {@link #parts} parts of 64 KiB in a {@link CompositeByteBuf} of at most
+ * 16 components and writes it to a channel, and reads 64 KiB from a channel into a {@link CompositeByteBuf} of 256
+ * components. The channels are {@code /dev/null} and {@code /dev/zero}, so that every call is a system call, but
+ * no disk is involved.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CompositeByteBufChannelBenchmark extends AbstractMicrobenchmark {
+
+    private static final int PART_SIZE = 64 * 1024;
+
+    @Param({ "16", "64" })
+    public int parts;
+
+    private FileChannel in;
+    private FileChannel out;
+    private ByteBuf header;
+    private ByteBuf part;
+    private CompositeByteBuf target;
+
+    @Setup
+    public void setup() throws IOException {
+        in = new FileInputStream("/dev/zero").getChannel();
+        out = new FileOutputStream("/dev/null").getChannel();
+        header = Unpooled.directBuffer(256).writeZero(256);
+        part = Unpooled.directBuffer(PART_SIZE).writeZero(PART_SIZE);
+        target = Unpooled.compositeBuffer(256);
+        for (int i = 0; i < 256; i ++) {
+            target.addComponent(Unpooled.directBuffer(256).writeZero(256));
+        }
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        in.close();
+        out.close();
+        header.release();
+        part.release();
+        target.release();
+    }
+
+    @Benchmark
+    public int writeResponse() throws IOException {
+        CompositeByteBuf response = Unpooled.compositeBuffer();
+        response.addComponent(header.retain().duplicate());
+        for (int i = 0; i < parts; i ++) {
+            response.addComponent(part.retain().duplicate());
+        }
+        response.writerIndex(response.capacity());
+
+        int writtenBytes = response.readBytes(out, response.readableBytes());
+        response.release();
+        return writtenBytes;
+    }
+
+    @Benchmark
+    public int scatteringRead() throws IOException {
+        return target.setBytes(0, in, target.capacity());
+    }
+}
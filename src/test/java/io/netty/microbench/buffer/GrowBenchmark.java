@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Grows a pooled buffer from one page to {@link #size} bytes by {@link ByteBuf#ensureWritable(int)}, where each
+ * step past the run of the buffer grows the run in its chunk if it can, or copies the buffer to a new run.
+ */
+@State(Scope.Thread)
+public class GrowBenchmark extends AbstractMicrobenchmark {
+
+    private static final PooledByteBufAllocator ALLOCATOR = new PooledByteBufAllocator(true);
+    private static final int STEP = 64 * 1024;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    @Param({ "1048576", "4194304" })
+    public int size;
+
+    @Benchmark
+    public int grow() {
+        ByteBuf buf = direct ? ALLOCATOR.directBuffer(8192) : ALLOCATOR.heapBuffer(8192);
+        for (int i = 0; i < size; i += STEP) {
+            buf.ensureWritable(STEP);
+            buf.writerIndex(buf.writerIndex() + STEP);
+        }
+        int capacity = buf.capacity();
+        buf.release();
+        return capacity;
+    }
+}
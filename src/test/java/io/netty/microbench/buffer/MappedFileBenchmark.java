@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads every long of a {@link #size} byte file, which the page cache holds, from a buffer created by
+ * {@link Unpooled#mapFile(File, long, int, FileChannel.MapMode)} and from a pooled buffer the file is read into.
+ * <p>
+ * A {@link java.nio.MappedByteBuffer} wrapped by {@link Unpooled#wrappedBuffer(java.nio.ByteBuffer)} is not measured,
+ * as it stays mapped until it is garbage collected, and the small ones run the process out of mappings long before.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MappedFileBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "65536", "4194304" })
+    public int size;
+
+    private File file;
+    private RandomAccessFile raf;
+
+    @Setup
+    public void setup() throws IOException {
+        file = File.createTempFile("mapped", ".dat");
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(size);
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        raf.close();
+        file.delete();
+    }
+
+    private static long sum(ByteBuf buf) {
+        long sum = 0;
+        for (int i = 0; i < buf.capacity(); i += 8) {
+            sum += buf.getLong(i);
+        }
+        buf.release();
+        return sum;
+    }
+
+    @Benchmark
+    public long mapFile() throws IOException {
+        return sum(Unpooled.mapFile(file, 0, size, FileChannel.MapMode.READ_ONLY));
+    }
+
+    @Benchmark
+    public long readIntoBuffer() throws IOException {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(size);
+        FileChannel channel = raf.getChannel().position(0);
+        while (buf.isWritable()) {
+            buf.writeBytes(channel, buf.writableBytes());
+        }
+        return sum(buf);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes {@link #size} bytes of longs and small arrays through a {@link ByteBufOutputStream}, whose pooled buffer
+ * grows by doubling and copying, and through a {@link CompositeByteBufOutputStream} of pooled segments.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OutputStreamBenchmark extends AbstractMicrobenchmark {
+
+    private static final PooledByteBufAllocator ALLOCATOR = new PooledByteBufAllocator(true);
+
+    @Param({ "1048576", "8388608" })
+    public int size;
+
+    private final byte[] bytes = new byte[56];
+    private ByteBuf ballast;
+
+    @Setup
+    public void setup() {
+        // keeps a chunk in use, as other buffers would, so that it is not destroyed and created again every time
+        ballast = ALLOCATOR.buffer(8192);
+    }
+
+    @TearDown
+    public void teardown() {
+        ballast.release();
+    }
+
+    private void write(DataOutput out) throws IOException {
+        for (int i = 0; i < size; i += 64) {
+            out.writeLong(i);
+            out.write(bytes);
+        }
+    }
+
+    @Benchmark
+    public int byteBufOutputStream() throws IOException {
+        ByteBufOutputStream out = new ByteBufOutputStream(ALLOCATOR.buffer());
+        write(out);
+        ByteBuf buf = out.buffer();
+        int written = buf.readableBytes();
+        buf.release();
+        return written;
+    }
+
+    @Benchmark
+    public int compositeByteBufOutputStream() throws IOException {
+        CompositeByteBufOutputStream out = new CompositeByteBufOutputStream(ALLOCATOR);
+        write(out);
+        ByteBuf buf = out.buffer();
+        int written = buf.readableBytes();
+        buf.release();
+        return written;
+    }
+}
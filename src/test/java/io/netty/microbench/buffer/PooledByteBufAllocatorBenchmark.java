@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Allocation and release through {@link PooledByteBufAllocator}, from one thread, from several threads which are
+ * spread over the arenas, and with buffers released by another thread than the one which allocated them.
+ */
+@State(Scope.Benchmark)
+public class PooledByteBufAllocatorBenchmark extends AbstractMicrobenchmark {
+
+    private static final PooledByteBufAllocator POOLED_ALLOCATOR_HEAP = new PooledByteBufAllocator(false);
+    private static final PooledByteBufAllocator POOLED_ALLOCATOR_DIRECT = new PooledByteBufAllocator(true);
+
+    // tiny, small (both subpage), normal and huge (larger than the default 16MiB chunk)
+    @Param({ "256", "4096", "65536", "16777217" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private PooledByteBufAllocator alloc() {
+        return direct ? POOLED_ALLOCATOR_DIRECT : POOLED_ALLOCATOR_HEAP;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void allocAndFree() {
+        alloc().buffer(size).release();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void allocAndFreeContended() {
+        alloc().buffer(size).release();
+    }
+
+    /**
+     * Buffers on their way from the allocating thread to the releasing one. The releasing side also counts polls
+     * which found nothing, so the score of {@code crossThreadFree:allocate} is the one to compare.
+     */
+    @State(Scope.Group)
+    public static class Handoff {
+        final BlockingQueue<ByteBuf> queue = new ArrayBlockingQueue<ByteBuf>(1024);
+
+        @TearDown(Level.Iteration)
+        public void drain() {
+            for (ByteBuf buf = queue.poll(); buf != null; buf = queue.poll()) {
+                buf.release();
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("crossThreadFree")
+    @GroupThreads(1)
+    public void allocate(Handoff handoff) {
+        ByteBuf buf = alloc().buffer(size);
+        if (!handoff.queue.offer(buf)) {
+            // the releasing thread is behind
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    @Group("crossThreadFree")
+    @GroupThreads(1)
+    public void release(Handoff handoff) {
+        ByteBuf buf = handoff.queue.poll();
+        if (buf != null) {
+            buf.release();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * {@link ByteBuf#setInts(int, int[], int, int)} and {@link ByteBuf#getInts(int, int[], int, int)} on pooled
+ * buffers against loops of {@link ByteBuf#setInt(int, int)} and {@link ByteBuf#getInt(int)}, in the byte order
+ * of the buffers and in the reverse one.
+ */
+@State(Scope.Thread)
+public class PrimitiveArrayBenchmark extends AbstractMicrobenchmark {
+
+    private static final PooledByteBufAllocator ALLOCATOR = new PooledByteBufAllocator(true);
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    @Param({ "BIG_ENDIAN", "LITTLE_ENDIAN" })
+    public String order;
+
+    @Param({ "16", "1024" })
+    public int length;
+
+    private int[] ints;
+    private ByteBuf buf;
+
+    @Setup
+    public void setup() {
+        ints = new int[length];
+        Random random = new Random(42);
+        for (int i = 0; i < length; i ++) {
+            ints[i] = random.nextInt();
+        }
+        ByteBuf buf = direct ? ALLOCATOR.directBuffer(length * 4) : ALLOCATOR.heapBuffer(length * 4);
+        this.buf = buf.order("BIG_ENDIAN".equals(order) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @TearDown
+    public void teardown() {
+        buf.release();
+    }
+
+    @Benchmark
+    public ByteBuf setInts() {
+        return buf.setInts(0, ints, 0, length);
+    }
+
+    @Benchmark
+    public ByteBuf setIntLoop() {
+        ByteBuf buf = this.buf;
+        int[] ints = this.ints;
+        for (int i = 0; i < ints.length; i ++) {
+            buf.setInt(i << 2, ints[i]);
+        }
+        return buf;
+    }
+
+    @Benchmark
+    public int[] getInts() {
+        buf.getInts(0, ints, 0, length);
+        return ints;
+    }
+
+    @Benchmark
+    public int[] getIntLoop() {
+        ByteBuf buf = this.buf;
+        int[] ints = this.ints;
+        for (int i = 0; i < ints.length; i ++) {
+            ints[i] = buf.getInt(i << 2);
+        }
+        return ints;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.AbstractReferenceCountedByteBuf;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link ByteBuf#retain()} and {@link ByteBuf#release()} of a pooled buffer with an atomic reference count and
+ * with one {@linkplain AbstractReferenceCountedByteBuf#confine() confined} to the benchmark thread, as a pipeline
+ * retains and releases a message in each of its stages.
+ */
+@State(Scope.Thread)
+public class RefCntBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "false", "true" })
+    public boolean confined;
+
+    private AbstractReferenceCountedByteBuf buf;
+
+    @Setup
+    public void setup() {
+        buf = (AbstractReferenceCountedByteBuf) PooledByteBufAllocator.DEFAULT.heapBuffer(64);
+        if (confined) {
+            buf.confine();
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        buf.release();
+    }
+
+    @Benchmark
+    public boolean retainRelease() {
+        ByteBuf buf = this.buf;
+        buf.retain();
+        buf.retain();
+        buf.release();
+        return buf.release();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+
+/**
+ * {@link ByteBuf#retainedSlice(int, int)} and {@link ByteBuf#retainedDuplicate()} of a pooled buffer against
+ * {@link ByteBuf#slice(int, int)} and {@link ByteBuf#duplicate()} followed by {@link ByteBuf#retain()}, the way a
+ * decoder hands a frame to the next handler. The last {@value #IN_FLIGHT} derived buffers are kept and released
+ * later, as frames still queued would be, and the results of the GC profiler show the wrappers no longer allocated.
+ */
+@State(Scope.Thread)
+public class SliceBenchmark extends AbstractMicrobenchmark {
+
+    private static final PooledByteBufAllocator ALLOCATOR = new PooledByteBufAllocator(true);
+    private static final int IN_FLIGHT = 64;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private final ByteBuf[] inFlight = new ByteBuf[IN_FLIGHT];
+    private int next;
+    private ByteBuf buf;
+
+    @Override
+    protected ChainedOptionsBuilder newOptionsBuilder() {
+        return super.newOptionsBuilder().addProfiler(GCProfiler.class);
+    }
+
+    @Setup
+    public void setup() {
+        buf = direct ? ALLOCATOR.directBuffer(1024) : ALLOCATOR.heapBuffer(1024);
+        buf.writerIndex(1024);
+    }
+
+    @TearDown
+    public void teardown() {
+        for (int i = 0; i < IN_FLIGHT; i ++) {
+            if (inFlight[i] != null) {
+                inFlight[i].release();
+                inFlight[i] = null;
+            }
+        }
+        buf.release();
+    }
+
+    private long hold(ByteBuf derived) {
+        int next = this.next;
+        ByteBuf old = inFlight[next];
+        if (old != null) {
+            old.release();
+        }
+        inFlight[next] = derived;
+        this.next = next + 1 & IN_FLIGHT - 1;
+        return derived.getLong(8);
+    }
+
+    @Benchmark
+    public long sliceRetain() {
+        return hold(buf.slice(16, 512).retain());
+    }
+
+    @Benchmark
+    public long retainedSlice() {
+        return hold(buf.retainedSlice(16, 512));
+    }
+
+    @Benchmark
+    public long duplicateRetain() {
+        return hold(buf.duplicate().retain());
+    }
+
+    @Benchmark
+    public long retainedDuplicate() {
+        return hold(buf.retainedDuplicate());
+    }
+}
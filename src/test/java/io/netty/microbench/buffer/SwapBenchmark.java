@@ -0,0 +1,195 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Drives the whole swap path ({@code PoolArena.swapOut()} and {@code swapIn()} through the {@code BlockDisk} in
+ * {@code swapDir}) with a working set that is {@link #workingSetRatio} times {@code maxMemory}.
+ *
+ * {@link #access} touches buffers of the working set, picked with the given {@link Skew}, and reports how many
+ * runs were swapped in and out per microsecond as the {@code swapIns} and {@code swapOuts} counters.
+ * The counters are taken from JVM-wide totals, so with more than one thread (see the {@code threads} system
+ * property) a call is also credited with the swaps of calls that overlapped it.
+ * {@link #allocate} allocates and releases a buffer while the working set is live, and reports latency
+ * percentiles; with a working set larger than {@code maxMemory} each allocation of a normal size has to swap.
+ *
+ * The test {@code allocator.properties} is used, so {@code maxMemory} is 64MB and {@code swapDir} is /tmp.
+ */
+@State(Scope.Benchmark)
+public class SwapBenchmark extends AbstractMicrobenchmark {
+
+    private static final PooledByteBufAllocator ALLOCATOR = new PooledByteBufAllocator(true);
+
+    @Param({ "0.5", "1.5", "3" })
+    public double workingSetRatio;
+
+    @Param
+    public Skew skew;
+
+    @Param
+    public Sizes sizes;
+
+    private ByteBuf[] workingSet;
+    private double[] zipfCdf;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Random random = new Random(42);
+        final long maxMemory = (long) PooledByteBufAllocator.getDefaultMaxMemoryMB() << 20;
+        final long workingSetBytes = (long) (workingSetRatio * maxMemory);
+
+        List<ByteBuf> bufs = new ArrayList<ByteBuf>();
+        for (long allocated = 0; allocated < workingSetBytes;) {
+            ByteBuf buf = ALLOCATOR.buffer(sizes.next(random));
+            buf.setByte(0, 1);
+            bufs.add(buf);
+            allocated += buf.capacity();
+        }
+        // do not let the hottest buffers be the ones that were allocated together
+        Collections.shuffle(bufs, random);
+        workingSet = bufs.toArray(new ByteBuf[bufs.size()]);
+
+        zipfCdf = new double[workingSet.length];
+        double sum = 0;
+        for (int i = 0; i < zipfCdf.length; i ++) {
+            sum += 1.0 / (i + 1);
+            zipfCdf[i] = sum;
+        }
+        for (int i = 0; i < zipfCdf.length; i ++) {
+            zipfCdf[i] /= sum;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        for (ByteBuf buf: workingSet) {
+            buf.release();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class SwapCounters {
+        public long swapIns;
+        public long swapOuts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            swapIns = 0;
+            swapOuts = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public byte access(ThreadState state, SwapCounters counters) {
+        final long swapInsBefore = PooledByteBufAllocator.getSwapInCount();
+        final long swapOutsBefore = PooledByteBufAllocator.getSwapOutCount();
+
+        ByteBuf buf = workingSet[skew.next(state.random, zipfCdf)];
+        byte b = buf.getByte(0);
+
+        counters.swapIns += PooledByteBufAllocator.getSwapInCount() - swapInsBefore;
+        counters.swapOuts += PooledByteBufAllocator.getSwapOutCount() - swapOutsBefore;
+        return b;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public void allocate(ThreadState state) {
+        ByteBuf buf = ALLOCATOR.buffer(sizes.next(state.random));
+        buf.setByte(0, 1);
+        buf.release();
+    }
+
+    /**
+     * How the buffer to access is picked from the working set.
+     */
+    public enum Skew {
+        UNIFORM {
+            @Override
+            int next(Random random, double[] zipfCdf) {
+                return random.nextInt(zipfCdf.length);
+            }
+        },
+        /** the buffer of rank k is picked with a probability proportional to 1/k */
+        ZIPF {
+            @Override
+            int next(Random random, double[] zipfCdf) {
+                int idx = Arrays.binarySearch(zipfCdf, random.nextDouble());
+                return Math.min(idx < 0 ? -idx - 1 : idx, zipfCdf.length - 1);
+            }
+        };
+
+        abstract int next(Random random, double[] zipfCdf);
+    }
+
+    /**
+     * Capacity of the buffers in the working set and of the ones allocated by {@link #allocate}. Only runs of at
+     * least 2 pages and at most 4MB are swapped.
+     */
+    public enum Sizes {
+        FIXED_64K {
+            @Override
+            int next(Random random) {
+                return 64 << 10;
+            }
+        },
+        /** 16KB to 1MB, smaller ones more often */
+        MIXED {
+            @Override
+            int next(Random random) {
+                int r = random.nextInt(15);
+                if (r < 8) {
+                    return 16 << 10;
+                } else if (r < 12) {
+                    return 64 << 10;
+                } else if (r < 14) {
+                    return 256 << 10;
+                }
+                return 1 << 20;
+            }
+        };
+
+        abstract int next(Random random);
+    }
+}
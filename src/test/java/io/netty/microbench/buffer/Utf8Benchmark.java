@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+
+/**
+ * {@link ByteBufUtil#writeUtf8(ByteBuf, CharSequence)} and {@link ByteBufUtil#readUtf8(ByteBuf, int)} against
+ * the {@link CharsetUtil} encoder and decoder they replace.
+ */
+@State(Scope.Thread)
+public class Utf8Benchmark extends AbstractMicrobenchmark {
+
+    @Param({ "16", "256" })
+    public int length;
+
+    @Param
+    public Text text;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private String string;
+    private ByteBuf buf;
+    private ByteBuf encoded;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i ++) {
+            builder.append(text.chars.charAt(i % text.chars.length()));
+        }
+        string = builder.toString();
+
+        buf = direct ? Unpooled.directBuffer(length * 3) : Unpooled.buffer(length * 3);
+        encoded = direct ? Unpooled.directBuffer(length * 3) : Unpooled.buffer(length * 3);
+        encoded.writeBytes(string.getBytes(CharsetUtil.UTF_8));
+    }
+
+    @TearDown
+    public void teardown() {
+        buf.release();
+        encoded.release();
+    }
+
+    @Benchmark
+    public ByteBuf writeUtf8() {
+        buf.clear();
+        ByteBufUtil.writeUtf8(buf, string);
+        return buf;
+    }
+
+    @Benchmark
+    public ByteBuf writeCharsetEncoder() throws CharacterCodingException {
+        buf.clear();
+        buf.writeBytes(CharsetUtil.getEncoder(CharsetUtil.UTF_8).encode(CharBuffer.wrap(string)));
+        return buf;
+    }
+
+    @Benchmark
+    public String readUtf8() {
+        encoded.readerIndex(0);
+        return ByteBufUtil.readUtf8(encoded, encoded.readableBytes());
+    }
+
+    @Benchmark
+    public String readCharsetDecoder() throws CharacterCodingException {
+        return CharsetUtil.getDecoder(CharsetUtil.UTF_8).decode(encoded.nioBuffer()).toString();
+    }
+
+    public enum Text {
+        ASCII("The quick brown fox jumps over the lazy dog. "),
+        LATIN("Français, español, português. "),
+        CJK("日本語の文章。中文。");
+
+        final String chars;
+
+        Text(String chars) {
+            this.chars = chars;
+        }
+    }
+}
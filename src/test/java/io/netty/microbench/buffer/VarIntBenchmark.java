@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.AbstractByteBuf;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+
+/**
+ * {@link AbstractByteBuf#writeVarInt32(int)} and {@link AbstractByteBuf#readVarInt32()} on pooled buffers against
+ * the loops of {@link ByteBuf#writeByte(int)} and {@link ByteBuf#readByte()} they replace. Each call encodes or
+ * decodes {@value #COUNT} values of {@link #size} bytes.
+ */
+@State(Scope.Thread)
+public class VarIntBenchmark extends AbstractMicrobenchmark {
+
+    private static final PooledByteBufAllocator ALLOCATOR = new PooledByteBufAllocator(true);
+    private static final int COUNT = 256;
+
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    /** bytes per varint; 0 for a mix of 1 to 5 */
+    @Param({ "1", "2", "3", "5", "0" })
+    public int size;
+
+    private final int[] values = new int[COUNT];
+    private AbstractByteBuf buf;
+    private AbstractByteBuf encoded;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < COUNT; i ++) {
+            int bytes = size == 0 ? 1 + random.nextInt(5) : size;
+            int bits = Math.min(bytes * 7, 32);
+            int min = bytes == 1 ? 0 : 1 << (bytes - 1) * 7;
+            values[i] = bits == 32 ? min | random.nextInt() : min | random.nextInt(1 << bits);
+        }
+
+        buf = newBuffer();
+        encoded = newBuffer();
+        for (int v: values) {
+            encoded.writeVarInt32(v);
+        }
+    }
+
+    private AbstractByteBuf newBuffer() {
+        ByteBuf buf = direct ? ALLOCATOR.directBuffer(COUNT * 5) : ALLOCATOR.heapBuffer(COUNT * 5);
+        return (AbstractByteBuf) buf;
+    }
+
+    @TearDown
+    public void teardown() {
+        buf.release();
+        encoded.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public ByteBuf writeVarInt32() {
+        AbstractByteBuf buf = this.buf;
+        buf.clear();
+        for (int v: values) {
+            buf.writeVarInt32(v);
+        }
+        return buf;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public ByteBuf writeByteLoop() {
+        ByteBuf buf = this.buf;
+        buf.clear();
+        for (int v: values) {
+            while ((v & ~0x7F) != 0) {
+                buf.writeByte(v & 0x7F | 0x80);
+                v >>>= 7;
+            }
+            buf.writeByte(v);
+        }
+        return buf;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int readVarInt32() {
+        AbstractByteBuf buf = encoded;
+        buf.readerIndex(0);
+        int sum = 0;
+        for (int i = 0; i < COUNT; i ++) {
+            sum += buf.readVarInt32();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int readByteLoop() {
+        ByteBuf buf = encoded;
+        buf.readerIndex(0);
+        int sum = 0;
+        for (int i = 0; i < COUNT; i ++) {
+            int v = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = buf.readByte();
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            sum += v;
+        }
+        return sum;
+    }
+}
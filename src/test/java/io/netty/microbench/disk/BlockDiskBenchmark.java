@@ -0,0 +1,240 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.disk;
+
+import io.netty.disk.BlockDisk;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.internal.PlatformDependent;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write, read and free of {@link BlockDisk} backends, swept over block size, payload size, whether writes are
+ * synced, and (with the {@code threads} system property) the number of threads sharing one disk.
+ *
+ * Scores are operations per second, i.e. IOPS; the {@code bytes} counter is the matching throughput in bytes per
+ * second. A new backend is compared with the others by adding it to {@link Backend}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BlockDiskBenchmark extends AbstractMicrobenchmark {
+
+    /** Payloads written per thread before measuring reads */
+    private static final int READ_SET_SIZE = 16;
+
+    @Param
+    public Backend backend;
+
+    // every size validateBlockSize() accepts
+    @Param({ "1024", "2048", "4096", "8192", "16384" })
+    public short blockSize;
+
+    @Param({ "4096", "65536", "1048576" })
+    public int payloadSize;
+
+    @Param({ "true", "false" })
+    public boolean syncWrites;
+
+    private File file;
+    private Driver<?> driver;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = File.createTempFile("blockdisk", ".dat");
+        driver = backend.newDriver(file.getAbsolutePath(), blockSize, syncWrites);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        driver.disk.close();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadData {
+        Driver<?> driver;
+        int[][] readSet;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup(BlockDiskBenchmark benchmark) throws IOException {
+            driver = benchmark.driver;
+            byte[] content = new byte[benchmark.payloadSize];
+            new Random(Thread.currentThread().getId()).nextBytes(content);
+            driver.setPayload(content);
+
+            readSet = new int[READ_SET_SIZE][];
+            for (int i = 0; i < readSet.length; i ++) {
+                readSet[i] = driver.write();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void teardown() {
+            for (int[] blocks: readSet) {
+                driver.disk.freeBlocks(blocks);
+            }
+            driver.releasePayload();
+        }
+    }
+
+    /**
+     * Blocks written before each call of {@link #free}, kept apart so that the other benchmarks are not timed
+     * per invocation.
+     */
+    @State(Scope.Thread)
+    public static class ToFree {
+        int[] blocks;
+
+        @Setup(Level.Invocation)
+        public void write(ThreadData data) throws IOException {
+            blocks = data.driver.write();
+        }
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Bytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Benchmark
+    public void write(ThreadData data, Bytes bytes) throws IOException {
+        data.driver.disk.freeBlocks(data.driver.write());
+        bytes.bytes += payloadSize;
+    }
+
+    @Benchmark
+    public void read(ThreadData data, Bytes bytes) throws IOException {
+        data.driver.read(data.readSet[data.next ++ & READ_SET_SIZE - 1]);
+        bytes.bytes += payloadSize;
+    }
+
+    @Benchmark
+    public void free(ToFree toFree, Bytes bytes) {
+        driver.disk.freeBlocks(toFree.blocks);
+        bytes.bytes += payloadSize;
+    }
+
+    /**
+     * Hides the memory type of a {@link BlockDisk} from the benchmarks.
+     */
+    abstract static class Driver<T> {
+        final BlockDisk<T> disk;
+        // per thread, as direct payloads are consumed by BlockDisk.write()
+        private final ThreadLocal<T> payload = new ThreadLocal<T>();
+
+        Driver(BlockDisk<T> disk) {
+            this.disk = disk;
+        }
+
+        void setPayload(byte[] content) {
+            payload.set(newPayload(content));
+        }
+
+        void releasePayload() {
+            release(payload.get());
+            payload.remove();
+        }
+
+        int[] write() throws IOException {
+            return disk.write(view(payload.get()));
+        }
+
+        void read(int[] blocks) throws IOException {
+            release(disk.read(blocks));
+        }
+
+        abstract T newPayload(byte[] content);
+        /** Returns what to pass to {@link BlockDisk#write} without changing {@code payload}. */
+        abstract T view(T payload);
+        abstract void release(T data);
+    }
+
+    public enum Backend {
+        HEAP {
+            @Override
+            Driver<?> newDriver(String path, short blockSize, boolean syncWrites) throws IOException {
+                return new Driver<byte[]>(new BlockDisk.HeapBlockDisk(path, blockSize, syncWrites)) {
+                    @Override
+                    byte[] newPayload(byte[] content) {
+                        return content;
+                    }
+
+                    @Override
+                    byte[] view(byte[] payload) {
+                        return payload;
+                    }
+
+                    @Override
+                    void release(byte[] data) {
+                        // garbage collected
+                    }
+                };
+            }
+        },
+        DIRECT {
+            @Override
+            Driver<?> newDriver(String path, short blockSize, boolean syncWrites) throws IOException {
+                return new Driver<ByteBuffer>(new BlockDisk.DirectBlockDisk(path, blockSize, syncWrites)) {
+                    @Override
+                    ByteBuffer newPayload(byte[] content) {
+                        ByteBuffer payload = ByteBuffer.allocateDirect(content.length);
+                        payload.put(content).flip();
+                        return payload;
+                    }
+
+                    @Override
+                    ByteBuffer view(ByteBuffer payload) {
+                        return payload.duplicate();
+                    }
+
+                    @Override
+                    void release(ByteBuffer data) {
+                        PlatformDependent.freeDirectBuffer(data);
+                    }
+                };
+            }
+        };
+
+        abstract Driver<?> newDriver(String path, short blockSize, boolean syncWrites) throws IOException;
+    }
+}
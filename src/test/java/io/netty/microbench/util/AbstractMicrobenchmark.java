@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.util;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Base class for JMH benchmarks. Like {@link DefaultBenchmark}, a benchmark is run as a JUnit test, e.g.
+ * {@code mvn test -Dtest=PooledByteBufAllocatorBenchmark}, and is not picked up by a plain {@code mvn test}.
+ *
+ * Results are written as JSON to {@code target/jmh-reports/<benchmark>.json}, so that they can be compared
+ * between builds. The number of warmup and measurement iterations and forks can be overridden with the
+ * {@code warmupIterations}, {@code measureIterations} and {@code forks} system properties, and the number of
+ * benchmark threads with {@code threads}, which takes precedence over {@code @Threads}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(AbstractMicrobenchmark.DEFAULT_FORKS)
+@Warmup(iterations = AbstractMicrobenchmark.DEFAULT_WARMUP_ITERATIONS)
+@Measurement(iterations = AbstractMicrobenchmark.DEFAULT_MEASURE_ITERATIONS)
+public abstract class AbstractMicrobenchmark {
+
+    protected static final int DEFAULT_FORKS = 1;
+    protected static final int DEFAULT_WARMUP_ITERATIONS = 10;
+    protected static final int DEFAULT_MEASURE_ITERATIONS = 10;
+
+    private static final String[] JVM_ARGS = {
+        "-server", "-Xms768m", "-Xmx768m", "-XX:MaxDirectMemorySize=768m", "-dsa", "-da"
+    };
+
+    @Test
+    public void run() throws Exception {
+        String className = getClass().getSimpleName();
+
+        ChainedOptionsBuilder options = newOptionsBuilder()
+            .include(".*\\." + className + "\\..*")
+            .jvmArgs(JVM_ARGS);
+
+        int warmupIterations = Integer.getInteger("warmupIterations", -1);
+        if (warmupIterations > 0) {
+            options.warmupIterations(warmupIterations);
+        }
+        int measureIterations = Integer.getInteger("measureIterations", -1);
+        if (measureIterations > 0) {
+            options.measurementIterations(measureIterations);
+        }
+        int forks = Integer.getInteger("forks", -1);
+        if (forks >= 0) {
+            options.forks(forks);
+        }
+        int threads = Integer.getInteger("threads", -1);
+        if (threads > 0) {
+            options.threads(threads);
+        }
+
+        File reportDir = reportDir();
+        options.resultFormat(ResultFormatType.JSON)
+               .result(reportDir.getAbsolutePath() + File.separator + className + ".json");
+
+        new Runner(options.build()).run();
+    }
+
+    /**
+     * Returns the builder of the options to run with, e.g. to add a profiler.
+     */
+    protected ChainedOptionsBuilder newOptionsBuilder() {
+        return new OptionsBuilder();
+    }
+
+    private static File reportDir() {
+        File me = new File(AbstractMicrobenchmark.class.getResource(
+                '/' + AbstractMicrobenchmark.class.getName().replace('.', '/') + ".class").getPath());
+
+        // target/test-classes/io/netty/microbench/util/AbstractMicrobenchmark.class
+        File buildDir =
+                me.getParentFile().getParentFile().getParentFile().getParentFile().getParentFile().getParentFile();
+        if (!buildDir.getPath().endsWith(File.separator + "target") || !buildDir.isDirectory()) {
+            fail("failed to locate the build directory");
+        }
+
+        File reportDir = new File(buildDir, "jmh-reports");
+        if (!reportDir.isDirectory() && !reportDir.mkdirs()) {
+            fail("failed to create the JMH report directory: " + reportDir.getAbsolutePath());
+        }
+        return reportDir;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.microbench.util;
+
+import io.netty.util.Recycler;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * {@link Recycler} with objects that are recycled by the thread which got them and by another thread, the way a
+ * pooled buffer allocated by one thread is often released by another.
+ *
+ * In the {@code handoff} group a producer gets objects and hands them to a consumer, which recycles them, or drops
+ * them if {@link #recycle} is {@code false} (as a recycler that only takes objects back from their own thread
+ * does). The {@code newObjects} counter is the rate at which the recycler had to create objects, and the results
+ * of the GC profiler show what that costs.
+ */
+@State(Scope.Benchmark)
+public class RecyclerBenchmark extends AbstractMicrobenchmark {
+
+    private static final int PAYLOAD_SIZE = 256;
+    private static final int HANDOFF_CAPACITY = 1024;
+
+    @Param({ "true", "false" })
+    public boolean recycle;
+
+    private final Recycler<DummyObject> recycler = new Recycler<DummyObject>() {
+        @Override
+        protected DummyObject newObject(Handle handle) {
+            return new DummyObject(handle);
+        }
+    };
+
+    @Override
+    protected ChainedOptionsBuilder newOptionsBuilder() {
+        return super.newOptionsBuilder().addProfiler(GCProfiler.class);
+    }
+
+    static final class DummyObject {
+        final Recycler.Handle handle;
+        final byte[] payload = new byte[PAYLOAD_SIZE];
+        boolean created = true;
+
+        DummyObject(Recycler.Handle handle) {
+            this.handle = handle;
+        }
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Counters {
+        public long newObjects;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            newObjects = 0;
+        }
+    }
+
+    @State(Scope.Group)
+    public static class Handoff {
+        final Queue<DummyObject> queue = new ArrayBlockingQueue<DummyObject>(HANDOFF_CAPACITY);
+    }
+
+    private DummyObject get(Counters counters) {
+        DummyObject o = recycler.get();
+        if (o.created) {
+            o.created = false;
+            counters.newObjects ++;
+        }
+        return o;
+    }
+
+    private void recycle(DummyObject o) {
+        if (recycle) {
+            recycler.recycle(o, o.handle);
+        }
+    }
+
+    @Benchmark
+    public DummyObject sameThread(Counters counters) {
+        DummyObject o = get(counters);
+        recycle(o);
+        return o;
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public void produce(Handoff handoff, Counters counters) {
+        DummyObject o = get(counters);
+        if (!handoff.queue.offer(o)) {
+            // the consumer is behind
+            recycle(o);
+        }
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public DummyObject consume(Handoff handoff) {
+        DummyObject o = handoff.queue.poll();
+        if (o != null) {
+            recycle(o);
+        }
+        return o;
+    }
+}
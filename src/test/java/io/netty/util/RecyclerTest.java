@@ -0,0 +1,174 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RecyclerTest {
+
+    private static final class HandledObject {
+        final Recycler.Handle handle;
+
+        HandledObject(Recycler.Handle handle) {
+            this.handle = handle;
+        }
+    }
+
+    private static Recycler<HandledObject> newRecycler(int maxCapacity) {
+        return new Recycler<HandledObject>(maxCapacity) {
+            @Override
+            protected HandledObject newObject(Handle handle) {
+                return new HandledObject(handle);
+            }
+        };
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMultipleRecycle() {
+        Recycler<HandledObject> recycler = newRecycler(256);
+        HandledObject object = recycler.get();
+        assertTrue(recycler.recycle(object, object.handle));
+        recycler.recycle(object, object.handle);
+    }
+
+    @Test
+    public void testRecycleAtDifferentThread() throws Exception {
+        final Recycler<HandledObject> recycler = newRecycler(256);
+        final HandledObject object = recycler.get();
+        final AtomicInteger recycled = new AtomicInteger();
+
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                if (recycler.recycle(object, object.handle)) {
+                    recycled.incrementAndGet();
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertEquals(1, recycled.get());
+        // handed back to the thread which created it
+        assertSame(object, recycler.get());
+        assertNotSame(object, recycler.get());
+    }
+
+    @Test
+    public void testRecycleAtDifferentThreadBounded() throws Exception {
+        final Recycler<HandledObject> recycler = newRecycler(32);
+        final HandledObject[] objects = new HandledObject[100];
+        for (int i = 0; i < objects.length; i ++) {
+            objects[i] = recycler.get();
+        }
+        final AtomicInteger recycled = new AtomicInteger();
+
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                for (HandledObject object: objects) {
+                    if (recycler.recycle(object, object.handle)) {
+                        recycled.incrementAndGet();
+                    }
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertTrue(recycled.get() > 0);
+        assertTrue(recycled.get() < objects.length);
+
+        int reused = 0;
+        for (int i = 0; i < objects.length; i ++) {
+            HandledObject object = recycler.get();
+            for (HandledObject o: objects) {
+                if (o == object) {
+                    reused ++;
+                    break;
+                }
+            }
+        }
+        // everything that was not dropped comes back, though never more than maxCapacity at a time
+        assertEquals(recycled.get(), reused);
+    }
+
+    @Test
+    public void testQueuedObjectsBoundedByMaxCapacity() throws Exception {
+        final Recycler<HandledObject> recycler = newRecycler(32);
+        final HandledObject[] objects = new HandledObject[100];
+        for (int i = 0; i < objects.length; i ++) {
+            objects[i] = recycler.get();
+        }
+        final AtomicInteger recycled = new AtomicInteger();
+
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                for (HandledObject object: objects) {
+                    if (recycler.recycle(object, object.handle)) {
+                        recycled.incrementAndGet();
+                    }
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+
+        // the first link of the queue counts as well
+        assertEquals(32, recycled.get());
+        assertEquals(0, recycler.threadLocalAvailableSharedCapacity());
+    }
+
+    @Test
+    public void testMaxDelayedQueuesPerThread() throws Exception {
+        final int numRecyclers = Recycler.MAX_DELAYED_QUEUES_PER_THREAD + 1;
+        final List<Recycler<HandledObject>> recyclers = new ArrayList<Recycler<HandledObject>>();
+        final List<HandledObject> objects = new ArrayList<HandledObject>();
+        for (int i = 0; i < numRecyclers; i ++) {
+            Recycler<HandledObject> recycler = newRecycler(256);
+            recyclers.add(recycler);
+            objects.add(recycler.get());
+        }
+        final boolean[] recycled = new boolean[numRecyclers];
+
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < numRecyclers; i ++) {
+                    HandledObject object = objects.get(i);
+                    recycled[i] = recyclers.get(i).recycle(object, object.handle);
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+
+        for (int i = 0; i < numRecyclers; i ++) {
+            // only the last stack has no queue left
+            boolean queued = i < numRecyclers - 1;
+            assertEquals(queued, recycled[i]);
+            assertEquals(queued, objects.get(i) == recyclers.get(i).get());
+        }
+    }
+}